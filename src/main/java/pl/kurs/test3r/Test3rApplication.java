@@ -6,11 +6,12 @@ import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.scheduling.annotation.EnableAsync;
 import pl.kurs.test3r.config.ImportProperties;
+import pl.kurs.test3r.config.SearchProperties;
 
 @SpringBootApplication
 @EntityScan(basePackages = "pl.kurs.test3r.models")
 @EnableAsync
-@EnableConfigurationProperties(ImportProperties.class)
+@EnableConfigurationProperties({ImportProperties.class, SearchProperties.class})
 public class Test3rApplication {
 
     public static void main(String[] args) {
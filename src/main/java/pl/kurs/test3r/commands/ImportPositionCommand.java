@@ -0,0 +1,25 @@
+package pl.kurs.test3r.commands;
+
+import jakarta.validation.constraints.Pattern;
+
+public class ImportPositionCommand extends CreatePositionCommand {
+    private Long employeeId;
+    @Pattern(regexp = "\\d{11}")
+    private String pesel;
+
+    public Long getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(Long employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public String getPesel() {
+        return pesel;
+    }
+
+    public void setPesel(String pesel) {
+        this.pesel = pesel;
+    }
+}
@@ -0,0 +1,37 @@
+package pl.kurs.test3r.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ImportMessagingConfig {
+
+    @Bean
+    public Queue personImportChunkQueue(ImportProperties properties) {
+        ImportProperties.Distributed distributed = properties.getDistributed();
+        return QueueBuilder.durable(distributed.getQueue())
+                .deadLetterExchange("")
+                .deadLetterRoutingKey(distributed.getRetryQueue())
+                .build();
+    }
+
+    @Bean
+    public Queue personImportChunkRetryQueue(ImportProperties properties) {
+        ImportProperties.Distributed distributed = properties.getDistributed();
+        return QueueBuilder.durable(distributed.getRetryQueue())
+                .ttl(Math.toIntExact(distributed.getRetryDelayMillis()))
+                .deadLetterExchange("")
+                .deadLetterRoutingKey(distributed.getQueue())
+                .build();
+    }
+
+    @Bean
+    public MessageConverter importMessageConverter(ObjectMapper objectMapper) {
+        return new Jackson2JsonMessageConverter(objectMapper, "pl.kurs.test3r.services.imports");
+    }
+}
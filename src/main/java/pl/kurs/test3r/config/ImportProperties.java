@@ -7,8 +7,31 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 public class ImportProperties {
 
     private int batchSize = 100;
+    private boolean adaptiveBatchSize = true;
+    private int minBatchSize = 20;
+    private int maxBatchSize = 2000;
+    private double batchLatencySpikeFactor = 3.0;
     private int maxConcurrentImports = 1;
+    private int maxQueuedImports = 100;
+    private double queueAgingBytesPerSecond = 1024 * 1024;
+    private double estimatedBytesPerSecond = 4 * 1024 * 1024;
     private double minimumTps = 10.0;
+    private int parserThreads = 0;
+    private int writerThreads = 1;
+    private int queueCapacity = 4;
+    private int rangeSizeBytes = 1024 * 1024;
+    private String workDir = System.getProperty("java.io.tmpdir") + "/person-imports";
+    private boolean resumeOnStartup = true;
+    private String nodeId = "";
+    private WriterType writer = WriterType.JPA;
+    private boolean duplicateCheck = true;
+    private int dryRunMaxErrors = 100;
+    private int dryRunMaxErrorsLimit = 1000;
+    private int recordCountSampleBytes = 8 * 1024 * 1024;
+    private long progressFlushIntervalMillis = 5000;
+    private long progressStreamIntervalMillis = 1000;
+    private long progressStreamTimeoutMillis = 30 * 60 * 1000;
+    private final Distributed distributed = new Distributed();
 
     public int getBatchSize() {
         return batchSize;
@@ -18,6 +41,38 @@ public class ImportProperties {
         this.batchSize = batchSize;
     }
 
+    public boolean isAdaptiveBatchSize() {
+        return adaptiveBatchSize;
+    }
+
+    public void setAdaptiveBatchSize(boolean adaptiveBatchSize) {
+        this.adaptiveBatchSize = adaptiveBatchSize;
+    }
+
+    public int getMinBatchSize() {
+        return minBatchSize;
+    }
+
+    public void setMinBatchSize(int minBatchSize) {
+        this.minBatchSize = minBatchSize;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public double getBatchLatencySpikeFactor() {
+        return batchLatencySpikeFactor;
+    }
+
+    public void setBatchLatencySpikeFactor(double batchLatencySpikeFactor) {
+        this.batchLatencySpikeFactor = batchLatencySpikeFactor;
+    }
+
     public int getMaxConcurrentImports() {
         return maxConcurrentImports;
     }
@@ -26,6 +81,30 @@ public class ImportProperties {
         this.maxConcurrentImports = maxConcurrentImports;
     }
 
+    public int getMaxQueuedImports() {
+        return maxQueuedImports;
+    }
+
+    public void setMaxQueuedImports(int maxQueuedImports) {
+        this.maxQueuedImports = maxQueuedImports;
+    }
+
+    public double getQueueAgingBytesPerSecond() {
+        return queueAgingBytesPerSecond;
+    }
+
+    public void setQueueAgingBytesPerSecond(double queueAgingBytesPerSecond) {
+        this.queueAgingBytesPerSecond = queueAgingBytesPerSecond;
+    }
+
+    public double getEstimatedBytesPerSecond() {
+        return estimatedBytesPerSecond;
+    }
+
+    public void setEstimatedBytesPerSecond(double estimatedBytesPerSecond) {
+        this.estimatedBytesPerSecond = estimatedBytesPerSecond;
+    }
+
     public double getMinimumTps() {
         return minimumTps;
     }
@@ -33,4 +112,195 @@ public class ImportProperties {
     public void setMinimumTps(double minimumTps) {
         this.minimumTps = minimumTps;
     }
+
+    public int getParserThreads() {
+        return parserThreads;
+    }
+
+    public void setParserThreads(int parserThreads) {
+        this.parserThreads = parserThreads;
+    }
+
+    public int getWriterThreads() {
+        return writerThreads;
+    }
+
+    public void setWriterThreads(int writerThreads) {
+        this.writerThreads = writerThreads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getRangeSizeBytes() {
+        return rangeSizeBytes;
+    }
+
+    public void setRangeSizeBytes(int rangeSizeBytes) {
+        this.rangeSizeBytes = rangeSizeBytes;
+    }
+
+    public String getWorkDir() {
+        return workDir;
+    }
+
+    public void setWorkDir(String workDir) {
+        this.workDir = workDir;
+    }
+
+    public boolean isResumeOnStartup() {
+        return resumeOnStartup;
+    }
+
+    public void setResumeOnStartup(boolean resumeOnStartup) {
+        this.resumeOnStartup = resumeOnStartup;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public WriterType getWriter() {
+        return writer;
+    }
+
+    public void setWriter(WriterType writer) {
+        this.writer = writer;
+    }
+
+    public boolean isDuplicateCheck() {
+        return duplicateCheck;
+    }
+
+    public void setDuplicateCheck(boolean duplicateCheck) {
+        this.duplicateCheck = duplicateCheck;
+    }
+
+    public int getDryRunMaxErrors() {
+        return dryRunMaxErrors;
+    }
+
+    public void setDryRunMaxErrors(int dryRunMaxErrors) {
+        this.dryRunMaxErrors = dryRunMaxErrors;
+    }
+
+    public int getDryRunMaxErrorsLimit() {
+        return dryRunMaxErrorsLimit;
+    }
+
+    public void setDryRunMaxErrorsLimit(int dryRunMaxErrorsLimit) {
+        this.dryRunMaxErrorsLimit = dryRunMaxErrorsLimit;
+    }
+
+    public int getRecordCountSampleBytes() {
+        return recordCountSampleBytes;
+    }
+
+    public void setRecordCountSampleBytes(int recordCountSampleBytes) {
+        this.recordCountSampleBytes = recordCountSampleBytes;
+    }
+
+    public long getProgressFlushIntervalMillis() {
+        return progressFlushIntervalMillis;
+    }
+
+    public void setProgressFlushIntervalMillis(long progressFlushIntervalMillis) {
+        this.progressFlushIntervalMillis = progressFlushIntervalMillis;
+    }
+
+    public long getProgressStreamIntervalMillis() {
+        return progressStreamIntervalMillis;
+    }
+
+    public void setProgressStreamIntervalMillis(long progressStreamIntervalMillis) {
+        this.progressStreamIntervalMillis = progressStreamIntervalMillis;
+    }
+
+    public long getProgressStreamTimeoutMillis() {
+        return progressStreamTimeoutMillis;
+    }
+
+    public void setProgressStreamTimeoutMillis(long progressStreamTimeoutMillis) {
+        this.progressStreamTimeoutMillis = progressStreamTimeoutMillis;
+    }
+
+    public Distributed getDistributed() {
+        return distributed;
+    }
+
+    public int resolveParserThreads() {
+        return parserThreads > 0 ? parserThreads : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    public enum WriterType {
+        JPA,
+        JDBC
+    }
+
+    public static class Distributed {
+
+        private boolean enabled = false;
+        private String queue = "person-import-chunks";
+        private String retryQueue = "person-import-chunks.retry";
+        private int consumers = 2;
+        private int maxChunkAttempts = 3;
+        private long retryDelayMillis = 5000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getQueue() {
+            return queue;
+        }
+
+        public void setQueue(String queue) {
+            this.queue = queue;
+        }
+
+        public String getRetryQueue() {
+            return retryQueue;
+        }
+
+        public void setRetryQueue(String retryQueue) {
+            this.retryQueue = retryQueue;
+        }
+
+        public int getConsumers() {
+            return consumers;
+        }
+
+        public void setConsumers(int consumers) {
+            this.consumers = consumers;
+        }
+
+        public int getMaxChunkAttempts() {
+            return maxChunkAttempts;
+        }
+
+        public void setMaxChunkAttempts(int maxChunkAttempts) {
+            this.maxChunkAttempts = maxChunkAttempts;
+        }
+
+        public long getRetryDelayMillis() {
+            return retryDelayMillis;
+        }
+
+        public void setRetryDelayMillis(long retryDelayMillis) {
+            this.retryDelayMillis = retryDelayMillis;
+        }
+    }
 }
@@ -0,0 +1,17 @@
+package pl.kurs.test3r.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.search")
+public class SearchProperties {
+
+    private int approximateCountLimit = 10000;
+
+    public int getApproximateCountLimit() {
+        return approximateCountLimit;
+    }
+
+    public void setApproximateCountLimit(int approximateCountLimit) {
+        this.approximateCountLimit = approximateCountLimit;
+    }
+}
@@ -82,7 +82,10 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.PUT, "/api/persons").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/persons/**").hasAnyRole("ADMIN", "EMPLOYEE")
                         .requestMatchers("/api/imports/persons/**").hasAnyRole("ADMIN", "IMPORTER")
+                        .requestMatchers("/api/imports/positions/**").hasAnyRole("ADMIN", "IMPORTER")
                         .requestMatchers("/api/employees/**").hasAnyRole("ADMIN", "EMPLOYEE")
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .httpBasic(withDefaults())
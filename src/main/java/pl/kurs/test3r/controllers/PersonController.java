@@ -1,16 +1,19 @@
 package pl.kurs.test3r.controllers;
 
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import pl.kurs.test3r.commands.CreatePersonCommand;
 import pl.kurs.test3r.commands.UpdatePersonCommand;
+import pl.kurs.test3r.dto.KeysetPageDto;
 import pl.kurs.test3r.dto.PersonDto;
 import pl.kurs.test3r.dto.PersonSearchCriteria;
+import pl.kurs.test3r.dto.SearchCountMode;
 import pl.kurs.test3r.services.PersonQueryService;
 import pl.kurs.test3r.services.PersonService;
 
@@ -29,8 +32,18 @@ public class PersonController {
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE')")
-    public Page<PersonDto> search(PersonSearchCriteria criteria, Pageable pageable) {
-        return personQueryService.search(criteria, pageable);
+    public Slice<PersonDto> search(PersonSearchCriteria criteria, Pageable pageable,
+                                   @RequestParam(value = "count", defaultValue = "EXACT") SearchCountMode count) {
+        return personQueryService.search(criteria, pageable, count);
+    }
+
+    @GetMapping(params = "pagination=keyset")
+    @PreAuthorize("hasAnyRole('ADMIN', 'EMPLOYEE')")
+    public KeysetPageDto<PersonDto> searchKeyset(PersonSearchCriteria criteria,
+                                                 @RequestParam(value = "size", defaultValue = "20") int size,
+                                                 @RequestParam(value = "cursor", required = false) String cursor,
+                                                 Sort sort) {
+        return personQueryService.searchKeyset(criteria, sort, size, cursor);
     }
 
     @PostMapping
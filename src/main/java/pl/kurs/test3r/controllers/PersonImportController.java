@@ -1,13 +1,24 @@
 package pl.kurs.test3r.controllers;
 
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.kurs.test3r.dto.ImportDryRunDto;
 import pl.kurs.test3r.dto.ImportJobDto;
+import pl.kurs.test3r.models.imports.ImportMode;
 import pl.kurs.test3r.services.imports.PersonCsvImportService;
 
+import java.io.InputStream;
+import java.nio.file.Path;
+
 @RestController
 @RequestMapping("/api/imports/persons")
 public class PersonImportController {
@@ -20,15 +31,62 @@ public class PersonImportController {
 
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'IMPORTER')")
-    public ResponseEntity<ImportJobDto> upload(@RequestParam("file") MultipartFile file) {
-        ImportJobDto dto = personCsvImportService.startImport(file);
+    public ResponseEntity<ImportJobDto> upload(@RequestParam("file") MultipartFile file,
+                                               @RequestParam(value = "skipInvalid", defaultValue = "false") boolean skipInvalid,
+                                               @RequestParam(value = "mode", defaultValue = "INSERT") ImportMode mode) {
+        ImportJobDto dto = personCsvImportService.startImport(file, skipInvalid, mode);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(dto);
+    }
+
+    @PutMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'IMPORTER')")
+    public ResponseEntity<ImportJobDto> uploadStream(InputStream body,
+                                                     @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+                                                     @RequestParam(value = "fileName", required = false) String fileName,
+                                                     @RequestParam(value = "skipInvalid", defaultValue = "false") boolean skipInvalid,
+                                                     @RequestParam(value = "mode", defaultValue = "INSERT") ImportMode mode) {
+        ImportJobDto dto = personCsvImportService.startStreamingImport(body, fileName, contentType, skipInvalid, mode);
         return ResponseEntity.status(HttpStatus.ACCEPTED).body(dto);
     }
 
+    @PostMapping("/dry-run")
+    @PreAuthorize("hasAnyRole('ADMIN', 'IMPORTER')")
+    public ResponseEntity<ImportDryRunDto> dryRun(@RequestParam("file") MultipartFile file,
+                                                  @RequestParam(value = "mode", defaultValue = "INSERT") ImportMode mode,
+                                                  @RequestParam(value = "maxErrors", required = false) Integer maxErrors) {
+        return ResponseEntity.ok(personCsvImportService.dryRun(file, mode, maxErrors));
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'IMPORTER')")
     public ResponseEntity<ImportJobDto> status(@PathVariable Long id) {
         return ResponseEntity.ok(personCsvImportService.getStatus(id));
     }
 
+    @GetMapping(value = "/{id}/progress", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'IMPORTER')")
+    public SseEmitter progress(@PathVariable Long id) {
+        return personCsvImportService.streamProgress(id);
+    }
+
+    @GetMapping("/{id}/rejections")
+    @PreAuthorize("hasAnyRole('ADMIN', 'IMPORTER')")
+    public ResponseEntity<Resource> rejections(@PathVariable Long id) {
+        Path report = personCsvImportService.getRejectionReport(id);
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("import-" + id + "-rejections.csv")
+                        .build()
+                        .toString())
+                .body(new FileSystemResource(report));
+    }
+
+    @PostMapping("/{id}/resume")
+    @PreAuthorize("hasAnyRole('ADMIN', 'IMPORTER')")
+    public ResponseEntity<ImportJobDto> resume(@PathVariable Long id) {
+        ImportJobDto dto = personCsvImportService.resumeImport(id);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(dto);
+    }
+
 }
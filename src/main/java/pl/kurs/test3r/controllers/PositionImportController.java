@@ -0,0 +1,70 @@
+package pl.kurs.test3r.controllers;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.kurs.test3r.dto.ImportJobDto;
+import pl.kurs.test3r.models.imports.ImportTarget;
+import pl.kurs.test3r.services.imports.PersonCsvImportService;
+
+import java.nio.file.Path;
+
+@RestController
+@RequestMapping("/api/imports/positions")
+public class PositionImportController {
+
+    private final PersonCsvImportService personCsvImportService;
+
+    public PositionImportController(PersonCsvImportService personCsvImportService) {
+        this.personCsvImportService = personCsvImportService;
+    }
+
+    @PostMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'IMPORTER')")
+    public ResponseEntity<ImportJobDto> upload(@RequestParam("file") MultipartFile file,
+                                               @RequestParam(value = "skipInvalid", defaultValue = "false") boolean skipInvalid) {
+        ImportJobDto dto = personCsvImportService.startPositionImport(file, skipInvalid);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(dto);
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'IMPORTER')")
+    public ResponseEntity<ImportJobDto> status(@PathVariable Long id) {
+        return ResponseEntity.ok(personCsvImportService.getStatus(id, ImportTarget.POSITIONS));
+    }
+
+    @GetMapping(value = "/{id}/progress", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'IMPORTER')")
+    public SseEmitter progress(@PathVariable Long id) {
+        return personCsvImportService.streamProgress(id, ImportTarget.POSITIONS);
+    }
+
+    @GetMapping("/{id}/rejections")
+    @PreAuthorize("hasAnyRole('ADMIN', 'IMPORTER')")
+    public ResponseEntity<Resource> rejections(@PathVariable Long id) {
+        Path report = personCsvImportService.getRejectionReport(id, ImportTarget.POSITIONS);
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("position-import-" + id + "-rejections.csv")
+                        .build()
+                        .toString())
+                .body(new FileSystemResource(report));
+    }
+
+    @PostMapping("/{id}/resume")
+    @PreAuthorize("hasAnyRole('ADMIN', 'IMPORTER')")
+    public ResponseEntity<ImportJobDto> resume(@PathVariable Long id) {
+        ImportJobDto dto = personCsvImportService.resumeImport(id, ImportTarget.POSITIONS);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(dto);
+    }
+
+}
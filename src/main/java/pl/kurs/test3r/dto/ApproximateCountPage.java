@@ -0,0 +1,20 @@
+package pl.kurs.test3r.dto;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public class ApproximateCountPage<T> extends PageImpl<T> {
+
+    private final boolean totalApproximate;
+
+    public ApproximateCountPage(List<T> content, Pageable pageable, long total, boolean totalApproximate) {
+        super(content, pageable, total);
+        this.totalApproximate = totalApproximate;
+    }
+
+    public boolean isTotalApproximate() {
+        return totalApproximate;
+    }
+}
@@ -0,0 +1,82 @@
+package pl.kurs.test3r.dto;
+
+import pl.kurs.test3r.models.imports.ImportFormat;
+
+import java.util.List;
+import java.util.Map;
+
+public class ImportDryRunDto {
+
+    private ImportFormat format;
+    private int totalRecords;
+    private int validRecords;
+    private int invalidRecords;
+    private Map<String, Integer> recordsByType;
+    private List<ImportRowErrorDto> errors;
+    private long estimatedImportSeconds;
+    private long validationMillis;
+
+    public ImportFormat getFormat() {
+        return format;
+    }
+
+    public void setFormat(ImportFormat format) {
+        this.format = format;
+    }
+
+    public int getTotalRecords() {
+        return totalRecords;
+    }
+
+    public void setTotalRecords(int totalRecords) {
+        this.totalRecords = totalRecords;
+    }
+
+    public int getValidRecords() {
+        return validRecords;
+    }
+
+    public void setValidRecords(int validRecords) {
+        this.validRecords = validRecords;
+    }
+
+    public int getInvalidRecords() {
+        return invalidRecords;
+    }
+
+    public void setInvalidRecords(int invalidRecords) {
+        this.invalidRecords = invalidRecords;
+    }
+
+    public Map<String, Integer> getRecordsByType() {
+        return recordsByType;
+    }
+
+    public void setRecordsByType(Map<String, Integer> recordsByType) {
+        this.recordsByType = recordsByType;
+    }
+
+    public List<ImportRowErrorDto> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<ImportRowErrorDto> errors) {
+        this.errors = errors;
+    }
+
+    public long getEstimatedImportSeconds() {
+        return estimatedImportSeconds;
+    }
+
+    public void setEstimatedImportSeconds(long estimatedImportSeconds) {
+        this.estimatedImportSeconds = estimatedImportSeconds;
+    }
+
+    public long getValidationMillis() {
+        return validationMillis;
+    }
+
+    public void setValidationMillis(long validationMillis) {
+        this.validationMillis = validationMillis;
+    }
+}
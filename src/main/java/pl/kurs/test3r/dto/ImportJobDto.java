@@ -1,7 +1,10 @@
 package pl.kurs.test3r.dto;
 
+import pl.kurs.test3r.models.imports.ImportFormat;
 import pl.kurs.test3r.models.imports.ImportJob;
 import pl.kurs.test3r.models.imports.ImportJobStatus;
+import pl.kurs.test3r.models.imports.ImportMode;
+import pl.kurs.test3r.models.imports.ImportTarget;
 
 import java.time.OffsetDateTime;
 
@@ -11,10 +14,28 @@ public class ImportJobDto {
     private String fileName;
     private long fileSize;
     private String contentType;
+    private ImportFormat format;
+    private ImportMode mode;
+    private ImportTarget target;
     private ImportJobStatus status;
     private Integer totalRecords;
     private Integer processedRecords;
+    private Integer successRecords;
+    private Integer rejectedRecords;
+    private Integer updatedRecords;
+    private Integer unchangedRecords;
+    private Double percentComplete;
+    private Long etaSeconds;
+    private boolean skipInvalidRows;
     private String errorMessage;
+    private Long checkpointOffset;
+    private Integer checkpointRow;
+    private Integer totalChunks;
+    private Integer completedChunks;
+    private Integer finalBatchSize;
+    private String batchSizeHistory;
+    private Integer queuePosition;
+    private OffsetDateTime estimatedStartAt;
     private OffsetDateTime createdAt;
     private OffsetDateTime startedAt;
     private OffsetDateTime finishedAt;
@@ -25,10 +46,24 @@ public class ImportJobDto {
         dto.setFileName(job.getFileName());
         dto.setFileSize(job.getFileSize());
         dto.setContentType(job.getContentType());
+        dto.setFormat(job.getFormat());
+        dto.setMode(job.getMode());
+        dto.setTarget(job.getTarget());
         dto.setStatus(job.getStatus());
         dto.setTotalRecords(job.getTotalRecords());
         dto.setProcessedRecords(job.getProcessedRecords());
+        dto.setSuccessRecords(job.getSuccessRecords());
+        dto.setRejectedRecords(job.getRejectedRecords());
+        dto.setUpdatedRecords(job.getUpdatedRecords());
+        dto.setUnchangedRecords(job.getUnchangedRecords());
+        dto.setSkipInvalidRows(job.isSkipInvalidRows());
         dto.setErrorMessage(job.getErrorMessage());
+        dto.setCheckpointOffset(job.getCheckpointOffset());
+        dto.setCheckpointRow(job.getCheckpointRow());
+        dto.setTotalChunks(job.getTotalChunks());
+        dto.setCompletedChunks(job.getCompletedChunks());
+        dto.setFinalBatchSize(job.getFinalBatchSize());
+        dto.setBatchSizeHistory(job.getBatchSizeHistory());
         dto.setCreatedAt(job.getCreatedAt());
         dto.setStartedAt(job.getStartedAt());
         dto.setFinishedAt(job.getFinishedAt());
@@ -70,6 +105,30 @@ public class ImportJobDto {
         this.contentType = contentType;
     }
 
+    public ImportFormat getFormat() {
+        return format;
+    }
+
+    public void setFormat(ImportFormat format) {
+        this.format = format;
+    }
+
+    public ImportMode getMode() {
+        return mode;
+    }
+
+    public void setMode(ImportMode mode) {
+        this.mode = mode;
+    }
+
+    public ImportTarget getTarget() {
+        return target;
+    }
+
+    public void setTarget(ImportTarget target) {
+        this.target = target;
+    }
+
     public ImportJobStatus getStatus() {
         return status;
     }
@@ -94,6 +153,62 @@ public class ImportJobDto {
         this.processedRecords = processedRecords;
     }
 
+    public Integer getSuccessRecords() {
+        return successRecords;
+    }
+
+    public void setSuccessRecords(Integer successRecords) {
+        this.successRecords = successRecords;
+    }
+
+    public Integer getRejectedRecords() {
+        return rejectedRecords;
+    }
+
+    public void setRejectedRecords(Integer rejectedRecords) {
+        this.rejectedRecords = rejectedRecords;
+    }
+
+    public Integer getUpdatedRecords() {
+        return updatedRecords;
+    }
+
+    public void setUpdatedRecords(Integer updatedRecords) {
+        this.updatedRecords = updatedRecords;
+    }
+
+    public Integer getUnchangedRecords() {
+        return unchangedRecords;
+    }
+
+    public void setUnchangedRecords(Integer unchangedRecords) {
+        this.unchangedRecords = unchangedRecords;
+    }
+
+    public Double getPercentComplete() {
+        return percentComplete;
+    }
+
+    public void setPercentComplete(Double percentComplete) {
+        this.percentComplete = percentComplete;
+    }
+
+    public Long getEtaSeconds() {
+        return etaSeconds;
+    }
+
+    public void setEtaSeconds(Long etaSeconds) {
+        this.etaSeconds = etaSeconds;
+    }
+
+    public boolean isSkipInvalidRows() {
+        return skipInvalidRows;
+    }
+
+    public void setSkipInvalidRows(boolean skipInvalidRows) {
+        this.skipInvalidRows = skipInvalidRows;
+    }
+
     public String getErrorMessage() {
         return errorMessage;
     }
@@ -102,6 +217,70 @@ public class ImportJobDto {
         this.errorMessage = errorMessage;
     }
 
+    public Long getCheckpointOffset() {
+        return checkpointOffset;
+    }
+
+    public void setCheckpointOffset(Long checkpointOffset) {
+        this.checkpointOffset = checkpointOffset;
+    }
+
+    public Integer getCheckpointRow() {
+        return checkpointRow;
+    }
+
+    public void setCheckpointRow(Integer checkpointRow) {
+        this.checkpointRow = checkpointRow;
+    }
+
+    public Integer getTotalChunks() {
+        return totalChunks;
+    }
+
+    public void setTotalChunks(Integer totalChunks) {
+        this.totalChunks = totalChunks;
+    }
+
+    public Integer getCompletedChunks() {
+        return completedChunks;
+    }
+
+    public void setCompletedChunks(Integer completedChunks) {
+        this.completedChunks = completedChunks;
+    }
+
+    public Integer getFinalBatchSize() {
+        return finalBatchSize;
+    }
+
+    public void setFinalBatchSize(Integer finalBatchSize) {
+        this.finalBatchSize = finalBatchSize;
+    }
+
+    public String getBatchSizeHistory() {
+        return batchSizeHistory;
+    }
+
+    public void setBatchSizeHistory(String batchSizeHistory) {
+        this.batchSizeHistory = batchSizeHistory;
+    }
+
+    public Integer getQueuePosition() {
+        return queuePosition;
+    }
+
+    public void setQueuePosition(Integer queuePosition) {
+        this.queuePosition = queuePosition;
+    }
+
+    public OffsetDateTime getEstimatedStartAt() {
+        return estimatedStartAt;
+    }
+
+    public void setEstimatedStartAt(OffsetDateTime estimatedStartAt) {
+        this.estimatedStartAt = estimatedStartAt;
+    }
+
     public OffsetDateTime getCreatedAt() {
         return createdAt;
     }
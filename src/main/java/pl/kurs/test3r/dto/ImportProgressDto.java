@@ -0,0 +1,63 @@
+package pl.kurs.test3r.dto;
+
+import pl.kurs.test3r.models.imports.ImportJobStatus;
+
+public class ImportProgressDto {
+
+    private Long jobId;
+    private ImportJobStatus status;
+    private long processedRecords;
+    private double rowsPerSecond;
+    private Long etaSeconds;
+
+    public ImportProgressDto() {
+    }
+
+    public ImportProgressDto(Long jobId, ImportJobStatus status, long processedRecords, double rowsPerSecond, Long etaSeconds) {
+        this.jobId = jobId;
+        this.status = status;
+        this.processedRecords = processedRecords;
+        this.rowsPerSecond = rowsPerSecond;
+        this.etaSeconds = etaSeconds;
+    }
+
+    public Long getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(Long jobId) {
+        this.jobId = jobId;
+    }
+
+    public ImportJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ImportJobStatus status) {
+        this.status = status;
+    }
+
+    public long getProcessedRecords() {
+        return processedRecords;
+    }
+
+    public void setProcessedRecords(long processedRecords) {
+        this.processedRecords = processedRecords;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public Long getEtaSeconds() {
+        return etaSeconds;
+    }
+
+    public void setEtaSeconds(Long etaSeconds) {
+        this.etaSeconds = etaSeconds;
+    }
+}
@@ -0,0 +1,31 @@
+package pl.kurs.test3r.dto;
+
+public class ImportRowErrorDto {
+
+    private int row;
+    private String message;
+
+    public ImportRowErrorDto() {
+    }
+
+    public ImportRowErrorDto(int row, String message) {
+        this.row = row;
+        this.message = message;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public void setRow(int row) {
+        this.row = row;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
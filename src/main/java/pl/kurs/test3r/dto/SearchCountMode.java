@@ -0,0 +1,7 @@
+package pl.kurs.test3r.dto;
+
+public enum SearchCountMode {
+    EXACT,
+    NONE,
+    APPROXIMATE
+}
@@ -6,7 +6,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 @ResponseStatus(HttpStatus.CONFLICT)
 public class ImportConcurrencyException extends RuntimeException{
 
-    public ImportConcurrencyException(int maxConcurrentImports){
-        super("Maximum number of concurrentimports reached (" + maxConcurrentImports + ")");
+    public ImportConcurrencyException(int maxQueuedImports){
+        super("Import queue is full (" + maxQueuedImports + " queued imports)");
     }
 }
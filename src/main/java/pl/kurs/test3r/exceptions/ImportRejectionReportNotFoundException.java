@@ -0,0 +1,11 @@
+package pl.kurs.test3r.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class ImportRejectionReportNotFoundException extends RuntimeException {
+    public ImportRejectionReportNotFoundException(Long id) {
+        super("Import job with id " + id + " has no rejection report");
+    }
+}
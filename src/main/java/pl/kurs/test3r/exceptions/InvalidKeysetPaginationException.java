@@ -0,0 +1,16 @@
+package pl.kurs.test3r.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidKeysetPaginationException extends RuntimeException {
+
+    public InvalidKeysetPaginationException(String message) {
+        super(message);
+    }
+
+    public InvalidKeysetPaginationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,55 @@
+package pl.kurs.test3r.mappers;
+
+import pl.kurs.test3r.commands.CreatePersonCommand;
+import pl.kurs.test3r.commands.UpdatePersonCommand;
+import pl.kurs.test3r.dto.PersonDto;
+import pl.kurs.test3r.models.person.Person;
+
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+
+public abstract class AbstractPersonDtoMapper {
+
+    protected void copyBaseAttributes(Person source, PersonDto target) {
+        target.setId(source.getId());
+        target.setFirstName(source.getFirstName());
+        target.setLastName(source.getLastName());
+        target.setPesel(source.getPesel());
+        target.setHeight(source.getHeight());
+        target.setWeight(source.getWeight());
+        target.setEmail(source.getEmail());
+        target.setVersion(source.getVersion());
+    }
+
+    protected void applyBaseAttributes(CreatePersonCommand source, Person target) {
+        target.setFirstName(source.getFirstName());
+        target.setLastName(source.getLastName());
+        target.setPesel(source.getPesel());
+        setIfPresent(source.getHeight(), target::setHeight);
+        setIfPresent(source.getWeight(), target::setWeight);
+        target.setEmail(source.getEmail());
+    }
+
+    protected void applyBaseAttributes(UpdatePersonCommand source, Person target) {
+        target.setId(source.getId());
+        target.setVersion(source.getVersion());
+        target.setFirstName(source.getFirstName());
+        target.setLastName(source.getLastName());
+        target.setPesel(source.getPesel());
+        setIfPresent(source.getHeight(), target::setHeight);
+        setIfPresent(source.getWeight(), target::setWeight);
+        target.setEmail(source.getEmail());
+    }
+
+    protected void setIfPresent(Double value, DoubleConsumer setter) {
+        if (value != null) {
+            setter.accept(value);
+        }
+    }
+
+    protected void setIfPresent(Integer value, IntConsumer setter) {
+        if (value != null) {
+            setter.accept(value);
+        }
+    }
+}
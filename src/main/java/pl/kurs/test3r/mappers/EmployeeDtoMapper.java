@@ -1,43 +1,42 @@
 package pl.kurs.test3r.mappers;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
+import pl.kurs.test3r.commands.CreateEmployeeCommand;
+import pl.kurs.test3r.commands.UpdateEmployeeCommand;
 import pl.kurs.test3r.dto.EmployeeDto;
 import pl.kurs.test3r.models.person.Employee;
-import pl.kurs.test3r.models.position.PositionHistory;
 import pl.kurs.test3r.services.person.EmployeePersonTypeModule;
 
-import java.util.Set;
-import java.util.stream.Collectors;
-
 @Component
-public class EmployeeDtoMapper {
-
-    private final ModelMapper modelMapper;
-
-    public EmployeeDtoMapper(ModelMapper modelMapper) {
-        this.modelMapper = modelMapper;
-    }
+public class EmployeeDtoMapper extends AbstractPersonDtoMapper {
 
     public EmployeeDto map(Employee employee) {
-        EmployeeDto dto = modelMapper.map(employee, EmployeeDto.class);
+        EmployeeDto dto = new EmployeeDto();
+        copyBaseAttributes(employee, dto);
         dto.setType(EmployeePersonTypeModule.TYPE);
-        dto.setPositionCount(employee.getPositions() == null ? 0 : employee.getPositions().size());
-        dto.setProfessionCount(calculateProfessionCount(employee));
+        dto.setStartDate(employee.getStartDate());
+        dto.setCurrentPosition(employee.getCurrentPosition());
+        dto.setCurrentSalary(employee.getCurrentSalary());
+        dto.setPositionCount(employee.getPositionCount());
+        dto.setProfessionCount(employee.getDistinctProfessionCount());
         return dto;
     }
 
-    private int calculateProfessionCount(Employee employee) {
-        if (employee.getPositions() == null) {
-            return 0;
-        }
-        Set<String> professionNames = employee.getPositions().stream()
-                .map(PositionHistory::getPositionName)
-                .filter(StringUtils::hasText)
-                .map(String::toLowerCase)
-                .collect(Collectors.toSet());
-        return professionNames.size();
+    public Employee toEntity(CreateEmployeeCommand command) {
+        Employee employee = new Employee();
+        applyBaseAttributes(command, employee);
+        employee.setStartDate(command.getStartDate());
+        employee.setCurrentPosition(command.getCurrentPosition());
+        setIfPresent(command.getCurrentSalary(), employee::setCurrentSalary);
+        return employee;
     }
 
+    public Employee toEntity(UpdateEmployeeCommand command) {
+        Employee employee = new Employee();
+        applyBaseAttributes(command, employee);
+        employee.setStartDate(command.getStartDate());
+        employee.setCurrentPosition(command.getCurrentPosition());
+        setIfPresent(command.getCurrentSalary(), employee::setCurrentSalary);
+        return employee;
+    }
 }
@@ -0,0 +1,35 @@
+package pl.kurs.test3r.mappers;
+
+import org.springframework.stereotype.Component;
+import pl.kurs.test3r.commands.CreateRetireeCommand;
+import pl.kurs.test3r.commands.UpdateRetireeCommand;
+import pl.kurs.test3r.dto.RetireeDto;
+import pl.kurs.test3r.models.person.Retiree;
+
+@Component
+public class RetireeDtoMapper extends AbstractPersonDtoMapper {
+
+    public RetireeDto map(Retiree retiree) {
+        RetireeDto dto = new RetireeDto();
+        copyBaseAttributes(retiree, dto);
+        dto.setPensionAmount(retiree.getPensionAmount());
+        dto.setYearsWorked(retiree.getYearsWorked());
+        return dto;
+    }
+
+    public Retiree toEntity(CreateRetireeCommand command) {
+        Retiree retiree = new Retiree();
+        applyBaseAttributes(command, retiree);
+        setIfPresent(command.getPensionAmount(), retiree::setPensionAmount);
+        setIfPresent(command.getYearsWorked(), retiree::setYearsWorked);
+        return retiree;
+    }
+
+    public Retiree toEntity(UpdateRetireeCommand command) {
+        Retiree retiree = new Retiree();
+        applyBaseAttributes(command, retiree);
+        setIfPresent(command.getPensionAmount(), retiree::setPensionAmount);
+        setIfPresent(command.getYearsWorked(), retiree::setYearsWorked);
+        return retiree;
+    }
+}
@@ -0,0 +1,41 @@
+package pl.kurs.test3r.mappers;
+
+import org.springframework.stereotype.Component;
+import pl.kurs.test3r.commands.CreateStudentCommand;
+import pl.kurs.test3r.commands.UpdateStudentCommand;
+import pl.kurs.test3r.dto.StudentDto;
+import pl.kurs.test3r.models.person.Student;
+
+@Component
+public class StudentDtoMapper extends AbstractPersonDtoMapper {
+
+    public StudentDto map(Student student) {
+        StudentDto dto = new StudentDto();
+        copyBaseAttributes(student, dto);
+        dto.setUniversity(student.getUniversity());
+        dto.setStudyYear(student.getStudyYear());
+        dto.setFieldOfStudy(student.getFieldOfStudy());
+        dto.setScholarship(student.getScholarship());
+        return dto;
+    }
+
+    public Student toEntity(CreateStudentCommand command) {
+        Student student = new Student();
+        applyBaseAttributes(command, student);
+        student.setUniversity(command.getUniversity());
+        setIfPresent(command.getStudyYear(), student::setStudyYear);
+        student.setFieldOfStudy(command.getFieldOfStudy());
+        setIfPresent(command.getScholarship(), student::setScholarship);
+        return student;
+    }
+
+    public Student toEntity(UpdateStudentCommand command) {
+        Student student = new Student();
+        applyBaseAttributes(command, student);
+        student.setUniversity(command.getUniversity());
+        setIfPresent(command.getStudyYear(), student::setStudyYear);
+        student.setFieldOfStudy(command.getFieldOfStudy());
+        setIfPresent(command.getScholarship(), student::setScholarship);
+        return student;
+    }
+}
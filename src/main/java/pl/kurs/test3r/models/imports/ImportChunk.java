@@ -0,0 +1,100 @@
+package pl.kurs.test3r.models.imports;
+
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+
+@Entity
+@Table(name = "file_import_chunks",
+        uniqueConstraints = @UniqueConstraint(name = "uk_import_chunk", columnNames = {"job_id", "chunk_index"}))
+public class ImportChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    @Column(name = "chunk_index", nullable = false)
+    private int chunkIndex;
+
+    @Column(name = "first_line")
+    private Integer firstLine;
+
+    @Column(name = "end_line")
+    private Integer endLine;
+
+    @Column(nullable = false)
+    private int records;
+
+    private String processedBy;
+
+    @Column(nullable = false)
+    private OffsetDateTime processedAt;
+
+    public ImportChunk() {
+    }
+
+    public ImportChunk(Long jobId, int chunkIndex, int records, String processedBy) {
+        this.jobId = jobId;
+        this.chunkIndex = chunkIndex;
+        this.records = records;
+        this.processedBy = processedBy;
+    }
+
+    public ImportChunk(Long jobId, int chunkIndex, int firstLine, int endLine, int records, String processedBy) {
+        this(jobId, chunkIndex, records, processedBy);
+        this.firstLine = firstLine;
+        this.endLine = endLine;
+    }
+
+    @PrePersist
+    void onCreate() {
+        processedAt = OffsetDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getJobId() {
+        return jobId;
+    }
+
+    public int getChunkIndex() {
+        return chunkIndex;
+    }
+
+    public Integer getFirstLine() {
+        return firstLine;
+    }
+
+    public void setFirstLine(Integer firstLine) {
+        this.firstLine = firstLine;
+    }
+
+    public Integer getEndLine() {
+        return endLine;
+    }
+
+    public void setEndLine(Integer endLine) {
+        this.endLine = endLine;
+    }
+
+    public int getRecords() {
+        return records;
+    }
+
+    public void setRecords(int records) {
+        this.records = records;
+    }
+
+    public String getProcessedBy() {
+        return processedBy;
+    }
+
+    public OffsetDateTime getProcessedAt() {
+        return processedAt;
+    }
+}
@@ -0,0 +1,38 @@
+package pl.kurs.test3r.models.imports;
+
+import java.util.Locale;
+
+public enum ImportFormat {
+    CSV(".csv"),
+    NDJSON(".ndjson");
+
+    private final String fileExtension;
+
+    ImportFormat(String fileExtension) {
+        this.fileExtension = fileExtension;
+    }
+
+    public String fileExtension() {
+        return fileExtension;
+    }
+
+    public static ImportFormat detect(byte[] head, String contentType, String fileName) {
+        String type = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+        String name = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT).replaceFirst("\\.(gz|zst)$", "");
+        if (type.contains("ndjson") || type.contains("jsonl") || name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        if (type.contains("csv") || name.endsWith(".csv")) {
+            return CSV;
+        }
+        return startsWithObject(head) ? NDJSON : CSV;
+    }
+
+    private static boolean startsWithObject(byte[] head) {
+        int i = head.length >= 3 && head[0] == (byte) 0xEF && head[1] == (byte) 0xBB && head[2] == (byte) 0xBF ? 3 : 0;
+        while (i < head.length && Character.isWhitespace(head[i])) {
+            i++;
+        }
+        return i < head.length && head[i] == '{';
+    }
+}
@@ -1,10 +1,13 @@
 package pl.kurs.test3r.models.imports;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.OffsetDateTime;
 
 @Entity
+@DynamicUpdate
 @Table(name = "file_import_jobs")
 public class ImportJob {
 
@@ -20,6 +23,18 @@ public class ImportJob {
 
     private String contentType;
 
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private ImportFormat format = ImportFormat.CSV;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private ImportMode mode = ImportMode.INSERT;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private ImportTarget target = ImportTarget.PERSONS;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private ImportJobStatus status = ImportJobStatus.PENDING;
@@ -28,9 +43,47 @@ public class ImportJob {
 
     private Integer processedRecords;
 
+    private Integer successRecords;
+
+    private Integer rejectedRecords;
+
+    private Integer updatedRecords;
+
+    private Integer unchangedRecords;
+
+    @Column(nullable = false)
+    private boolean skipInvalidRows;
+
+    @Column(length = 1024)
+    private String rejectionFilePath;
+
     @Column(length = 1024)
     private String errorMessage;
 
+    @Column(length = 1024)
+    private String storedFilePath;
+
+    private Long checkpointOffset;
+
+    private Integer checkpointRow;
+
+    private Integer checkpointRecords;
+
+    private Integer totalChunks;
+
+    private Integer completedChunks;
+
+    @Column(nullable = false)
+    @ColumnDefault("false")
+    private boolean distributed;
+
+    private String ownerNode;
+
+    private Integer finalBatchSize;
+
+    @Column(length = 2000)
+    private String batchSizeHistory;
+
     @Column(nullable = false, updatable = false)
     private OffsetDateTime createdAt;
 
@@ -80,6 +133,30 @@ public class ImportJob {
         this.contentType = contentType;
     }
 
+    public ImportFormat getFormat() {
+        return format == null ? ImportFormat.CSV : format;
+    }
+
+    public void setFormat(ImportFormat format) {
+        this.format = format;
+    }
+
+    public ImportMode getMode() {
+        return mode == null ? ImportMode.INSERT : mode;
+    }
+
+    public void setMode(ImportMode mode) {
+        this.mode = mode;
+    }
+
+    public ImportTarget getTarget() {
+        return target == null ? ImportTarget.PERSONS : target;
+    }
+
+    public void setTarget(ImportTarget target) {
+        this.target = target;
+    }
+
     public ImportJobStatus getStatus() {
         return status;
     }
@@ -131,4 +208,132 @@ public class ImportJob {
     public void setFinishedAt(OffsetDateTime finishedAt) {
         this.finishedAt = finishedAt;
     }
+
+    public String getStoredFilePath() {
+        return storedFilePath;
+    }
+
+    public void setStoredFilePath(String storedFilePath) {
+        this.storedFilePath = storedFilePath;
+    }
+
+    public Long getCheckpointOffset() {
+        return checkpointOffset;
+    }
+
+    public void setCheckpointOffset(Long checkpointOffset) {
+        this.checkpointOffset = checkpointOffset;
+    }
+
+    public Integer getCheckpointRow() {
+        return checkpointRow;
+    }
+
+    public void setCheckpointRow(Integer checkpointRow) {
+        this.checkpointRow = checkpointRow;
+    }
+
+    public Integer getCheckpointRecords() {
+        return checkpointRecords;
+    }
+
+    public void setCheckpointRecords(Integer checkpointRecords) {
+        this.checkpointRecords = checkpointRecords;
+    }
+
+    public Integer getSuccessRecords() {
+        return successRecords;
+    }
+
+    public void setSuccessRecords(Integer successRecords) {
+        this.successRecords = successRecords;
+    }
+
+    public Integer getRejectedRecords() {
+        return rejectedRecords;
+    }
+
+    public void setRejectedRecords(Integer rejectedRecords) {
+        this.rejectedRecords = rejectedRecords;
+    }
+
+    public Integer getUpdatedRecords() {
+        return updatedRecords;
+    }
+
+    public void setUpdatedRecords(Integer updatedRecords) {
+        this.updatedRecords = updatedRecords;
+    }
+
+    public Integer getUnchangedRecords() {
+        return unchangedRecords;
+    }
+
+    public void setUnchangedRecords(Integer unchangedRecords) {
+        this.unchangedRecords = unchangedRecords;
+    }
+
+    public boolean isSkipInvalidRows() {
+        return skipInvalidRows;
+    }
+
+    public void setSkipInvalidRows(boolean skipInvalidRows) {
+        this.skipInvalidRows = skipInvalidRows;
+    }
+
+    public String getRejectionFilePath() {
+        return rejectionFilePath;
+    }
+
+    public void setRejectionFilePath(String rejectionFilePath) {
+        this.rejectionFilePath = rejectionFilePath;
+    }
+
+    public Integer getFinalBatchSize() {
+        return finalBatchSize;
+    }
+
+    public void setFinalBatchSize(Integer finalBatchSize) {
+        this.finalBatchSize = finalBatchSize;
+    }
+
+    public String getBatchSizeHistory() {
+        return batchSizeHistory;
+    }
+
+    public void setBatchSizeHistory(String batchSizeHistory) {
+        this.batchSizeHistory = batchSizeHistory;
+    }
+
+    public Integer getTotalChunks() {
+        return totalChunks;
+    }
+
+    public void setTotalChunks(Integer totalChunks) {
+        this.totalChunks = totalChunks;
+    }
+
+    public Integer getCompletedChunks() {
+        return completedChunks;
+    }
+
+    public void setCompletedChunks(Integer completedChunks) {
+        this.completedChunks = completedChunks;
+    }
+
+    public boolean isDistributed() {
+        return distributed;
+    }
+
+    public void setDistributed(boolean distributed) {
+        this.distributed = distributed;
+    }
+
+    public String getOwnerNode() {
+        return ownerNode;
+    }
+
+    public void setOwnerNode(String ownerNode) {
+        this.ownerNode = ownerNode;
+    }
 }
@@ -0,0 +1,6 @@
+package pl.kurs.test3r.models.imports;
+
+public enum ImportTarget {
+    PERSONS,
+    POSITIONS
+}
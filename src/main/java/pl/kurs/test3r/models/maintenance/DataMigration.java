@@ -0,0 +1,37 @@
+package pl.kurs.test3r.models.maintenance;
+
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+
+@Entity
+@Table(name = "data_migrations")
+public class DataMigration {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(nullable = false)
+    private OffsetDateTime appliedAt;
+
+    public DataMigration() {
+    }
+
+    public DataMigration(String name) {
+        this.name = name;
+    }
+
+    @PrePersist
+    void onCreate() {
+        appliedAt = OffsetDateTime.now();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public OffsetDateTime getAppliedAt() {
+        return appliedAt;
+    }
+}
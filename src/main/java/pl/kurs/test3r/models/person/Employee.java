@@ -1,11 +1,14 @@
 package pl.kurs.test3r.models.person;
 
 import jakarta.persistence.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.ColumnDefault;
 import pl.kurs.test3r.models.Identificationable;
 import pl.kurs.test3r.models.position.PositionHistory;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 
@@ -17,6 +20,12 @@ public class Employee  extends Person implements Identificationable {
     private LocalDate startDate;
     private String currentPosition;
     private double currentSalary;
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int positionCount;
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int distinctProfessionCount;
     @OneToMany(mappedBy = "employee", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<PositionHistory> positions = new ArrayList<>();
 
@@ -55,6 +64,40 @@ public class Employee  extends Person implements Identificationable {
         this.currentSalary = currentSalary;
     }
 
+    public int getPositionCount() {
+        return positionCount;
+    }
+
+    public void setPositionCount(int positionCount) {
+        this.positionCount = positionCount;
+    }
+
+    public int getDistinctProfessionCount() {
+        return distinctProfessionCount;
+    }
+
+    public void setDistinctProfessionCount(int distinctProfessionCount) {
+        this.distinctProfessionCount = distinctProfessionCount;
+    }
+
+    public void applyPositionCounters(Collection<PositionHistory> positions) {
+        positionCount = positions.size();
+        distinctProfessionCount = Math.toIntExact(positions.stream()
+                .map(PositionHistory::getPositionName)
+                .filter(name -> name != null && !name.isBlank())
+                .map(String::toLowerCase)
+                .distinct()
+                .count());
+    }
+
+    @PrePersist
+    @PreUpdate
+    void refreshPositionCounters() {
+        if (positions != null && Hibernate.isInitialized(positions)) {
+            applyPositionCounters(positions);
+        }
+    }
+
     public List<PositionHistory> getPositions() {
         return positions;
     }
@@ -11,7 +11,8 @@ import java.util.Objects;
 public class PositionHistory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "positions_seq")
+    @SequenceGenerator(name = "positions_seq", sequenceName = "positions_seq", allocationSize = 50)
     private Long id;
 
     private String positionName;
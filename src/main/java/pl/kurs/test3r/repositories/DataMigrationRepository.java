@@ -0,0 +1,7 @@
+package pl.kurs.test3r.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import pl.kurs.test3r.models.maintenance.DataMigration;
+
+public interface DataMigrationRepository extends JpaRepository<DataMigration, String> {
+}
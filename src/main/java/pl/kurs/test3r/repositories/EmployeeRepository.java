@@ -4,10 +4,13 @@ import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import pl.kurs.test3r.models.person.Employee;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface EmployeeRepository extends JpaRepository<Employee, Long> {
@@ -20,4 +23,17 @@ public interface EmployeeRepository extends JpaRepository<Employee, Long> {
     @Query("select e from Employee e where e.id = :id")
     Optional<Employee> findByIdWithPositions(@Param("id") Long id);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from Employee e where e.id in :ids order by e.id")
+    List<Employee> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    List<Employee> findAllByPeselIn(Collection<String> pesels);
+
+    @Modifying
+    @Query("update Employee e set " +
+            "e.positionCount = (select count(ph) from PositionHistory ph where ph.employee = e), " +
+            "e.distinctProfessionCount = (select count(distinct lower(ph.positionName)) from PositionHistory ph " +
+            "where ph.employee = e and trim(ph.positionName) <> '')")
+    int backfillPositionCounters();
+
 }
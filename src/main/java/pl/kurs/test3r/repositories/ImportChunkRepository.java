@@ -0,0 +1,21 @@
+package pl.kurs.test3r.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import pl.kurs.test3r.models.imports.ImportChunk;
+
+import java.util.List;
+
+public interface ImportChunkRepository extends JpaRepository<ImportChunk, Long> {
+
+    boolean existsByJobIdAndChunkIndex(Long jobId, int chunkIndex);
+
+    long countByJobId(Long jobId);
+
+    @Query("select coalesce(max(c.chunkIndex), -1) from ImportChunk c where c.jobId = :jobId")
+    int findLastChunkIndex(@Param("jobId") Long jobId);
+
+    @Query("select c from ImportChunk c where c.jobId = :jobId and c.firstLine is not null and c.endLine is not null order by c.firstLine")
+    List<ImportChunk> findCommittedRanges(@Param("jobId") Long jobId);
+}
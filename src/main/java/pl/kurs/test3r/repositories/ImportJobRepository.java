@@ -1,7 +1,50 @@
 package pl.kurs.test3r.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import pl.kurs.test3r.models.imports.ImportJob;
+import pl.kurs.test3r.models.imports.ImportJobStatus;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+
+    List<ImportJob> findByStatusInOrderByIdAsc(Collection<ImportJobStatus> statuses);
+
+    @Modifying
+    @Query("update ImportJob j set j.processedRecords = :processed " +
+            "where j.id = :id and (j.processedRecords is null or j.processedRecords < :processed)")
+    int updateProcessedRecords(@Param("id") Long id, @Param("processed") int processed);
+
+    @Modifying
+    @Query("update ImportJob j set j.totalRecords = :total " +
+            "where j.id = :id and j.status = pl.kurs.test3r.models.imports.ImportJobStatus.IN_PROGRESS")
+    int updateTotalRecords(@Param("id") Long id, @Param("total") int total);
+
+    @Modifying
+    @Query("update ImportJob j set j.fileSize = :size where j.id = :id")
+    int updateFileSize(@Param("id") Long id, @Param("size") long size);
+
+    @Modifying
+    @Query("update ImportJob j set j.checkpointOffset = :offset, j.checkpointRow = :row, j.checkpointRecords = :records " +
+            "where j.id = :id and (j.checkpointOffset is null or j.checkpointOffset < :offset)")
+    int advanceCheckpoint(@Param("id") Long id, @Param("offset") long offset, @Param("row") int row, @Param("records") int records);
+
+    @Modifying
+    @Query("update ImportJob j set j.completedChunks = j.completedChunks + 1, j.processedRecords = j.processedRecords + :records " +
+            "where j.id = :id and j.distributed = true and j.status = pl.kurs.test3r.models.imports.ImportJobStatus.IN_PROGRESS")
+    int completeChunk(@Param("id") Long id, @Param("records") int records);
+
+    @Query("select j.completedChunks from ImportJob j where j.id = :id")
+    Integer findCompletedChunks(@Param("id") Long id);
+
+    @Modifying
+    @Query("update ImportJob j set j.status = pl.kurs.test3r.models.imports.ImportJobStatus.COMPLETED, j.finishedAt = :finishedAt, " +
+            "j.totalRecords = j.processedRecords, j.successRecords = j.processedRecords, j.rejectedRecords = 0 " +
+            "where j.id = :id and j.distributed = true and j.status = pl.kurs.test3r.models.imports.ImportJobStatus.IN_PROGRESS")
+    int completeDistributed(@Param("id") Long id, @Param("finishedAt") OffsetDateTime finishedAt);
 }
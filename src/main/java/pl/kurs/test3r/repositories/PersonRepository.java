@@ -2,11 +2,21 @@ package pl.kurs.test3r.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import pl.kurs.test3r.models.person.Person;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 
 public interface PersonRepository extends JpaRepository<Person, Long>, JpaSpecificationExecutor<Person> {
     Optional<Person> findByPesel(String pesel);
+
+    @Query("select p.pesel from Person p where p.pesel in :pesels")
+    Set<String> findExistingPesels(@Param("pesels") Collection<String> pesels);
+
+    List<Person> findAllByPeselIn(Collection<String> pesels);
 }
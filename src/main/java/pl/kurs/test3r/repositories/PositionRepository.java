@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import pl.kurs.test3r.models.position.PositionHistory;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,4 +24,7 @@ public interface PositionRepository extends JpaRepository<PositionHistory, Long>
 
     @Query("select ph from PositionHistory ph where ph.employee.id = :employeeId order by ph.dateFrom, ph.id")
     List<PositionHistory> findAllByEmployeeIdOrderByDateFrom(@Param("employeeId") Long employeeId);
+
+    @Query("select ph from PositionHistory ph where ph.employee.id in :employeeIds")
+    List<PositionHistory> findAllByEmployeeIdIn(@Param("employeeIds") Collection<Long> employeeIds);
 }
@@ -0,0 +1,53 @@
+package pl.kurs.test3r.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.kurs.test3r.models.maintenance.DataMigration;
+import pl.kurs.test3r.repositories.DataMigrationRepository;
+import pl.kurs.test3r.repositories.EmployeeRepository;
+
+@Service
+public class EmployeeCounterBackfill {
+
+    public static final String MIGRATION_NAME = "employee-position-counters";
+
+    private static final Logger log = LoggerFactory.getLogger(EmployeeCounterBackfill.class);
+
+    private final EmployeeRepository employeeRepository;
+    private final DataMigrationRepository dataMigrationRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public EmployeeCounterBackfill(EmployeeRepository employeeRepository, DataMigrationRepository dataMigrationRepository,
+                                   PlatformTransactionManager transactionManager) {
+        this.employeeRepository = employeeRepository;
+        this.dataMigrationRepository = dataMigrationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (dataMigrationRepository.existsById(MIGRATION_NAME)) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                backfill();
+                dataMigrationRepository.save(new DataMigration(MIGRATION_NAME));
+            });
+        } catch (DataAccessException ex) {
+            log.warn("Position counter backfill was not recorded, it may have been applied by another node", ex);
+        }
+    }
+
+    public int backfill() {
+        int updated = employeeRepository.backfillPositionCounters();
+        log.info("Backfilled position counters for {} employees", updated);
+        return updated;
+    }
+}
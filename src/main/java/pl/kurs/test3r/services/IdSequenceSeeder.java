@@ -0,0 +1,55 @@
+package pl.kurs.test3r.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.sequence.SequenceSupport;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+public class IdSequenceSeeder {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceSeeder.class);
+    private static final Map<String, String> TABLES_BY_SEQUENCE = Map.of(
+            "persons_seq", "persons",
+            "positions_seq", "positions");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceSupport sequenceSupport;
+
+    public IdSequenceSeeder(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sequenceSupport = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport();
+    }
+
+    @PostConstruct
+    public void seed() {
+        TABLES_BY_SEQUENCE.forEach(this::seed);
+    }
+
+    private void seed(String sequence, String table) {
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+        if (maxId == null) {
+            return;
+        }
+        long nextId = maxId + 1;
+        if (!sequenceSupport.supportsSequences()) {
+            int updated = jdbcTemplate.update("update " + sequence + " set next_val = ? where next_val < ?", nextId, nextId);
+            if (updated > 0) {
+                log.info("Moved id sequence {} past existing {} ids to {}", sequence, table, nextId);
+            }
+            return;
+        }
+        Long current = jdbcTemplate.queryForObject(sequenceSupport.getSequenceNextValString(sequence), Long.class);
+        if (current != null && current < nextId) {
+            jdbcTemplate.execute("alter sequence " + sequence + " restart with " + nextId);
+            log.info("Moved id sequence {} past existing {} ids to {}", sequence, table, nextId);
+        }
+    }
+}
@@ -1,38 +1,235 @@
 package pl.kurs.test3r.services;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import jakarta.transaction.Transactional;
+import org.hibernate.Session;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.criteria.JpaCriteriaQuery;
+import org.hibernate.query.criteria.JpaSubQuery;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import pl.kurs.test3r.config.SearchProperties;
+import pl.kurs.test3r.dto.ApproximateCountPage;
+import pl.kurs.test3r.dto.KeysetPageDto;
 import pl.kurs.test3r.dto.PersonDto;
 import pl.kurs.test3r.dto.PersonSearchCriteria;
+import pl.kurs.test3r.dto.SearchCountMode;
+import pl.kurs.test3r.exceptions.InvalidKeysetPaginationException;
 import pl.kurs.test3r.models.person.Person;
 import pl.kurs.test3r.repositories.PersonRepository;
 import pl.kurs.test3r.services.person.PersonTypeModule;
 import pl.kurs.test3r.services.person.PersonTypeRegistry;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Service
 @Transactional(Transactional.TxType.SUPPORTS)
 public class PersonQueryService {
 
+    private static final int MAX_KEYSET_PAGE_SIZE = 1000;
+    private static final Map<String, Function<Person, Object>> KEYSET_ATTRIBUTES = keysetAttributes();
+
     private final PersonRepository personRepository;
     private final PersonTypeRegistry personTypeRegistry;
+    private final ObjectMapper objectMapper;
+    private final SearchProperties searchProperties;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
-    public PersonQueryService(PersonRepository personRepository, PersonTypeRegistry personTypeRegistry) {
+    public PersonQueryService(PersonRepository personRepository, PersonTypeRegistry personTypeRegistry, ObjectMapper objectMapper,
+                              SearchProperties searchProperties) {
         this.personRepository = personRepository;
         this.personTypeRegistry = personTypeRegistry;
+        this.objectMapper = objectMapper;
+        this.searchProperties = searchProperties;
     }
 
     public Page<PersonDto> search(PersonSearchCriteria criteria, Pageable pageable) {
+        Page<Person> persons = personRepository.findAll(buildSpecification(criteria), pageable);
+
+        return persons.map(person -> personTypeRegistry.getByEntity(person).mapPerson(person));
+    }
+
+    public Slice<PersonDto> search(PersonSearchCriteria criteria, Pageable pageable, SearchCountMode countMode) {
+        if (countMode == SearchCountMode.EXACT || pageable.isUnpaged()) {
+            return search(criteria, pageable);
+        }
+        Specification<Person> specification = buildSpecification(criteria);
+        List<Person> persons = findPage(specification, pageable, pageable.getPageSize() + 1);
+        boolean hasNext = persons.size() > pageable.getPageSize();
+        List<PersonDto> content = (hasNext ? persons.subList(0, pageable.getPageSize()) : persons).stream()
+                .map(person -> personTypeRegistry.getByEntity(person).mapPerson(person))
+                .toList();
+        if (countMode == SearchCountMode.NONE) {
+            return new SliceImpl<>(content, pageable, hasNext);
+        }
+        if (!hasNext) {
+            return new ApproximateCountPage<>(content, pageable, pageable.getOffset() + content.size(), false);
+        }
+        int limit = Math.max(1, searchProperties.getApproximateCountLimit());
+        long counted = countUpTo(specification, limit + 1);
+        if (counted <= limit) {
+            return new ApproximateCountPage<>(content, pageable, counted, false);
+        }
+        return new ApproximateCountPage<>(content, pageable, Math.max(limit, pageable.getOffset() + content.size() + 1), true);
+    }
+
+    public KeysetPageDto<PersonDto> searchKeyset(PersonSearchCriteria criteria, Sort sort, int size, String cursor) {
+        if (size < 1 || size > MAX_KEYSET_PAGE_SIZE) {
+            throw new InvalidKeysetPaginationException("Page size must be between 1 and " + MAX_KEYSET_PAGE_SIZE);
+        }
+        List<Sort.Order> orders = keysetOrders(sort);
+        String signature = orders.stream().map(order -> order.getProperty() + ":" + order.getDirection()).collect(Collectors.joining(","));
+        Specification<Person> specification = buildSpecification(criteria);
+        if (cursor != null && !cursor.isBlank()) {
+            specification = combine(specification, after(orders, decodeCursor(cursor, signature, orders.size())));
+        }
+
+        Sort keysetSort = Sort.by(orders);
+        List<Person> persons = personRepository.findBy(Specification.where(specification),
+                query -> query.sortBy(keysetSort).limit(size + 1).all());
+        boolean hasNext = persons.size() > size;
+        List<Person> content = hasNext ? persons.subList(0, size) : persons;
+        String nextCursor = hasNext ? encodeCursor(signature, orders, content.get(content.size() - 1)) : null;
+        return new KeysetPageDto<>(content.stream().map(person -> personTypeRegistry.getByEntity(person).mapPerson(person)).toList(),
+                size, hasNext, nextCursor);
+    }
+
+    private Specification<Person> buildSpecification(PersonSearchCriteria criteria) {
         Specification<Person> specification = buildBaseSpecification(criteria);
         for (PersonTypeModule<?, ?, ?> module : personTypeRegistry.getModules()) {
             specification = combine(specification, module.buildSpecification(criteria));
         }
-        Page<Person> persons = personRepository.findAll(specification, pageable);
+        return specification;
+    }
 
-        return persons.map(person -> personTypeRegistry.getByEntity(person).mapPerson(person));
+    private List<Person> findPage(Specification<Person> specification, Pageable pageable, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Person> query = cb.createQuery(Person.class);
+        Root<Person> root = query.from(Person.class);
+        query.select(root);
+        Predicate predicate = specification == null ? null : specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+        return entityManager.createQuery(query)
+                .setFirstResult(Math.toIntExact(pageable.getOffset()))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private long countUpTo(Specification<Person> specification, int limit) {
+        HibernateCriteriaBuilder cb = entityManager.unwrap(Session.class).getCriteriaBuilder();
+        JpaCriteriaQuery<Long> query = cb.createQuery(Long.class);
+        JpaSubQuery<Long> ids = query.subquery(Long.class);
+        Root<Person> root = ids.from(Person.class);
+        Path<Long> id = root.get("id");
+        id.alias("id");
+        ids.select(id);
+        Predicate predicate = specification == null ? null : specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            ids.where(predicate);
+        }
+        ids.fetch(limit);
+        query.from(ids);
+        query.select(cb.count());
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private List<Sort.Order> keysetOrders(Sort sort) {
+        List<Sort.Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            if (!KEYSET_ATTRIBUTES.containsKey(order.getProperty())) {
+                throw new InvalidKeysetPaginationException("Keyset pagination cannot sort by '" + order.getProperty()
+                        + "'. Supported properties: " + String.join(", ", KEYSET_ATTRIBUTES.keySet()));
+            }
+            orders.add(new Sort.Order(order.getDirection(), order.getProperty()));
+            if (order.getProperty().equals("id")) {
+                return orders;
+            }
+        }
+        orders.add(Sort.Order.asc("id"));
+        return orders;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Specification<Person> after(List<Sort.Order> orders, List<Object> values) {
+        return (root, query, cb) -> {
+            List<Predicate> alternatives = new ArrayList<>();
+            List<Predicate> equalPrefix = new ArrayList<>();
+            for (int i = 0; i < orders.size(); i++) {
+                Sort.Order order = orders.get(i);
+                Path<Comparable> path = root.get(order.getProperty());
+                Comparable value = (Comparable) objectMapper.convertValue(values.get(i), path.getJavaType());
+                List<Predicate> alternative = new ArrayList<>(equalPrefix);
+                alternative.add(order.isAscending() ? cb.greaterThan(path, value) : cb.lessThan(path, value));
+                alternatives.add(cb.and(alternative.toArray(Predicate[]::new)));
+                equalPrefix.add(cb.equal(path, value));
+            }
+            return cb.or(alternatives.toArray(Predicate[]::new));
+        };
+    }
+
+    private String encodeCursor(String signature, List<Sort.Order> orders, Person last) {
+        List<Object> values = orders.stream().map(order -> KEYSET_ATTRIBUTES.get(order.getProperty()).apply(last)).toList();
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(new KeysetCursor(signature, values));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not encode keyset cursor", ex);
+        }
+    }
+
+    private List<Object> decodeCursor(String cursor, String signature, int keys) {
+        KeysetCursor decoded;
+        try {
+            decoded = objectMapper.readValue(Base64.getUrlDecoder().decode(cursor), KeysetCursor.class);
+        } catch (IllegalArgumentException | IOException ex) {
+            throw new InvalidKeysetPaginationException("Malformed pagination cursor", ex);
+        }
+        if (decoded == null || !signature.equals(decoded.sort()) || decoded.values() == null || decoded.values().size() != keys
+                || decoded.values().contains(null)) {
+            throw new InvalidKeysetPaginationException("Pagination cursor does not match the requested sort");
+        }
+        return decoded.values();
+    }
+
+    private static Map<String, Function<Person, Object>> keysetAttributes() {
+        Map<String, Function<Person, Object>> attributes = new LinkedHashMap<>();
+        attributes.put("id", Person::getId);
+        attributes.put("firstName", Person::getFirstName);
+        attributes.put("lastName", Person::getLastName);
+        attributes.put("pesel", Person::getPesel);
+        attributes.put("email", Person::getEmail);
+        attributes.put("height", Person::getHeight);
+        attributes.put("weight", Person::getWeight);
+        return attributes;
     }
 
     private Specification<Person> buildBaseSpecification(PersonSearchCriteria criteria) {
@@ -89,5 +286,6 @@ public class PersonQueryService {
         };
     }
 
-
-}
\ No newline at end of file
+    private record KeysetCursor(String sort, List<Object> values) {
+    }
+}
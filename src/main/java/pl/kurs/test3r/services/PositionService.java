@@ -13,6 +13,7 @@ import pl.kurs.test3r.repositories.EmployeeRepository;
 import pl.kurs.test3r.repositories.PositionRepository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
@@ -129,8 +130,9 @@ public class PositionService {
         return employee.getPositions();
     }
 
-    private void refreshEmployeeCurrentState(Employee employee) {
-        PositionHistory latest = employee.getPositions().stream()
+    public void applyCurrentState(Employee employee, Collection<PositionHistory> positions) {
+        employee.applyPositionCounters(positions);
+        PositionHistory latest = positions.stream()
                 .max(Comparator.comparing(PositionHistory::getDateFrom, Comparator.nullsLast(Comparator.naturalOrder()))
                         .thenComparing(PositionHistory::getId, Comparator.nullsLast(Comparator.naturalOrder())))
                 .orElse(null);
@@ -142,4 +144,8 @@ public class PositionService {
         employee.setCurrentPosition(latest.getPositionName());
         employee.setCurrentSalary(latest.getSalary());
     }
+
+    private void refreshEmployeeCurrentState(Employee employee) {
+        applyCurrentState(employee, employee.getPositions());
+    }
 }
@@ -1,11 +1,11 @@
 package pl.kurs.test3r.services;
 
 import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
 import pl.kurs.test3r.commands.CreateRetireeCommand;
 import pl.kurs.test3r.commands.UpdateRetireeCommand;
 import pl.kurs.test3r.dto.RetireeDto;
+import pl.kurs.test3r.mappers.RetireeDtoMapper;
 import pl.kurs.test3r.models.person.Retiree;
 import pl.kurs.test3r.services.crud.RetireeCrudService;
 
@@ -14,24 +14,24 @@ import pl.kurs.test3r.services.crud.RetireeCrudService;
 public class RetireeService {
 
     private final RetireeCrudService retireeCrudService;
-    private final ModelMapper mapper;
+    private final RetireeDtoMapper mapper;
 
-    public RetireeService(RetireeCrudService retireeCrudService, ModelMapper mapper) {
+    public RetireeService(RetireeCrudService retireeCrudService, RetireeDtoMapper mapper) {
         this.retireeCrudService = retireeCrudService;
         this.mapper = mapper;
     }
 
     public RetireeDto create(CreateRetireeCommand createRetireeCommand){
-        Retiree retiree = mapper.map(createRetireeCommand, Retiree.class);
+        Retiree retiree = mapper.toEntity(createRetireeCommand);
         Retiree savedRetiree = retireeCrudService.add(retiree);
-        return mapper.map(savedRetiree, RetireeDto.class);
+        return mapper.map(savedRetiree);
     }
     public RetireeDto update(UpdateRetireeCommand updateRetireeCommand){
-        Retiree retiree = mapper.map(updateRetireeCommand, Retiree.class);
+        Retiree retiree = mapper.toEntity(updateRetireeCommand);
         retiree.setId(updateRetireeCommand.getId());
         retiree.setVersion(updateRetireeCommand.getVersion());
         Retiree updatedRetiree = retireeCrudService.edit(retiree);
-        return mapper.map(updatedRetiree, RetireeDto.class);
+        return mapper.map(updatedRetiree);
     }
 
 
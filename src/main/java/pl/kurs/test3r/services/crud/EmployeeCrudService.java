@@ -9,4 +9,9 @@ public class EmployeeCrudService extends GenericCrudService<Employee, Long, Empl
     public EmployeeCrudService(EmployeeRepository repository) {
         super(repository);
     }
+
+    @Override
+    protected String[] getEditIgnoredProperties() {
+        return new String[]{"positions", "positionCount", "distinctProfessionCount"};
+    }
 }
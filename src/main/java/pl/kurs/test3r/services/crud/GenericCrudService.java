@@ -29,7 +29,7 @@ public abstract class GenericCrudService<T extends Identificationable, ID extend
     public T add(T entity) {
         if (entity.getId() != null)
             throw new IllegalEntityStateException("ID must be null before persist!");
-        return repository.save(entity);
+        return repository.saveAndFlush(entity);
     }
 
     @Override
@@ -50,7 +50,8 @@ public abstract class GenericCrudService<T extends Identificationable, ID extend
             }
         }
 
-        String[] ignoreProperties = Stream.concat(Stream.of("id", "version"), Arrays.stream(getNullPropertyNames(entity)))
+        String[] ignoreProperties = Stream.of(Stream.of("id", "version"), Arrays.stream(getEditIgnoredProperties()), Arrays.stream(getNullPropertyNames(entity)))
+                .flatMap(properties -> properties)
                 .distinct()
                 .toArray(String[]::new);
         BeanUtils.copyProperties(entity, managedEntity, ignoreProperties);
@@ -72,6 +73,10 @@ public abstract class GenericCrudService<T extends Identificationable, ID extend
         return repository.findAll();
     }
 
+    protected String[] getEditIgnoredProperties() {
+        return new String[0];
+    }
+
     private String[] getNullPropertyNames(T source) {
         BeanWrapper src = new BeanWrapperImpl(source);
         return Arrays.stream(src.getPropertyDescriptors())
@@ -0,0 +1,93 @@
+package pl.kurs.test3r.services.imports;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.stream.Collectors;
+
+public class AdaptiveBatchSizer {
+
+    private static final int WINDOW_BATCHES = 4;
+    private static final int MAX_HISTORY = 200;
+    private static final double GROWTH_FACTOR = 1.25;
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final boolean adaptive;
+    private final int minSize;
+    private final int maxSize;
+    private final double spikeFactor;
+    private final Deque<Integer> history = new ArrayDeque<>();
+
+    private int size;
+    private int direction = 1;
+    private double lastThroughput;
+    private double latencyEwma;
+    private long windowRows;
+    private long windowNanos;
+    private int windowBatches;
+
+    public AdaptiveBatchSizer(int initialSize, int minSize, int maxSize, double spikeFactor, boolean adaptive) {
+        this.minSize = Math.max(1, Math.min(minSize, maxSize));
+        this.maxSize = Math.max(this.minSize, maxSize);
+        this.spikeFactor = spikeFactor;
+        this.adaptive = adaptive;
+        this.size = adaptive ? clamp(initialSize) : Math.max(1, initialSize);
+        history.add(size);
+    }
+
+    public synchronized int currentSize() {
+        return size;
+    }
+
+    public synchronized void record(int rows, long nanos) {
+        if (!adaptive || rows < Math.max(1, size / 2) || nanos <= 0) {
+            return;
+        }
+        double latencyPerRow = (double) nanos / rows;
+        if (latencyEwma > 0 && latencyPerRow > spikeFactor * latencyEwma) {
+            latencyEwma = LATENCY_SMOOTHING * latencyPerRow + (1 - LATENCY_SMOOTHING) * latencyEwma;
+            direction = -1;
+            lastThroughput = 0;
+            resize(size / 2);
+            return;
+        }
+        latencyEwma = latencyEwma == 0 ? latencyPerRow : LATENCY_SMOOTHING * latencyPerRow + (1 - LATENCY_SMOOTHING) * latencyEwma;
+
+        windowRows += rows;
+        windowNanos += nanos;
+        if (++windowBatches < WINDOW_BATCHES) {
+            return;
+        }
+        double throughput = windowRows * 1_000_000_000.0 / windowNanos;
+        if (lastThroughput > 0 && throughput < lastThroughput) {
+            direction = -direction;
+        }
+        lastThroughput = throughput;
+        resize(direction > 0 ? (int) Math.ceil(size * GROWTH_FACTOR) : (int) Math.floor(size / GROWTH_FACTOR));
+    }
+
+    public synchronized String history() {
+        return history.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    private void resize(int requested) {
+        windowRows = 0;
+        windowNanos = 0;
+        windowBatches = 0;
+        int resized = clamp(requested);
+        if (resized == size) {
+            if (resized == minSize || resized == maxSize) {
+                direction = -direction;
+            }
+            return;
+        }
+        size = resized;
+        if (history.size() == MAX_HISTORY) {
+            history.removeFirst();
+        }
+        history.addLast(size);
+    }
+
+    private int clamp(int requested) {
+        return Math.max(minSize, Math.min(maxSize, requested));
+    }
+}
@@ -0,0 +1,82 @@
+package pl.kurs.test3r.services.imports;
+
+import pl.kurs.test3r.models.imports.ImportChunk;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class CommittedRows {
+
+    public static final CommittedRows NONE = new CommittedRows(new int[0], new int[0], 0);
+
+    private final int[] starts;
+    private final int[] ends;
+    private final int records;
+
+    private CommittedRows(int[] starts, int[] ends, int records) {
+        this.starts = starts;
+        this.ends = ends;
+        this.records = records;
+    }
+
+    public static CommittedRows of(List<ImportChunk> chunks) {
+        int[] starts = new int[chunks.size()];
+        int[] ends = new int[chunks.size()];
+        int size = 0;
+        int records = 0;
+        for (ImportChunk chunk : chunks) {
+            records += chunk.getRecords();
+            int start = chunk.getFirstLine();
+            int end = chunk.getEndLine();
+            if (end <= start) {
+                continue;
+            }
+            if (size > 0 && start <= ends[size - 1]) {
+                ends[size - 1] = Math.max(ends[size - 1], end);
+                continue;
+            }
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
+        return new CommittedRows(Arrays.copyOf(starts, size), Arrays.copyOf(ends, size), records);
+    }
+
+    public CommittedRows andBefore(int line) {
+        if (line <= 1) {
+            return this;
+        }
+        int from = 0;
+        while (from < starts.length && starts[from] <= line) {
+            from++;
+        }
+        int end = line;
+        if (from > 0) {
+            end = Math.max(end, ends[from - 1]);
+        }
+        int[] mergedStarts = new int[starts.length - from + 1];
+        int[] mergedEnds = new int[mergedStarts.length];
+        mergedStarts[0] = 1;
+        mergedEnds[0] = end;
+        System.arraycopy(starts, from, mergedStarts, 1, starts.length - from);
+        System.arraycopy(ends, from, mergedEnds, 1, ends.length - from);
+        return new CommittedRows(mergedStarts, mergedEnds, records);
+    }
+
+    public boolean contains(int line) {
+        int index = Arrays.binarySearch(starts, line);
+        if (index >= 0) {
+            return true;
+        }
+        int before = -index - 2;
+        return before >= 0 && line < ends[before];
+    }
+
+    public boolean isEmpty() {
+        return starts.length == 0;
+    }
+
+    public int records() {
+        return records;
+    }
+}
@@ -0,0 +1,89 @@
+package pl.kurs.test3r.services.imports;
+
+import pl.kurs.test3r.exceptions.ImportProcessingException;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+public class CsvHeader {
+
+    private static final String[] REQUIRED_COLUMNS = {"type", "firstname", "lastname", "pesel", "height", "weight", "email"};
+
+    private final String[] columns;
+    private final Map<String, Integer> indexByColumn;
+    private final int columnCount;
+    private final int typeIndex;
+    private final int firstNameIndex;
+    private final int lastNameIndex;
+    private final int peselIndex;
+    private final int heightIndex;
+    private final int weightIndex;
+    private final int emailIndex;
+
+    public CsvHeader(String[] columns) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            index.put(columns[i].trim().toLowerCase(Locale.ROOT), i);
+        }
+        this.columns = columns.clone();
+        this.indexByColumn = Map.copyOf(index);
+        this.columnCount = columns.length;
+        this.typeIndex = indexOf("type");
+        this.firstNameIndex = indexOf("firstname");
+        this.lastNameIndex = indexOf("lastname");
+        this.peselIndex = indexOf("pesel");
+        this.heightIndex = indexOf("height");
+        this.weightIndex = indexOf("weight");
+        this.emailIndex = indexOf("email");
+    }
+
+    public void validateRequiredColumns() {
+        for (String column : REQUIRED_COLUMNS) {
+            if (!indexByColumn.containsKey(column)) {
+                throw new ImportProcessingException("Missing required column: " + column);
+            }
+        }
+    }
+
+    public int indexOf(String column) {
+        Integer index = indexByColumn.get(column);
+        return index == null ? -1 : index;
+    }
+
+    public int columnCount() {
+        return columnCount;
+    }
+
+    public String[] columns() {
+        return columns.clone();
+    }
+
+    int typeIndex() {
+        return typeIndex;
+    }
+
+    int firstNameIndex() {
+        return firstNameIndex;
+    }
+
+    int lastNameIndex() {
+        return lastNameIndex;
+    }
+
+    int peselIndex() {
+        return peselIndex;
+    }
+
+    int heightIndex() {
+        return heightIndex;
+    }
+
+    int weightIndex() {
+        return weightIndex;
+    }
+
+    int emailIndex() {
+        return emailIndex;
+    }
+}
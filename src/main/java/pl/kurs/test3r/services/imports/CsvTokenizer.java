@@ -0,0 +1,276 @@
+package pl.kurs.test3r.services.imports;
+
+import pl.kurs.test3r.exceptions.ImportProcessingException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+public class CsvTokenizer implements ImportRecordReader {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final char QUOTE = '"';
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+    private static final char AUTO_DETECT = 0;
+
+    private final Reader reader;
+    private char delimiter;
+    private final StringBuilder quotedField = new StringBuilder(64);
+
+    private char[] buffer;
+    private int position;
+    private int limit;
+    private boolean eof;
+    private boolean started;
+
+    private String[] fields = new String[16];
+    private int fieldCount;
+    private int line;
+    private int recordLine;
+
+    public CsvTokenizer(Reader reader) {
+        this(reader, AUTO_DETECT, 1, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvTokenizer(Reader reader, char delimiter) {
+        this(reader, delimiter, 1, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvTokenizer(Reader reader, char delimiter, int firstLine) {
+        this(reader, delimiter, firstLine, DEFAULT_BUFFER_SIZE);
+    }
+
+    CsvTokenizer(Reader reader, char delimiter, int firstLine, int bufferSize) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+        this.line = firstLine;
+        this.buffer = new char[Math.max(16, bufferSize)];
+    }
+
+    @Override
+    public boolean nextRecord() throws IOException {
+        fieldCount = 0;
+        if (position == limit && !fill(position)) {
+            return false;
+        }
+        if (!started) {
+            started = true;
+            if (buffer[position] == BYTE_ORDER_MARK) {
+                position++;
+            }
+            if (delimiter == AUTO_DETECT) {
+                delimiter = detectDelimiter();
+            }
+        }
+        recordLine = line;
+        boolean endOfRecord;
+        do {
+            endOfRecord = readField();
+        } while (!endOfRecord);
+        return true;
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    @Override
+    public String field(int index) {
+        return index < fieldCount ? fields[index] : "";
+    }
+
+    @Override
+    public String[] fields(int expectedLength) {
+        String[] copy = new String[Math.max(expectedLength, fieldCount)];
+        System.arraycopy(fields, 0, copy, 0, fieldCount);
+        if (fieldCount < copy.length) {
+            Arrays.fill(copy, fieldCount, copy.length, "");
+        }
+        return copy;
+    }
+
+    @Override
+    public boolean isBlankRecord() {
+        return fieldCount == 1 && fields[0].isEmpty();
+    }
+
+    @Override
+    public int recordLine() {
+        return recordLine;
+    }
+
+    public char delimiter() {
+        return delimiter;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private char detectDelimiter() throws IOException {
+        int index = position;
+        while (true) {
+            if (index == limit) {
+                int offset = index - position;
+                if (!fill(position)) {
+                    return ',';
+                }
+                index = position + offset;
+            }
+            char c = buffer[index];
+            if (c == '\n' || c == '\r') {
+                return ',';
+            }
+            if (c == ';') {
+                return ';';
+            }
+            index++;
+        }
+    }
+
+    private boolean readField() throws IOException {
+        skipLeadingWhitespace();
+        if (position < limit && buffer[position] == QUOTE) {
+            position++;
+            addField(readQuoted());
+            return skipToFieldEnd();
+        }
+        return readUnquoted();
+    }
+
+    private void skipLeadingWhitespace() throws IOException {
+        while (true) {
+            if (position == limit && !fill(position)) {
+                return;
+            }
+            char c = buffer[position];
+            if (c == delimiter || c == '\n' || c == '\r' || c > ' ') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private boolean readUnquoted() throws IOException {
+        int start = position;
+        while (true) {
+            if (position == limit) {
+                int offset = position - start;
+                if (!fill(start)) {
+                    addField(slice(position - offset, position));
+                    return true;
+                }
+                start = 0;
+            }
+            char c = buffer[position];
+            if (c == delimiter) {
+                addField(slice(start, position));
+                position++;
+                return false;
+            }
+            if (c == '\n' || c == '\r') {
+                addField(slice(start, position));
+                consumeLineBreak();
+                return true;
+            }
+            position++;
+        }
+    }
+
+    private String readQuoted() throws IOException {
+        quotedField.setLength(0);
+        while (true) {
+            if (position == limit && !fill(position)) {
+                throw new ImportProcessingException("Unterminated quoted field starting at row " + recordLine);
+            }
+            int runStart = position;
+            while (position < limit && buffer[position] != QUOTE) {
+                if (buffer[position] == '\n') {
+                    line++;
+                }
+                position++;
+            }
+            quotedField.append(buffer, runStart, position - runStart);
+            if (position == limit) {
+                continue;
+            }
+            position++;
+            if (position == limit && !fill(position)) {
+                return quotedField.toString();
+            }
+            if (buffer[position] != QUOTE) {
+                return quotedField.toString();
+            }
+            quotedField.append(QUOTE);
+            position++;
+        }
+    }
+
+    private boolean skipToFieldEnd() throws IOException {
+        while (true) {
+            if (position == limit && !fill(position)) {
+                return true;
+            }
+            char c = buffer[position];
+            if (c == delimiter) {
+                position++;
+                return false;
+            }
+            if (c == '\n' || c == '\r') {
+                consumeLineBreak();
+                return true;
+            }
+            if (c > ' ') {
+                throw new ImportProcessingException("Unexpected character after closing quote at row " + recordLine);
+            }
+            position++;
+        }
+    }
+
+    private void consumeLineBreak() throws IOException {
+        char c = buffer[position++];
+        line++;
+        if (c == '\r' && (position < limit || fill(position)) && buffer[position] == '\n') {
+            position++;
+        }
+    }
+
+    private String slice(int start, int end) {
+        while (start < end && buffer[start] <= ' ') {
+            start++;
+        }
+        while (end > start && buffer[end - 1] <= ' ') {
+            end--;
+        }
+        return start == end ? "" : new String(buffer, start, end - start);
+    }
+
+    private void addField(String value) {
+        if (fieldCount == fields.length) {
+            fields = Arrays.copyOf(fields, fields.length * 2);
+        }
+        fields[fieldCount++] = value;
+    }
+
+    private boolean fill(int keepFrom) throws IOException {
+        if (eof) {
+            return false;
+        }
+        int retained = limit - keepFrom;
+        if (keepFrom > 0) {
+            System.arraycopy(buffer, keepFrom, buffer, 0, retained);
+        } else if (retained == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        position -= keepFrom;
+        limit = retained;
+        int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+}
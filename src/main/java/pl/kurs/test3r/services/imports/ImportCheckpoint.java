@@ -0,0 +1,4 @@
+package pl.kurs.test3r.services.imports;
+
+public record ImportCheckpoint(long offset, int row, int records) {
+}
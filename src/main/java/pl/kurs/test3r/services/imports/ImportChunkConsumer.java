@@ -0,0 +1,79 @@
+package pl.kurs.test3r.services.imports;
+
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import pl.kurs.test3r.config.ImportProperties;
+
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class ImportChunkConsumer {
+
+    private final PersonCsvImportService personCsvImportService;
+    private final ImportProperties properties;
+
+    public ImportChunkConsumer(PersonCsvImportService personCsvImportService, ImportProperties properties) {
+        this.personCsvImportService = personCsvImportService;
+        this.properties = properties;
+    }
+
+    @RabbitListener(queues = "${app.import.distributed.queue}",
+            autoStartup = "${app.import.distributed.enabled}",
+            concurrency = "${app.import.distributed.consumers}")
+    public void onChunk(ImportChunkMessage message, Message delivery) {
+        onChunk(message, attemptOf(delivery.getMessageProperties().getXDeathHeader()));
+    }
+
+    public void onChunk(ImportChunkMessage message) {
+        onChunk(message, 1);
+    }
+
+    private void onChunk(ImportChunkMessage message, int attempt) {
+        try {
+            personCsvImportService.importChunk(message);
+        } catch (RuntimeException ex) {
+            if (isTransient(ex) && attempt < properties.getDistributed().getMaxChunkAttempts()) {
+                throw new AmqpRejectAndDontRequeueException("Import chunk " + message.chunkIndex() + " of job "
+                        + message.jobId() + " failed on attempt " + attempt + ", retrying after delay", ex);
+            }
+            personCsvImportService.failChunk(message, ex);
+        }
+    }
+
+    private int attemptOf(List<Map<String, ?>> deaths) {
+        if (deaths == null) {
+            return 1;
+        }
+        for (Map<String, ?> death : deaths) {
+            if (properties.getDistributed().getQueue().equals(death.get("queue"))
+                    && "rejected".equals(death.get("reason"))
+                    && death.get("count") instanceof Number count) {
+                return count.intValue() + 1;
+            }
+        }
+        return 1;
+    }
+
+    private static boolean isTransient(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
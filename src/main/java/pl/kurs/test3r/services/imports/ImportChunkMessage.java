@@ -0,0 +1,11 @@
+package pl.kurs.test3r.services.imports;
+
+public record ImportChunkMessage(Long jobId,
+                                 int chunkIndex,
+                                 int totalChunks,
+                                 String[] columns,
+                                 char delimiter,
+                                 int firstLine,
+                                 int endLine,
+                                 byte[] payload) {
+}
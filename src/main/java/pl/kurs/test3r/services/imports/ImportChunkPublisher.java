@@ -0,0 +1,21 @@
+package pl.kurs.test3r.services.imports;
+
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+import pl.kurs.test3r.config.ImportProperties;
+
+@Component
+public class ImportChunkPublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final ImportProperties properties;
+
+    public ImportChunkPublisher(RabbitTemplate rabbitTemplate, ImportProperties properties) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.properties = properties;
+    }
+
+    public void publish(ImportChunkMessage message) {
+        rabbitTemplate.convertAndSend("", properties.getDistributed().getQueue(), message);
+    }
+}
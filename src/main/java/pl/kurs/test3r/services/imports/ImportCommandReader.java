@@ -0,0 +1,62 @@
+package pl.kurs.test3r.services.imports;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import pl.kurs.test3r.exceptions.ImportProcessingException;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Set;
+
+public class ImportCommandReader<T> {
+
+    private final ObjectReader reader;
+    private final Validator validator;
+
+    public ImportCommandReader(ObjectMapper objectMapper, Validator validator, Class<T> type) {
+        this.reader = objectMapper.readerFor(type);
+        this.validator = validator;
+    }
+
+    public T read(String json, int lineNumber) {
+        T command;
+        try (JsonParser parser = reader.createParser(json)) {
+            command = reader.readValue(parser);
+            if (command == null) {
+                throw new ImportProcessingException("Expected a JSON object at line " + lineNumber);
+            }
+            if (parser.nextToken() != null) {
+                throw new ImportProcessingException("Unexpected content after JSON object at line " + lineNumber);
+            }
+        } catch (JsonProcessingException ex) {
+            throw new ImportProcessingException("Invalid JSON at line " + lineNumber + ": " + ex.getOriginalMessage());
+        } catch (IOException ex) {
+            throw new ImportProcessingException("Failed to read JSON at line " + lineNumber, ex);
+        }
+        return validate(command, "line " + lineNumber);
+    }
+
+    public T readLenient(String json) {
+        try {
+            return reader.readValue(json);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    public T validate(T command, String location) {
+        Set<ConstraintViolation<T>> violations = validator.validate(command);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<T> violation = violations.stream()
+                    .min(Comparator.comparing(candidate -> candidate.getPropertyPath().toString()))
+                    .orElseThrow();
+            throw new ImportProcessingException("Invalid value for field '" + violation.getPropertyPath() + "' at "
+                    + location + ": " + violation.getMessage());
+        }
+        return command;
+    }
+}
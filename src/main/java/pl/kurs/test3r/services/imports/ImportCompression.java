@@ -0,0 +1,88 @@
+package pl.kurs.test3r.services.imports;
+
+import com.github.luben.zstd.ZstdInputStream;
+import pl.kurs.test3r.exceptions.ImportProcessingException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+public enum ImportCompression {
+    NONE("", new byte[0]),
+    GZIP(".gz", new byte[]{0x1F, (byte) 0x8B}),
+    ZSTD(".zst", new byte[]{0x28, (byte) 0xB5, 0x2F, (byte) 0xFD});
+
+    private static final int MAGIC_LENGTH = 4;
+
+    private final String fileSuffix;
+    private final byte[] magic;
+
+    ImportCompression(String fileSuffix, byte[] magic) {
+        this.fileSuffix = fileSuffix;
+        this.magic = magic;
+    }
+
+    public String fileSuffix() {
+        return fileSuffix;
+    }
+
+    public InputStream decompress(InputStream compressed) throws IOException {
+        return switch (this) {
+            case NONE -> compressed;
+            case GZIP -> new GZIPInputStream(compressed, 64 * 1024);
+            case ZSTD -> new ZstdInputStream(compressed);
+        };
+    }
+
+    public static ImportCompression detect(Path file) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return detect(inputStream.readNBytes(MAGIC_LENGTH));
+        }
+    }
+
+    public static ImportCompression detect(byte[] head) {
+        for (ImportCompression compression : values()) {
+            if (compression.magic.length > 0 && startsWith(head, compression.magic)) {
+                return compression;
+            }
+        }
+        return NONE;
+    }
+
+    public static ImportCompression detect(byte[] head, String contentType, String fileName) {
+        ImportCompression detected = detect(head);
+        ImportCompression declared = declared(contentType, fileName);
+        if (detected == NONE && declared != NONE) {
+            throw new ImportProcessingException("Uploaded file is declared as " + declared.name().toLowerCase(Locale.ROOT)
+                    + " but is not " + declared.name().toLowerCase(Locale.ROOT) + "-compressed");
+        }
+        return detected;
+    }
+
+    private static ImportCompression declared(String contentType, String fileName) {
+        String type = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+        String name = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+        if (type.contains("gzip") || name.endsWith(".gz")) {
+            return GZIP;
+        }
+        if (type.contains("zstd") || name.endsWith(".zst")) {
+            return ZSTD;
+        }
+        return NONE;
+    }
+
+    private static boolean startsWith(byte[] head, byte[] prefix) {
+        if (head.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (head[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
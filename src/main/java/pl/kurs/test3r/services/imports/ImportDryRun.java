@@ -0,0 +1,138 @@
+package pl.kurs.test3r.services.imports;
+
+import pl.kurs.test3r.exceptions.ImportProcessingException;
+import pl.kurs.test3r.models.person.Person;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+public class ImportDryRun {
+
+    private final PersonImportPipeline.RowParser rowParser;
+    private final Function<Person, String> typeOf;
+    private final int maxErrors;
+
+    public ImportDryRun(PersonImportPipeline.RowParser rowParser, Function<Person, String> typeOf, int maxErrors) {
+        this.rowParser = rowParser;
+        this.typeOf = typeOf;
+        this.maxErrors = Math.max(0, maxErrors);
+    }
+
+    public Result run(ImportRecordFile file, int columnCount, int parallelism) {
+        RangeResult[] results = new RangeResult[file.ranges().size()];
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            pool.invoke(new ValidateTask(file, columnCount, results, 0, results.length));
+        } catch (UncheckedIOException ex) {
+            throw new ImportProcessingException("Failed to read import file", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return merge(results);
+    }
+
+    public Result run(ImportRecordReader reader, int columnCount) {
+        try {
+            return merge(new RangeResult[]{validate(reader, columnCount)});
+        } catch (IOException ex) {
+            throw new ImportProcessingException("Failed to read import file", ex);
+        }
+    }
+
+    private Result merge(RangeResult[] results) {
+        int total = 0;
+        int invalid = 0;
+        Map<String, Integer> byType = new TreeMap<>();
+        List<RowError> errors = new ArrayList<>();
+        for (RangeResult result : results) {
+            total += result.total();
+            invalid += result.invalid();
+            result.byType().forEach((type, count) -> byType.merge(type, count, Integer::sum));
+            errors.addAll(result.errors());
+        }
+        errors.sort(Comparator.comparingInt(RowError::row));
+        return new Result(total, invalid, byType, List.copyOf(errors.subList(0, Math.min(maxErrors, errors.size()))));
+    }
+
+    private RangeResult validateRange(ImportRecordFile file, MappedCsvFile.Range range, int columnCount) throws IOException {
+        try (ImportRecordReader reader = file.openRange(range)) {
+            return validate(reader, columnCount);
+        }
+    }
+
+    private RangeResult validate(ImportRecordReader reader, int columnCount) throws IOException {
+        int total = 0;
+        int invalid = 0;
+        Map<String, Integer> byType = new TreeMap<>();
+        List<RowError> errors = new ArrayList<>();
+        while (reader.nextRecord()) {
+            if (reader.isBlankRecord()) {
+                continue;
+            }
+            total++;
+            int rowNumber = reader.recordLine();
+            try {
+                Person person = rowParser.parse(reader.fields(columnCount), rowNumber);
+                byType.merge(typeOf.apply(person), 1, Integer::sum);
+            } catch (RuntimeException ex) {
+                invalid++;
+                if (errors.size() < maxErrors) {
+                    errors.add(new RowError(rowNumber, ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName()));
+                }
+            }
+        }
+        return new RangeResult(total, invalid, byType, errors);
+    }
+
+    public record Result(int totalRecords, int invalidRecords, Map<String, Integer> recordsByType, List<RowError> errors) {
+    }
+
+    public record RowError(int row, String message) {
+    }
+
+    private record RangeResult(int total, int invalid, Map<String, Integer> byType, List<RowError> errors) {
+    }
+
+    private final class ValidateTask extends RecursiveAction {
+
+        private final ImportRecordFile file;
+        private final int columnCount;
+        private final RangeResult[] results;
+        private final int from;
+        private final int to;
+
+        ValidateTask(ImportRecordFile file, int columnCount, RangeResult[] results, int from, int to) {
+            this.file = file;
+            this.columnCount = columnCount;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ValidateTask(file, columnCount, results, from, middle),
+                        new ValidateTask(file, columnCount, results, middle, to));
+                return;
+            }
+            if (from == to) {
+                return;
+            }
+            try {
+                results[from] = validateRange(file, file.ranges().get(from), columnCount);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package pl.kurs.test3r.services.imports;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import pl.kurs.test3r.config.ImportProperties;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class ImportMetrics {
+
+    private final MeterRegistry registry;
+    private final Counter rowsParsed;
+    private final Counter rowsPersisted;
+    private final Timer rowParse;
+    private final Timer progressUpdate;
+    private final Timer checkpointUpdate;
+    private final Timer queueWait;
+
+    public ImportMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.rowsParsed = Counter.builder("person.import.rows.parsed")
+                .description("CSV rows mapped to person entities")
+                .register(registry);
+        this.rowsPersisted = Counter.builder("person.import.rows.persisted")
+                .description("Person rows written to the database")
+                .register(registry);
+        this.rowParse = Timer.builder("person.import.row.parse")
+                .description("Time to map a single CSV row to a person entity")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.progressUpdate = Timer.builder("person.import.progress.update")
+                .tag("kind", "progress")
+                .description("Latency of persisting import progress")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.checkpointUpdate = Timer.builder("person.import.progress.update")
+                .tag("kind", "checkpoint")
+                .description("Latency of persisting import progress")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.queueWait = Timer.builder("person.import.queue.wait")
+                .description("Time an import spent queued before a slot became free")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public void recordRowParsed(long nanos) {
+        rowsParsed.increment();
+        rowParse.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordBatchFlush(ImportProperties.WriterType writer, int rows, long nanos) {
+        Timer.builder("person.import.batch.flush")
+                .tag("writer", writer.name().toLowerCase(Locale.ROOT))
+                .description("Latency of writing and flushing one batch of persons")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        rowsPersisted.increment(rows);
+    }
+
+    public void recordProgressUpdate(long nanos) {
+        progressUpdate.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordCheckpointUpdate(long nanos) {
+        checkpointUpdate.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordQueueWait(long nanos) {
+        queueWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFailure(Throwable failure) {
+        Throwable cause = failure;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        Counter.builder("person.import.failures")
+                .tag("cause", cause.getClass().getSimpleName())
+                .description("Failed imports by root cause")
+                .register(registry)
+                .increment();
+    }
+}
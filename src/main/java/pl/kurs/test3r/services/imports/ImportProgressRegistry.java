@@ -0,0 +1,101 @@
+package pl.kurs.test3r.services.imports;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.kurs.test3r.config.ImportProperties;
+import pl.kurs.test3r.dto.ImportProgressDto;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class ImportProgressRegistry {
+
+    private static final String EVENT_NAME = "progress";
+
+    private final Map<Long, LiveImportProgress> live = new ConcurrentHashMap<>();
+    private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService publisher;
+
+    public ImportProgressRegistry(ImportProperties properties) {
+        this.publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "import-progress-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, properties.getProgressStreamIntervalMillis());
+        publisher.scheduleAtFixedRate(this::publish, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public LiveImportProgress start(Long jobId, long initialRecords, long totalBytes) {
+        LiveImportProgress progress = new LiveImportProgress(jobId, initialRecords, totalBytes);
+        live.put(jobId, progress);
+        return progress;
+    }
+
+    public Optional<LiveImportProgress> find(Long jobId) {
+        return Optional.ofNullable(live.get(jobId));
+    }
+
+    public void finish(Long jobId, ImportProgressDto finalProgress) {
+        live.remove(jobId);
+        List<SseEmitter> emitters = subscribers.remove(jobId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            if (send(emitter, finalProgress)) {
+                emitter.complete();
+            }
+        }
+    }
+
+    public void subscribe(Long jobId, SseEmitter emitter) {
+        List<SseEmitter> emitters = subscribers.computeIfAbsent(jobId, key -> new CopyOnWriteArrayList<>());
+        emitters.add(emitter);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(error -> emitters.remove(emitter));
+        LiveImportProgress progress = live.get(jobId);
+        if (progress != null) {
+            send(emitter, progress.snapshot());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publisher.shutdownNow();
+    }
+
+    private void publish() {
+        subscribers.forEach((jobId, emitters) -> {
+            LiveImportProgress progress = live.get(jobId);
+            if (progress == null || emitters.isEmpty()) {
+                return;
+            }
+            ImportProgressDto snapshot = progress.snapshot();
+            for (SseEmitter emitter : emitters) {
+                send(emitter, snapshot);
+            }
+        });
+    }
+
+    private boolean send(SseEmitter emitter, ImportProgressDto progress) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(progress, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException ex) {
+            emitter.completeWithError(ex);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package pl.kurs.test3r.services.imports;
+
+import pl.kurs.test3r.models.imports.ImportFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public final class ImportRecordCounter {
+
+    private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+    private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final byte NEWLINE = '\n';
+    private static final int WINDOW_BYTES = 64 * 1024 * 1024;
+    private static final int SAMPLE_BUFFER_BYTES = 64 * 1024;
+
+    private ImportRecordCounter() {
+    }
+
+    public static long countNewlines(ByteBuffer buffer) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        long count = 0;
+        int i = position;
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            long word = buffer.getLong(i) ^ NEWLINES;
+            long nonZero = ((word & LOW_SEVEN_BITS) + LOW_SEVEN_BITS) | word;
+            count += Long.bitCount(~nonZero & HIGH_BITS);
+        }
+        for (; i < limit; i++) {
+            if (buffer.get(i) == NEWLINE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public static long countRecords(Path file, ImportFormat format) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return 0;
+            }
+            long lines = 0;
+            for (long start = 0; start < size; start += WINDOW_BYTES) {
+                lines += countNewlines(channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_BYTES, size - start)));
+            }
+            if (channel.map(FileChannel.MapMode.READ_ONLY, size - 1, 1).get(0) != NEWLINE) {
+                lines++;
+            }
+            return withoutHeader(lines, format);
+        }
+    }
+
+    public static long estimateRecords(Path file, ImportCompression compression, ImportFormat format, int sampleBytes) throws IOException {
+        if (compression == ImportCompression.NONE) {
+            return countRecords(file, format);
+        }
+        long compressedSize = Files.size(file);
+        try (CountingInputStream compressed = new CountingInputStream(Files.newInputStream(file));
+             InputStream content = compression.decompress(compressed)) {
+            byte[] buffer = new byte[SAMPLE_BUFFER_BYTES];
+            long sampled = 0;
+            long lines = 0;
+            byte last = NEWLINE;
+            int read;
+            while (sampled < sampleBytes && (read = content.read(buffer)) > 0) {
+                lines += countNewlines(ByteBuffer.wrap(buffer, 0, read));
+                last = buffer[read - 1];
+                sampled += read;
+            }
+            if (content.read() < 0) {
+                return withoutHeader(last == NEWLINE ? lines : lines + 1, format);
+            }
+            double linesPerCompressedByte = (double) lines / Math.max(1, compressed.count());
+            return withoutHeader(Math.round(linesPerCompressedByte * compressedSize), format);
+        }
+    }
+
+    private static long withoutHeader(long lines, ImportFormat format) {
+        return format == ImportFormat.CSV ? Math.max(0, lines - 1) : lines;
+    }
+}
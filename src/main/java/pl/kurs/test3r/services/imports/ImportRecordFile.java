@@ -0,0 +1,12 @@
+package pl.kurs.test3r.services.imports;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+public interface ImportRecordFile extends Closeable {
+
+    List<MappedCsvFile.Range> ranges();
+
+    ImportRecordReader openRange(MappedCsvFile.Range range) throws IOException;
+}
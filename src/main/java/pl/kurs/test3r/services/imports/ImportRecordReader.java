@@ -0,0 +1,17 @@
+package pl.kurs.test3r.services.imports;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+public interface ImportRecordReader extends Closeable {
+
+    boolean nextRecord() throws IOException;
+
+    boolean isBlankRecord();
+
+    String field(int index);
+
+    String[] fields(int expectedLength);
+
+    int recordLine();
+}
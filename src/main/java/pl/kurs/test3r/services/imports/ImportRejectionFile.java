@@ -0,0 +1,143 @@
+package pl.kurs.test3r.services.imports;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntPredicate;
+
+public class ImportRejectionFile implements Closeable {
+
+    private static final char DELIMITER = ',';
+    private static final int MAX_MESSAGE_LENGTH = 500;
+
+    private final Path path;
+    private final BufferedWriter writer;
+    private int count;
+
+    private ImportRejectionFile(Path path, BufferedWriter writer, int count) {
+        this.path = path;
+        this.writer = writer;
+        this.count = count;
+    }
+
+    public static ImportRejectionFile create(Path path, String[] columns) throws IOException {
+        BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+        try {
+            writeHeader(writer, columns);
+        } catch (IOException ex) {
+            writer.close();
+            throw ex;
+        }
+        return new ImportRejectionFile(path, writer, 0);
+    }
+
+    public static ImportRejectionFile resume(Path path, String[] columns, IntPredicate keepRow) throws IOException {
+        if (!Files.exists(path)) {
+            return create(path, columns);
+        }
+        Path rewritten = path.resolveSibling(path.getFileName() + ".tmp");
+        int kept = 0;
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+             CsvTokenizer tokenizer = new CsvTokenizer(reader, DELIMITER);
+             BufferedWriter target = Files.newBufferedWriter(rewritten, StandardCharsets.UTF_8)) {
+            writeHeader(target, columns);
+            boolean header = true;
+            while (tokenizer.nextRecord()) {
+                if (header || tokenizer.isBlankRecord()) {
+                    header = false;
+                    continue;
+                }
+                String[] record = tokenizer.fields(0);
+                if (keepRow.test(Integer.parseInt(record[0]))) {
+                    writeRecord(target, record);
+                    kept++;
+                }
+            }
+        } catch (NumberFormatException ex) {
+            Files.deleteIfExists(rewritten);
+            return create(path, columns);
+        }
+        Files.move(rewritten, path, StandardCopyOption.REPLACE_EXISTING);
+        BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+        return new ImportRejectionFile(path, writer, kept);
+    }
+
+    public synchronized void reject(int rowNumber, String[] values, String message) {
+        String[] record = new String[values.length + 2];
+        record[0] = Integer.toString(rowNumber);
+        record[1] = normalize(message);
+        System.arraycopy(values, 0, record, 2, values.length);
+        try {
+            writeRecord(writer, record);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to write rejection report " + path, ex);
+        }
+        count++;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    private static void writeHeader(Writer writer, String[] columns) throws IOException {
+        String[] header = new String[columns.length + 2];
+        header[0] = "row";
+        header[1] = "error";
+        System.arraycopy(columns, 0, header, 2, columns.length);
+        writeRecord(writer, header);
+    }
+
+    private static void writeRecord(Writer writer, String[] record) throws IOException {
+        for (int i = 0; i < record.length; i++) {
+            if (i > 0) {
+                writer.write(DELIMITER);
+            }
+            writeField(writer, record[i]);
+        }
+        writer.write('\n');
+    }
+
+    private static void writeField(Writer writer, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == DELIMITER || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static String normalize(String message) {
+        if (message == null) {
+            return "";
+        }
+        String singleLine = message.replaceAll("\\s*\\R\\s*", " ");
+        return singleLine.length() > MAX_MESSAGE_LENGTH ? singleLine.substring(0, MAX_MESSAGE_LENGTH) : singleLine;
+    }
+}
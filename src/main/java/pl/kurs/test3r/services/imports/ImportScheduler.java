@@ -0,0 +1,165 @@
+package pl.kurs.test3r.services.imports;
+
+import org.springframework.core.task.TaskExecutor;
+import pl.kurs.test3r.exceptions.ImportConcurrencyException;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+public class ImportScheduler {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final double THROUGHPUT_SMOOTHING = 0.3;
+
+    private final int maxRunning;
+    private final int maxQueued;
+    private final double agingBytesPerSecond;
+    private final TaskExecutor executor;
+    private final Consumer<QueuedImport> worker;
+
+    private final List<QueuedImport> queued = new ArrayList<>();
+    private final Map<Long, RunningImport> running = new HashMap<>();
+    private double bytesPerSecond;
+    private long sequence;
+
+    public ImportScheduler(int maxRunning,
+                           int maxQueued,
+                           double agingBytesPerSecond,
+                           double initialBytesPerSecond,
+                           TaskExecutor executor,
+                           Consumer<QueuedImport> worker) {
+        this.maxRunning = maxRunning;
+        this.maxQueued = maxQueued;
+        this.agingBytesPerSecond = Math.max(0, agingBytesPerSecond);
+        this.bytesPerSecond = Math.max(1, initialBytesPerSecond);
+        this.executor = executor;
+        this.worker = worker;
+    }
+
+    public synchronized void enqueue(Long jobId, Path file, long sizeBytes, boolean resume) {
+        if (maxQueued > 0 && queued.size() >= maxQueued) {
+            throw new ImportConcurrencyException(maxQueued);
+        }
+        add(jobId, file, sizeBytes, resume);
+    }
+
+    public synchronized void restore(Long jobId, Path file, long sizeBytes) {
+        add(jobId, file, sizeBytes, true);
+    }
+
+    public synchronized Optional<QueueEstimate> estimate(Long jobId) {
+        List<QueuedImport> order = queueOrder(System.nanoTime());
+        int position = -1;
+        for (int i = 0; i < order.size(); i++) {
+            if (order.get(i).jobId().equals(jobId)) {
+                position = i;
+                break;
+            }
+        }
+        if (position < 0) {
+            return Optional.empty();
+        }
+        double startSeconds = hasFreeSlot() ? 0 : simulateStart(order, position);
+        Duration wait = Duration.ofMillis(Math.round(startSeconds * 1000));
+        return Optional.of(new QueueEstimate(position + 1, OffsetDateTime.now().plus(wait)));
+    }
+
+    public synchronized double bytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public synchronized boolean isActive(Long jobId) {
+        return running.containsKey(jobId) || queued.stream().anyMatch(item -> item.jobId().equals(jobId));
+    }
+
+    private void add(Long jobId, Path file, long sizeBytes, boolean resume) {
+        queued.add(new QueuedImport(jobId, file, Math.max(0, sizeBytes), resume, System.nanoTime(), sequence++));
+        dispatch();
+    }
+
+    private void dispatch() {
+        while (hasFreeSlot() && !queued.isEmpty()) {
+            long now = System.nanoTime();
+            QueuedImport next = queueOrder(now).get(0);
+            queued.remove(next);
+            running.put(next.jobId(), new RunningImport(next.sizeBytes(), now));
+            try {
+                executor.execute(() -> runAndRelease(next));
+            } catch (RuntimeException ex) {
+                running.remove(next.jobId());
+                throw ex;
+            }
+        }
+    }
+
+    private void runAndRelease(QueuedImport item) {
+        try {
+            worker.accept(item);
+        } finally {
+            release(item.jobId());
+        }
+    }
+
+    private synchronized void release(Long jobId) {
+        RunningImport finished = running.remove(jobId);
+        if (finished != null && finished.sizeBytes() > 0) {
+            double elapsedSeconds = (System.nanoTime() - finished.startedAtNanos()) / NANOS_PER_SECOND;
+            if (elapsedSeconds > 0) {
+                double observed = finished.sizeBytes() / elapsedSeconds;
+                bytesPerSecond = THROUGHPUT_SMOOTHING * observed + (1 - THROUGHPUT_SMOOTHING) * bytesPerSecond;
+            }
+        }
+        dispatch();
+    }
+
+    private boolean hasFreeSlot() {
+        return maxRunning <= 0 || running.size() < maxRunning;
+    }
+
+    private List<QueuedImport> queueOrder(long now) {
+        List<QueuedImport> order = new ArrayList<>(queued);
+        order.sort(Comparator.comparingDouble((QueuedImport item) -> score(item, now))
+                .thenComparingLong(QueuedImport::sequence));
+        return order;
+    }
+
+    private double score(QueuedImport item, long now) {
+        double waitedSeconds = (now - item.enqueuedAtNanos()) / NANOS_PER_SECOND;
+        return item.sizeBytes() - agingBytesPerSecond * waitedSeconds;
+    }
+
+    private double simulateStart(List<QueuedImport> order, int position) {
+        long now = System.nanoTime();
+        PriorityQueue<Double> slotsFreeAt = new PriorityQueue<>();
+        for (RunningImport current : running.values()) {
+            double elapsedSeconds = (now - current.startedAtNanos()) / NANOS_PER_SECOND;
+            slotsFreeAt.add(Math.max(0, current.sizeBytes() / bytesPerSecond - elapsedSeconds));
+        }
+        while (slotsFreeAt.size() < maxRunning) {
+            slotsFreeAt.add(0.0);
+        }
+        for (int i = 0; i < position; i++) {
+            double start = slotsFreeAt.poll();
+            slotsFreeAt.add(start + order.get(i).sizeBytes() / bytesPerSecond);
+        }
+        return slotsFreeAt.peek();
+    }
+
+    public record QueuedImport(Long jobId, Path file, long sizeBytes, boolean resume, long enqueuedAtNanos, long sequence) {
+    }
+
+    public record QueueEstimate(int position, OffsetDateTime estimatedStartAt) {
+    }
+
+    private record RunningImport(long sizeBytes, long startedAtNanos) {
+    }
+}
@@ -0,0 +1,61 @@
+package pl.kurs.test3r.services.imports;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class ImportStream implements Closeable {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final CountingInputStream stored;
+    private final InputStream buffered;
+
+    private ImportStream(InputStream raw, ImportCompression compression) throws IOException {
+        this.stored = new CountingInputStream(raw);
+        try {
+            this.buffered = new BufferedInputStream(compression.decompress(stored), BUFFER_BYTES);
+        } catch (IOException | RuntimeException ex) {
+            stored.close();
+            throw ex;
+        }
+    }
+
+    public static ImportStream open(Path file) throws IOException {
+        return of(Files.newInputStream(file), ImportCompression.detect(file));
+    }
+
+    public static ImportStream of(InputStream raw, ImportCompression compression) throws IOException {
+        return new ImportStream(raw, compression);
+    }
+
+    public boolean isEmpty() throws IOException {
+        buffered.mark(1);
+        boolean empty = buffered.read() < 0;
+        buffered.reset();
+        return empty;
+    }
+
+    public ImportRecordReader csvRecords() {
+        return new CsvTokenizer(new InputStreamReader(buffered, StandardCharsets.UTF_8));
+    }
+
+    public ImportRecordReader ndjsonRecords() {
+        return new NdjsonStreamReader(new BufferedReader(new InputStreamReader(buffered, StandardCharsets.UTF_8), BUFFER_BYTES));
+    }
+
+    public long storedBytes() {
+        return stored.count();
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffered.close();
+    }
+}
@@ -0,0 +1,87 @@
+package pl.kurs.test3r.services.imports;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+final class ImportUpload {
+
+    private long written;
+    private boolean complete;
+    private IOException failure;
+
+    synchronized void advance(long bytes) {
+        written += bytes;
+        notifyAll();
+    }
+
+    synchronized void complete() {
+        complete = true;
+        notifyAll();
+    }
+
+    synchronized void fail(IOException cause) {
+        failure = cause;
+        notifyAll();
+    }
+
+    InputStream open(Path file) throws IOException {
+        return new TailInputStream(FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    private synchronized long awaitAvailable(long position) throws IOException {
+        while (written <= position && !complete && failure == null) {
+            try {
+                wait();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for uploaded data");
+            }
+        }
+        if (failure != null) {
+            throw new IOException("Upload was aborted", failure);
+        }
+        return written - position;
+    }
+
+    private final class TailInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private long position;
+
+        private TailInputStream(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            long available = awaitAvailable(position);
+            if (available <= 0) {
+                return -1;
+            }
+            int read = channel.read(ByteBuffer.wrap(target, offset, (int) Math.min(length, available)), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package pl.kurs.test3r.services.imports;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import pl.kurs.test3r.models.person.Person;
+import pl.kurs.test3r.services.person.PersonTypeModule;
+import pl.kurs.test3r.services.person.PersonTypeRegistry;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class JdbcPersonBatchWriter {
+
+    private static final String INSERT_PERSON_SQL = "insert into persons " +
+            "(id, person_type, first_name, last_name, pesel, height, weight, email, version) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final long INITIAL_VERSION = 0L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PersonTypeRegistry personTypeRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public JdbcPersonBatchWriter(JdbcTemplate jdbcTemplate, PersonTypeRegistry personTypeRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.personTypeRegistry = personTypeRegistry;
+    }
+
+    public void write(List<Person> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        assignIds(batch);
+
+        Map<PersonTypeModule<?, ?, ?>, List<Person>> bySubtype = new LinkedHashMap<>();
+        List<Object[]> personRows = new ArrayList<>(batch.size());
+        for (Person person : batch) {
+            PersonTypeModule<?, ?, ?> module = personTypeRegistry.getByEntity(person);
+            bySubtype.computeIfAbsent(module, key -> new ArrayList<>()).add(person);
+            personRows.add(new Object[]{
+                    person.getId(),
+                    module.getType(),
+                    person.getFirstName(),
+                    person.getLastName(),
+                    person.getPesel(),
+                    person.getHeight(),
+                    person.getWeight(),
+                    person.getEmail(),
+                    INITIAL_VERSION
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_PERSON_SQL, personRows);
+        bySubtype.forEach(this::insertSubtypeRows);
+        batch.forEach(person -> person.setVersion(INITIAL_VERSION));
+    }
+
+    private void assignIds(List<Person> batch) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        BeforeExecutionGenerator generator = (BeforeExecutionGenerator) session.getFactory()
+                .getMappingMetamodel()
+                .getEntityDescriptor(Person.class)
+                .getGenerator();
+        for (Person person : batch) {
+            person.setId((Long) generator.generate(session, person, null, EventType.INSERT));
+        }
+    }
+
+    private <P extends Person> void insertSubtypeRows(PersonTypeModule<?, ?, P> module, List<Person> persons) {
+        JdbcSubtypeInsert<P> insert = module.getJdbcSubtypeInsert();
+        List<Object[]> rows = new ArrayList<>(persons.size());
+        for (Person person : persons) {
+            Object[] values = insert.values().apply(module.getPersonClass().cast(person));
+            Object[] row = new Object[values.length + 1];
+            row[0] = person.getId();
+            System.arraycopy(values, 0, row, 1, values.length);
+            rows.add(row);
+        }
+        jdbcTemplate.batchUpdate(subtypeSql(insert), rows);
+    }
+
+    private String subtypeSql(JdbcSubtypeInsert<?> insert) {
+        return "insert into " + insert.table() + " (id, " + String.join(", ", insert.columns()) + ") values (?"
+                + ", ?".repeat(insert.columns().size()) + ")";
+    }
+}
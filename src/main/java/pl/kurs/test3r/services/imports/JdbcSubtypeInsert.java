@@ -0,0 +1,9 @@
+package pl.kurs.test3r.services.imports;
+
+import pl.kurs.test3r.models.person.Person;
+
+import java.util.List;
+import java.util.function.Function;
+
+public record JdbcSubtypeInsert<P extends Person>(String table, List<String> columns, Function<P, Object[]> values) {
+}
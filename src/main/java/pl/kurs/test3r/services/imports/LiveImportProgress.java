@@ -0,0 +1,83 @@
+package pl.kurs.test3r.services.imports;
+
+import pl.kurs.test3r.dto.ImportProgressDto;
+import pl.kurs.test3r.models.imports.ImportJobStatus;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LiveImportProgress {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final long ROLLING_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final Long jobId;
+    private final long initialRecords;
+    private final long totalBytes;
+    private final long startedAtNanos;
+    private final LongAdder records = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final AtomicLong lastFlushNanos;
+    private final Deque<long[]> samples = new ArrayDeque<>();
+
+    public LiveImportProgress(Long jobId, long initialRecords, long totalBytes) {
+        this.jobId = jobId;
+        this.initialRecords = initialRecords;
+        this.totalBytes = totalBytes;
+        this.startedAtNanos = System.nanoTime();
+        this.lastFlushNanos = new AtomicLong(startedAtNanos);
+    }
+
+    public void add(int committedRecords, long committedBytes) {
+        records.add(committedRecords);
+        bytes.add(committedBytes);
+        long now = System.nanoTime();
+        synchronized (samples) {
+            samples.addLast(new long[]{now, records.sum()});
+            while (samples.size() > 2 && now - samples.peekFirst()[0] > ROLLING_WINDOW_NANOS) {
+                samples.removeFirst();
+            }
+        }
+    }
+
+    public double rollingRecordsPerSecond() {
+        long now = System.nanoTime();
+        long sinceNanos = startedAtNanos;
+        long sinceRecords = 0;
+        synchronized (samples) {
+            long[] oldest = samples.peekFirst();
+            if (oldest != null && samples.size() > 1 && now - oldest[0] <= ROLLING_WINDOW_NANOS) {
+                sinceNanos = oldest[0];
+                sinceRecords = oldest[1];
+            }
+        }
+        double elapsedSeconds = (now - sinceNanos) / NANOS_PER_SECOND;
+        return elapsedSeconds <= 0 ? 0 : (records.sum() - sinceRecords) / elapsedSeconds;
+    }
+
+    public long processedRecords() {
+        return initialRecords + records.sum();
+    }
+
+    public boolean claimFlush(long intervalNanos) {
+        long now = System.nanoTime();
+        long last = lastFlushNanos.get();
+        return now - last >= intervalNanos && lastFlushNanos.compareAndSet(last, now);
+    }
+
+    public ImportProgressDto snapshot() {
+        long committedRecords = records.sum();
+        long committedBytes = bytes.sum();
+        double elapsedSeconds = Math.max(1e-9, (System.nanoTime() - startedAtNanos) / NANOS_PER_SECOND);
+        Long etaSeconds = null;
+        if (committedBytes > 0) {
+            double bytesPerSecond = committedBytes / elapsedSeconds;
+            etaSeconds = Math.round(Math.max(0, totalBytes - committedBytes) / bytesPerSecond);
+        }
+        return new ImportProgressDto(jobId, ImportJobStatus.IN_PROGRESS, initialRecords + committedRecords,
+                committedRecords / elapsedSeconds, etaSeconds);
+    }
+}
@@ -0,0 +1,266 @@
+package pl.kurs.test3r.services.imports;
+
+import pl.kurs.test3r.exceptions.ImportProcessingException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class MappedCsvFile implements ImportRecordFile {
+
+    private static final byte QUOTE = '"';
+    private static final byte NEWLINE = '\n';
+
+    private final FileChannel channel;
+    private final CsvHeader header;
+    private final char delimiter;
+    private final List<Range> ranges;
+
+    private MappedCsvFile(FileChannel channel, CsvHeader header, char delimiter, List<Range> ranges) {
+        this.channel = channel;
+        this.header = header;
+        this.delimiter = delimiter;
+        this.ranges = List.copyOf(ranges);
+    }
+
+    public static MappedCsvFile open(Path path, int rangeSizeBytes, int parallelism, ImportCheckpoint resumeFrom) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size == 0) {
+                throw new ImportProcessingException("CSV file is empty");
+            }
+            long chunkSize = Math.max(1, rangeSizeBytes);
+            Boundary headerEnd = findHeaderEnd(channel, size, chunkSize);
+
+            CsvTokenizer headerTokenizer = new CsvTokenizer(reader(channel, 0, headerEnd.offset()));
+            if (!headerTokenizer.nextRecord()) {
+                throw new ImportProcessingException("CSV file is empty");
+            }
+            CsvHeader header = new CsvHeader(headerTokenizer.fields(0));
+
+            Boundary dataStart = resumeFrom != null && resumeFrom.offset() > headerEnd.offset()
+                    ? new Boundary(Math.min(size, resumeFrom.offset()), resumeFrom.row())
+                    : headerEnd;
+            List<Boundary> boundaries = new ArrayList<>();
+            boundaries.add(dataStart);
+            Boundary end = findRecordBoundaries(channel, dataStart, size, chunkSize, parallelism, boundaries);
+
+            List<Range> ranges = new ArrayList<>(boundaries.size());
+            for (int i = 0; i < boundaries.size(); i++) {
+                Boundary from = boundaries.get(i);
+                Boundary to = i + 1 < boundaries.size() ? boundaries.get(i + 1) : end;
+                if (to.offset() > from.offset()) {
+                    ranges.add(new Range(from.offset(), to.offset(), from.line(), to.line()));
+                }
+            }
+            return new MappedCsvFile(channel, header, headerTokenizer.delimiter(), ranges);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    public CsvHeader header() {
+        return header;
+    }
+
+    @Override
+    public List<Range> ranges() {
+        return ranges;
+    }
+
+    public char delimiter() {
+        return delimiter;
+    }
+
+    public byte[] readRange(Range range) throws IOException {
+        ByteBuffer buffer = map(channel, range.start(), range.end());
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public CsvTokenizer openRange(Range range) throws IOException {
+        return new CsvTokenizer(reader(channel, range.start(), range.end()), delimiter, range.firstLine());
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static Boundary findHeaderEnd(FileChannel channel, long size, long chunkSize) throws IOException {
+        int parity = 0;
+        long newlines = 0;
+        for (long start = 0; start < size; start += chunkSize) {
+            ChunkScan scan = scan(map(channel, start, Math.min(size, start + chunkSize)));
+            int newline = parity == 0 ? scan.firstEvenNewline() : scan.firstOddNewline();
+            if (newline >= 0) {
+                int newlinesThrough = parity == 0 ? scan.newlinesThroughEven() : scan.newlinesThroughOdd();
+                return new Boundary(start + newline + 1, Math.toIntExact(1 + newlines + newlinesThrough));
+            }
+            parity ^= scan.quotes() & 1;
+            newlines += scan.newlines();
+        }
+        return new Boundary(size, Math.toIntExact(1 + newlines));
+    }
+
+    private static Boundary findRecordBoundaries(FileChannel channel, Boundary from, long size, long chunkSize,
+                                                 int parallelism, List<Boundary> boundaries) throws IOException {
+        long length = size - from.offset();
+        int chunkCount = Math.toIntExact((length + chunkSize - 1) / chunkSize);
+        ChunkScan[] scans = new ChunkScan[chunkCount];
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            pool.invoke(new ScanTask(channel, from.offset(), size, chunkSize, scans, 0, chunkCount));
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int parity = 0;
+        long newlines = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            ChunkScan scan = scans[i];
+            int newline = parity == 0 ? scan.firstEvenNewline() : scan.firstOddNewline();
+            long offset = from.offset() + i * chunkSize + newline + 1;
+            if (i > 0 && newline >= 0 && offset < size) {
+                int newlinesThrough = parity == 0 ? scan.newlinesThroughEven() : scan.newlinesThroughOdd();
+                boundaries.add(new Boundary(offset, Math.toIntExact(from.line() + newlines + newlinesThrough)));
+            }
+            parity ^= scan.quotes() & 1;
+            newlines += scan.newlines();
+        }
+        return new Boundary(size, Math.toIntExact(from.line() + newlines));
+    }
+
+    private static ChunkScan scan(ByteBuffer buffer) {
+        int quotes = 0;
+        int newlines = 0;
+        int firstEvenNewline = -1;
+        int firstOddNewline = -1;
+        int newlinesThroughEven = 0;
+        int newlinesThroughOdd = 0;
+        int limit = buffer.limit();
+        for (int i = 0; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == QUOTE) {
+                quotes++;
+            } else if (b == NEWLINE) {
+                newlines++;
+                if ((quotes & 1) == 0) {
+                    if (firstEvenNewline < 0) {
+                        firstEvenNewline = i;
+                        newlinesThroughEven = newlines;
+                    }
+                } else if (firstOddNewline < 0) {
+                    firstOddNewline = i;
+                    newlinesThroughOdd = newlines;
+                }
+            }
+        }
+        return new ChunkScan(quotes, newlines, firstEvenNewline, newlinesThroughEven, firstOddNewline, newlinesThroughOdd);
+    }
+
+    private static InputStreamReader reader(FileChannel channel, long start, long end) throws IOException {
+        return new InputStreamReader(new ByteBufferInputStream(map(channel, start, end)), StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer map(FileChannel channel, long start, long end) throws IOException {
+        if (end - start > Integer.MAX_VALUE) {
+            throw new ImportProcessingException("CSV record range starting at byte " + start + " is too large to map");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    }
+
+    public record Range(long start, long end, int firstLine, int endLine) {
+    }
+
+    private record Boundary(long offset, int line) {
+    }
+
+    private record ChunkScan(int quotes, int newlines,
+                             int firstEvenNewline, int newlinesThroughEven,
+                             int firstOddNewline, int newlinesThroughOdd) {
+    }
+
+    private static final class ScanTask extends RecursiveAction {
+
+        private final FileChannel channel;
+        private final long origin;
+        private final long size;
+        private final long chunkSize;
+        private final ChunkScan[] scans;
+        private final int from;
+        private final int to;
+
+        ScanTask(FileChannel channel, long origin, long size, long chunkSize, ChunkScan[] scans, int from, int to) {
+            this.channel = channel;
+            this.origin = origin;
+            this.size = size;
+            this.chunkSize = chunkSize;
+            this.scans = scans;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ScanTask(channel, origin, size, chunkSize, scans, from, middle),
+                        new ScanTask(channel, origin, size, chunkSize, scans, middle, to));
+                return;
+            }
+            if (from == to) {
+                return;
+            }
+            long start = origin + from * chunkSize;
+            try {
+                scans[from] = scan(map(channel, start, Math.min(size, start + chunkSize)));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
+    }
+}
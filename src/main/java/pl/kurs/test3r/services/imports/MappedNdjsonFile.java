@@ -0,0 +1,164 @@
+package pl.kurs.test3r.services.imports;
+
+import pl.kurs.test3r.exceptions.ImportProcessingException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MappedNdjsonFile implements ImportRecordFile {
+
+    public static final String[] COLUMNS = {"json"};
+
+    private static final byte NEWLINE = '\n';
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+    private static final int SEEK_WINDOW_BYTES = 64 * 1024;
+
+    private final FileChannel channel;
+    private final List<MappedCsvFile.Range> ranges;
+
+    private MappedNdjsonFile(FileChannel channel, List<MappedCsvFile.Range> ranges) {
+        this.channel = channel;
+        this.ranges = List.copyOf(ranges);
+    }
+
+    public static MappedNdjsonFile open(Path path, int rangeSizeBytes, ImportCheckpoint resumeFrom) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size == 0) {
+                throw new ImportProcessingException("NDJSON file is empty");
+            }
+            long chunkSize = Math.max(1, rangeSizeBytes);
+            long start = resumeFrom != null ? Math.min(size, resumeFrom.offset()) : 0;
+            int line = resumeFrom != null ? resumeFrom.row() : 1;
+
+            List<MappedCsvFile.Range> ranges = new ArrayList<>();
+            while (start < size) {
+                long end = Math.min(size, start + chunkSize);
+                long newlines = ImportRecordCounter.countNewlines(map(channel, start, end));
+                if (end < size && !endsWithNewline(channel, end)) {
+                    long newline = findNewline(channel, end, size);
+                    end = newline < 0 ? size : newline + 1;
+                    newlines += newline < 0 ? 0 : 1;
+                }
+                int endLine = Math.toIntExact(line + newlines);
+                ranges.add(new MappedCsvFile.Range(start, end, line, endLine));
+                line = endLine;
+                start = end;
+            }
+            return new MappedNdjsonFile(channel, ranges);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public List<MappedCsvFile.Range> ranges() {
+        return ranges;
+    }
+
+    @Override
+    public ImportRecordReader openRange(MappedCsvFile.Range range) throws IOException {
+        return new LineReader(map(channel, range.start(), range.end()), range.firstLine());
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static boolean endsWithNewline(FileChannel channel, long end) throws IOException {
+        return map(channel, end - 1, end).get(0) == NEWLINE;
+    }
+
+    private static long findNewline(FileChannel channel, long from, long size) throws IOException {
+        for (long start = from; start < size; start += SEEK_WINDOW_BYTES) {
+            ByteBuffer window = map(channel, start, Math.min(size, start + SEEK_WINDOW_BYTES));
+            int limit = window.limit();
+            for (int i = 0; i < limit; i++) {
+                if (window.get(i) == NEWLINE) {
+                    return start + i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static ByteBuffer map(FileChannel channel, long start, long end) throws IOException {
+        if (end - start > Integer.MAX_VALUE) {
+            throw new ImportProcessingException("NDJSON record range starting at byte " + start + " is too large to map");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    }
+
+    private static final class LineReader implements ImportRecordReader {
+
+        private final ByteBuffer buffer;
+        private int nextLine;
+        private int recordLine;
+        private String record;
+
+        LineReader(ByteBuffer buffer, int firstLine) {
+            this.buffer = buffer;
+            this.nextLine = firstLine;
+        }
+
+        @Override
+        public boolean nextRecord() {
+            int start = buffer.position();
+            int limit = buffer.limit();
+            if (start >= limit) {
+                record = null;
+                return false;
+            }
+            int end = start;
+            while (end < limit && buffer.get(end) != NEWLINE) {
+                end++;
+            }
+            int length = end - start;
+            if (length > 0 && buffer.get(end - 1) == '\r') {
+                length--;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(start, bytes);
+            record = new String(bytes, StandardCharsets.UTF_8);
+            if (!record.isEmpty() && record.charAt(0) == BYTE_ORDER_MARK) {
+                record = record.substring(1);
+            }
+            buffer.position(Math.min(limit, end + 1));
+            recordLine = nextLine++;
+            return true;
+        }
+
+        @Override
+        public boolean isBlankRecord() {
+            return record == null || record.isBlank();
+        }
+
+        @Override
+        public String field(int index) {
+            return index == 0 && record != null ? record : "";
+        }
+
+        @Override
+        public String[] fields(int expectedLength) {
+            return new String[]{record};
+        }
+
+        @Override
+        public int recordLine() {
+            return recordLine;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
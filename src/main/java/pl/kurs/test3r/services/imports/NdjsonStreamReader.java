@@ -0,0 +1,61 @@
+package pl.kurs.test3r.services.imports;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+public class NdjsonStreamReader implements ImportRecordReader {
+
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final BufferedReader reader;
+    private int nextLine;
+    private int recordLine;
+    private String record;
+
+    public NdjsonStreamReader(BufferedReader reader) {
+        this(reader, 1);
+    }
+
+    public NdjsonStreamReader(BufferedReader reader, int firstLine) {
+        this.reader = reader;
+        this.nextLine = firstLine;
+    }
+
+    @Override
+    public boolean nextRecord() throws IOException {
+        record = reader.readLine();
+        if (record == null) {
+            return false;
+        }
+        if (!record.isEmpty() && record.charAt(0) == BYTE_ORDER_MARK) {
+            record = record.substring(1);
+        }
+        recordLine = nextLine++;
+        return true;
+    }
+
+    @Override
+    public boolean isBlankRecord() {
+        return record == null || record.isBlank();
+    }
+
+    @Override
+    public String field(int index) {
+        return index == 0 && record != null ? record : "";
+    }
+
+    @Override
+    public String[] fields(int expectedLength) {
+        return new String[]{record};
+    }
+
+    @Override
+    public int recordLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
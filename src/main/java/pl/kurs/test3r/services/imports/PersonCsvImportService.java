@@ -1,198 +1,1102 @@
 package pl.kurs.test3r.services.imports;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.kurs.test3r.commands.CreatePersonCommand;
 import pl.kurs.test3r.config.ImportProperties;
+import pl.kurs.test3r.dto.ImportDryRunDto;
 import pl.kurs.test3r.dto.ImportJobDto;
+import pl.kurs.test3r.dto.ImportProgressDto;
+import pl.kurs.test3r.dto.ImportRowErrorDto;
+import pl.kurs.test3r.exceptions.IllegalEntityStateException;
 import pl.kurs.test3r.exceptions.ImportConcurrencyException;
 import pl.kurs.test3r.exceptions.ImportJobNotFoundException;
 import pl.kurs.test3r.exceptions.ImportProcessingException;
+import pl.kurs.test3r.exceptions.ImportRejectionReportNotFoundException;
+import pl.kurs.test3r.models.imports.ImportChunk;
+import pl.kurs.test3r.models.imports.ImportFormat;
 import pl.kurs.test3r.models.imports.ImportJob;
 import pl.kurs.test3r.models.imports.ImportJobStatus;
+import pl.kurs.test3r.models.imports.ImportMode;
+import pl.kurs.test3r.models.imports.ImportTarget;
 import pl.kurs.test3r.models.person.Person;
+import pl.kurs.test3r.repositories.ImportChunkRepository;
 import pl.kurs.test3r.repositories.ImportJobRepository;
+import pl.kurs.test3r.repositories.PersonRepository;
 import pl.kurs.test3r.services.person.PersonTypeModule;
 import pl.kurs.test3r.services.person.PersonTypeRegistry;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.OffsetDateTime;
 import java.util.*;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongBiFunction;
 
 @Service
 public class PersonCsvImportService {
 
     private static final Logger log = LoggerFactory.getLogger(PersonCsvImportService.class);
     private static final int MAX_ERROR_MESSAGE_LENGTH = 1000;
+    private static final int MAX_REPORTED_DUPLICATES = 10;
+    private static final int FORMAT_SNIFF_BYTES = 64;
+    private static final long SPOOL_TRANSFER_BYTES = 8L * 1024 * 1024;
+    private static final String STREAMED_FILE_NAME = "upload";
+    private static final int STREAM_HEAD_BYTES = 64 * 1024;
 
     private final PersonTypeRegistry personTypeRegistry;
+    private final ImportCommandReader<CreatePersonCommand> commandReader;
     private final ImportJobRepository importJobRepository;
+    private final ImportChunkRepository importChunkRepository;
+    private final ImportChunkPublisher importChunkPublisher;
+    private final PersonRepository personRepository;
+    private final JdbcPersonBatchWriter jdbcPersonBatchWriter;
+    private final PersonUpsertMerger personUpsertMerger;
+    private final PositionImporter positionImporter;
+    private final PeselDuplicateDetector peselDuplicateDetector;
+    private final ImportProgressRegistry progressRegistry;
+    private final ImportMetrics metrics;
     private final ImportProperties properties;
     private final TransactionTemplate transactionTemplate;
     private final TransactionTemplate progressUpdateTransactionTemplate;
-    private final TaskExecutor taskExecutor;
-    private final Semaphore concurrencySemaphore;
+    private final ImportScheduler scheduler;
+    private final Set<Long> runningJobs = ConcurrentHashMap.newKeySet();
+    private final Map<Long, ImportUpload> uploads = new ConcurrentHashMap<>();
 
     @PersistenceContext
     private EntityManager entityManager;
 
     public PersonCsvImportService(ImportJobRepository importJobRepository,
+                                  ImportChunkRepository importChunkRepository,
+                                  ImportChunkPublisher importChunkPublisher,
+                                  PersonRepository personRepository,
+                                  JdbcPersonBatchWriter jdbcPersonBatchWriter,
+                                  PersonUpsertMerger personUpsertMerger,
+                                  PositionImporter positionImporter,
+                                  PeselDuplicateDetector peselDuplicateDetector,
+                                  ImportProgressRegistry progressRegistry,
+                                  ImportMetrics metrics,
                                   ImportProperties properties,
                                   PlatformTransactionManager transactionManager,
                                   @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
-                                  PersonTypeRegistry personTypeRegistry) {
+                                  PersonTypeRegistry personTypeRegistry,
+                                  ObjectMapper objectMapper,
+                                  Validator validator) {
         this.importJobRepository = importJobRepository;
+        this.importChunkRepository = importChunkRepository;
+        this.importChunkPublisher = importChunkPublisher;
+        this.personRepository = personRepository;
+        this.jdbcPersonBatchWriter = jdbcPersonBatchWriter;
+        this.personUpsertMerger = personUpsertMerger;
+        this.positionImporter = positionImporter;
+        this.peselDuplicateDetector = peselDuplicateDetector;
+        this.progressRegistry = progressRegistry;
+        this.metrics = metrics;
         this.properties = properties;
         this.transactionTemplate = new TransactionTemplate(transactionManager);
         this.progressUpdateTransactionTemplate = new TransactionTemplate(transactionManager);
         this.progressUpdateTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
-        this.taskExecutor = taskExecutor;
         this.personTypeRegistry = personTypeRegistry;
-        this.concurrencySemaphore = properties.getMaxConcurrentImports() > 0
-                ? new Semaphore(properties.getMaxConcurrentImports(), true)
-                : null;
+        this.commandReader = new ImportCommandReader<>(objectMapper, validator, CreatePersonCommand.class);
+        this.scheduler = new ImportScheduler(
+                properties.getMaxConcurrentImports(),
+                properties.getMaxQueuedImports(),
+                properties.getQueueAgingBytesPerSecond(),
+                properties.getEstimatedBytesPerSecond(),
+                taskExecutor,
+                queued -> {
+                    metrics.recordQueueWait(System.nanoTime() - queued.enqueuedAtNanos());
+                    processImport(queued.jobId(), queued.file(), queued.resume());
+                });
     }
 
     public ImportJobDto startImport(MultipartFile file) {
+        return startImport(file, false);
+    }
+
+    public ImportJobDto startImport(MultipartFile file, boolean skipInvalidRows) {
+        return startImport(file, skipInvalidRows, ImportMode.INSERT);
+    }
+
+    public ImportJobDto startImport(MultipartFile file, boolean skipInvalidRows, ImportMode mode) {
+        return startImport(file, skipInvalidRows, mode, ImportTarget.PERSONS);
+    }
+
+    public ImportJobDto startPositionImport(MultipartFile file, boolean skipInvalidRows) {
+        return startImport(file, skipInvalidRows, ImportMode.INSERT, ImportTarget.POSITIONS);
+    }
+
+    private ImportJobDto startImport(MultipartFile file, boolean skipInvalidRows, ImportMode mode, ImportTarget target) {
         if (file == null || file.isEmpty()) {
             throw new ImportProcessingException("Uploaded file must not be empty");
         }
 
-        AtomicBoolean permitHolder = new AtomicBoolean(false);
-        if (concurrencySemaphore != null) {
-            permitHolder.set(concurrencySemaphore.tryAcquire());
-            if (!permitHolder.get()) {
-                throw new ImportConcurrencyException(properties.getMaxConcurrentImports());
+        ImportJob saved = null;
+        try {
+            ImportCompression compression;
+            try (InputStream head = file.getInputStream()) {
+                compression = ImportCompression.detect(head.readNBytes(4), file.getContentType(), file.getOriginalFilename());
+            }
+            ImportFormat format;
+            try (InputStream content = compression.decompress(file.getInputStream())) {
+                format = ImportFormat.detect(content.readNBytes(FORMAT_SNIFF_BYTES), file.getContentType(), file.getOriginalFilename());
             }
+            ImportJob job = new ImportJob(file.getOriginalFilename(), file.getSize(), file.getContentType());
+            job.setSkipInvalidRows(skipInvalidRows);
+            job.setOwnerNode(nodeName());
+            job.setFormat(format);
+            job.setMode(mode);
+            job.setTarget(target);
+            saved = importJobRepository.save(job);
+
+            Path storedFile = storedFilePath(saved.getId(), format, compression);
+            Files.createDirectories(storedFile.getParent());
+            file.transferTo(storedFile);
+            saved.setStoredFilePath(storedFile.toString());
+            saved = importJobRepository.save(saved);
+
+            enqueue(saved, storedFile, false);
+            return toDto(saved);
+
+        } catch (IOException ex) {
+            throw new ImportProcessingException("Failed to store uploaded file", ex);
+        } catch (ImportConcurrencyException ex) {
+            discardRejectedUpload(saved);
+            throw ex;
         }
+    }
 
+    public ImportJobDto startStreamingImport(InputStream body, String fileName, String contentType,
+                                             boolean skipInvalidRows, ImportMode mode) {
+        ImportJob saved = null;
+        ImportUpload upload = null;
+        boolean enqueued = false;
         try {
-            ImportJob job = new ImportJob(file.getOriginalFilename(), file.getSize(), file.getContentType());
-            ImportJob saved = importJobRepository.save(job);
+            ImportJob job = new ImportJob(fileName == null || fileName.isBlank() ? STREAMED_FILE_NAME : fileName, 0, contentType);
+            job.setSkipInvalidRows(skipInvalidRows);
+            job.setOwnerNode(nodeName());
+            job.setMode(mode);
+            saved = importJobRepository.save(job);
+            Long jobId = saved.getId();
 
-            Path tempFile = Files.createTempFile("persons-import-", saved.getId() + ".csv");
-            try (InputStream inputStream = file.getInputStream()) {
-                Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            byte[] head = body.readNBytes(STREAM_HEAD_BYTES);
+            if (head.length == 0) {
+                throw new ImportProcessingException("Uploaded file must not be empty");
             }
+            ImportCompression compression = ImportCompression.detect(head, contentType, fileName);
+            ImportFormat format;
+            try (InputStream content = compression.decompress(new ByteArrayInputStream(head))) {
+                format = ImportFormat.detect(content.readNBytes(FORMAT_SNIFF_BYTES), contentType, fileName);
+            }
+            Path storedFile = storedFilePath(saved.getId(), format, compression);
+            Files.createDirectories(storedFile.getParent());
+            saved.setFormat(format);
+            saved.setStoredFilePath(storedFile.toString());
+            saved = importJobRepository.save(saved);
 
-            taskExecutor.execute(() -> processImport(saved.getId(), tempFile, permitHolder.get()));
-            permitHolder.set(false);
+            try (FileChannel out = FileChannel.open(storedFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                out.write(ByteBuffer.wrap(head));
+                upload = new ImportUpload();
+                upload.advance(head.length);
+                uploads.put(jobId, upload);
+                enqueue(saved, storedFile, false);
+                enqueued = true;
 
-            return ImportJobDto.from(saved);
+                long size = spool(body, out, head.length, upload);
+                transactionTemplate.executeWithoutResult(status -> importJobRepository.updateFileSize(jobId, size));
+                saved.setFileSize(size);
+                upload.complete();
+            }
+            return toDto(saved);
 
         } catch (IOException ex) {
+            abortUpload(saved, enqueued ? upload : null, ex);
             throw new ImportProcessingException("Failed to store uploaded file", ex);
+        } catch (RuntimeException ex) {
+            abortUpload(saved, enqueued ? upload : null, new IOException(ex.getMessage(), ex));
+            throw ex;
+        } finally {
+            if (saved != null) {
+                uploads.remove(saved.getId());
+            }
+        }
+    }
+
+    private long spool(InputStream body, FileChannel out, long position, ImportUpload upload) throws IOException {
+        ReadableByteChannel source = Channels.newChannel(body);
+        long transferred;
+        while ((transferred = out.transferFrom(source, position, SPOOL_TRANSFER_BYTES)) > 0) {
+            position += transferred;
+            upload.advance(transferred);
+        }
+        out.force(false);
+        return position;
+    }
+
+    private void abortUpload(ImportJob job, ImportUpload upload, IOException cause) {
+        if (upload == null) {
+            discardRejectedUpload(job);
+            return;
+        }
+        upload.fail(cause);
+        try {
+            Files.deleteIfExists(Path.of(job.getStoredFilePath()));
+        } catch (IOException e) {
+            log.warn("Could not delete partial upload of import job {}", job.getId(), e);
+        }
+    }
+
+    public ImportDryRunDto dryRun(MultipartFile file, ImportMode mode, Integer maxErrors) {
+        if (file == null || file.isEmpty()) {
+            throw new ImportProcessingException("Uploaded file must not be empty");
+        }
+        long start = System.nanoTime();
+        Path workFile = null;
+        try {
+            ImportCompression compression;
+            try (InputStream head = file.getInputStream()) {
+                compression = ImportCompression.detect(head.readNBytes(4), file.getContentType(), file.getOriginalFilename());
+            }
+            ImportFormat format;
+            try (InputStream content = compression.decompress(file.getInputStream())) {
+                format = ImportFormat.detect(content.readNBytes(FORMAT_SNIFF_BYTES), file.getContentType(), file.getOriginalFilename());
+            }
+            int errorLimit = Math.min(maxErrors != null ? maxErrors : properties.getDryRunMaxErrors(),
+                    properties.getDryRunMaxErrorsLimit());
+            ImportDryRun.Result result;
+            if (compression == ImportCompression.NONE) {
+                workFile = Path.of(properties.getWorkDir()).resolve("persons-dry-run-" + UUID.randomUUID() + format.fileExtension());
+                Files.createDirectories(workFile.getParent());
+                file.transferTo(workFile);
+                result = format == ImportFormat.NDJSON
+                        ? dryRunNdjson(workFile, mode, errorLimit)
+                        : dryRunCsv(workFile, mode, errorLimit);
+            } else {
+                result = format == ImportFormat.NDJSON
+                        ? dryRunNdjson(file, compression, mode, errorLimit)
+                        : dryRunCsv(file, compression, mode, errorLimit);
+            }
+
+            ImportDryRunDto dto = new ImportDryRunDto();
+            dto.setFormat(format);
+            dto.setTotalRecords(result.totalRecords());
+            dto.setInvalidRecords(result.invalidRecords());
+            dto.setValidRecords(result.totalRecords() - result.invalidRecords());
+            dto.setRecordsByType(result.recordsByType());
+            dto.setErrors(result.errors().stream().map(error -> new ImportRowErrorDto(error.row(), error.message())).toList());
+            dto.setEstimatedImportSeconds((long) Math.ceil(file.getSize() / scheduler.bytesPerSecond()));
+            dto.setValidationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return dto;
+        } catch (IOException ex) {
+            throw new ImportProcessingException("Failed to read uploaded file", ex);
         } finally {
-            if (permitHolder.get() && concurrencySemaphore != null) {
-                concurrencySemaphore.release();
+            if (workFile != null) {
+                try {
+                    Files.deleteIfExists(workFile);
+                } catch (IOException e) {
+                    log.warn("Could not delete dry-run file {}", workFile, e);
+                }
+            }
+        }
+    }
+
+    public ImportJobDto resumeImport(Long id) {
+        return resumeImport(id, null);
+    }
+
+    public ImportJobDto resumeImport(Long id, ImportTarget target) {
+        ImportJob job = findJob(id, target);
+        if (job.getStatus() == ImportJobStatus.COMPLETED) {
+            throw new IllegalEntityStateException("Import job " + id + " is already completed");
+        }
+        if (runningJobs.contains(id)) {
+            throw new IllegalEntityStateException("Import job " + id + " is already running");
+        }
+        if (uploads.containsKey(id)) {
+            throw new IllegalEntityStateException("Import job " + id + " is still being uploaded");
+        }
+        Path storedFile = existingStoredFile(job);
+
+        ImportJob pending = markPending(id);
+        enqueue(pending, storedFile, true);
+        return toDto(pending);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedImports() {
+        if (!properties.isResumeOnStartup()) {
+            return;
+        }
+        List<ImportJob> interrupted = importJobRepository.findByStatusInOrderByIdAsc(
+                List.of(ImportJobStatus.PENDING, ImportJobStatus.IN_PROGRESS));
+        String node = nodeName();
+        for (ImportJob job : interrupted) {
+            if (job.isDistributed() || job.getOwnerNode() != null && !job.getOwnerNode().equals(node)) {
+                log.info("Skipping import job {} owned by {}", job.getId(), job.isDistributed() ? "chunk consumers" : job.getOwnerNode());
+                continue;
+            }
+            Path storedFile;
+            try {
+                storedFile = existingStoredFile(job);
+            } catch (ImportProcessingException ex) {
+                log.warn("Cannot resume import job {}: {}", job.getId(), ex.getMessage());
+                markFailed(job.getId(), ex);
+                continue;
+            }
+            if (runningJobs.contains(job.getId())) {
+                continue;
             }
+            log.info("Resuming interrupted import job {} from checkpoint row {}", job.getId(), job.getCheckpointRow());
+            restore(job, storedFile);
         }
     }
 
     public ImportJobDto getStatus(Long id) {
-        ImportJob job = importJobRepository.findById(id)
+        return getStatus(id, null);
+    }
+
+    public ImportJobDto getStatus(Long id, ImportTarget target) {
+        return toDto(findJob(id, target));
+    }
+
+    public SseEmitter streamProgress(Long id) {
+        return streamProgress(id, null);
+    }
+
+    public SseEmitter streamProgress(Long id, ImportTarget target) {
+        ImportJob job = findJob(id, target);
+        SseEmitter emitter = new SseEmitter(properties.getProgressStreamTimeoutMillis());
+        if (runningJobs.contains(id)) {
+            progressRegistry.subscribe(id, emitter);
+            if (!runningJobs.contains(id)) {
+                importJobRepository.findById(id)
+                        .ifPresent(finished -> progressRegistry.finish(id, storedProgress(finished)));
+            }
+            return emitter;
+        }
+        try {
+            emitter.send(SseEmitter.event().name("progress").data(storedProgress(job)));
+            emitter.complete();
+        } catch (IOException ex) {
+            emitter.completeWithError(ex);
+        }
+        return emitter;
+    }
+
+    public Path getRejectionReport(Long id) {
+        return getRejectionReport(id, null);
+    }
+
+    public Path getRejectionReport(Long id, ImportTarget target) {
+        ImportJob job = findJob(id, target);
+        if (job.getRejectionFilePath() == null || !Files.isRegularFile(Path.of(job.getRejectionFilePath()))) {
+            throw new ImportRejectionReportNotFoundException(id);
+        }
+        return Path.of(job.getRejectionFilePath());
+    }
+
+    private ImportJob findJob(Long id, ImportTarget target) {
+        return importJobRepository.findById(id)
+                .filter(found -> target == null || found.getTarget() == target)
                 .orElseThrow(() -> new ImportJobNotFoundException(id));
-        return ImportJobDto.from(job);
     }
 
-    private void processImport(Long jobId, Path filePath, boolean releasePermit) {
+    private void enqueue(ImportJob job, Path storedFile, boolean resume) {
+        if (!runningJobs.add(job.getId())) {
+            throw new IllegalEntityStateException("Import job " + job.getId() + " is already running");
+        }
+        long remainingBytes = job.getFileSize() - (resume && job.getCheckpointOffset() != null ? job.getCheckpointOffset() : 0);
+        try {
+            scheduler.enqueue(job.getId(), storedFile, remainingBytes, resume);
+        } catch (RuntimeException ex) {
+            runningJobs.remove(job.getId());
+            throw ex;
+        }
+    }
+
+    private void restore(ImportJob job, Path storedFile) {
+        if (!runningJobs.add(job.getId())) {
+            return;
+        }
+        long remainingBytes = job.getFileSize() - (job.getCheckpointOffset() != null ? job.getCheckpointOffset() : 0);
+        try {
+            scheduler.restore(job.getId(), storedFile, remainingBytes);
+        } catch (RuntimeException ex) {
+            runningJobs.remove(job.getId());
+            log.warn("Cannot queue interrupted import job {}", job.getId(), ex);
+            markFailed(job.getId(), ex);
+        }
+    }
+
+    private ImportJobDto toDto(ImportJob job) {
+        ImportJobDto dto = ImportJobDto.from(job);
+        Optional<LiveImportProgress> live = progressRegistry.find(job.getId());
+        live.ifPresent(progress -> dto.setProcessedRecords((int) progress.processedRecords()));
+        if (job.getStatus() == ImportJobStatus.COMPLETED) {
+            dto.setPercentComplete(100.0);
+            dto.setEtaSeconds(0L);
+        } else if (dto.getTotalRecords() != null && dto.getTotalRecords() > 0 && dto.getProcessedRecords() != null) {
+            int remaining = Math.max(0, dto.getTotalRecords() - dto.getProcessedRecords());
+            dto.setPercentComplete(Math.min(100.0, dto.getProcessedRecords() * 100.0 / dto.getTotalRecords()));
+            live.map(LiveImportProgress::rollingRecordsPerSecond)
+                    .filter(rate -> rate > 0)
+                    .ifPresent(rate -> dto.setEtaSeconds(Math.round(remaining / rate)));
+        }
+        scheduler.estimate(job.getId()).ifPresent(estimate -> {
+            dto.setQueuePosition(estimate.position());
+            dto.setEstimatedStartAt(estimate.estimatedStartAt());
+        });
+        return dto;
+    }
+
+    private void discardRejectedUpload(ImportJob job) {
+        if (job == null || job.getId() == null) {
+            return;
+        }
+        importJobRepository.deleteById(job.getId());
+        if (job.getStoredFilePath() == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(Path.of(job.getStoredFilePath()));
+        } catch (IOException e) {
+            log.warn("Could not delete stored import file for rejected job {}", job.getId(), e);
+        }
+    }
+
+    private Path storedFilePath(Long jobId, ImportFormat format, ImportCompression compression) {
+        return Path.of(properties.getWorkDir()).resolve("persons-import-" + jobId + format.fileExtension() + compression.fileSuffix());
+    }
+
+    private Path rejectionFilePath(Long jobId) {
+        return Path.of(properties.getWorkDir()).resolve("persons-import-" + jobId + "-rejections.csv");
+    }
+
+    private Path existingStoredFile(ImportJob job) {
+        if (job.getStoredFilePath() == null || !Files.isRegularFile(Path.of(job.getStoredFilePath()))) {
+            throw new ImportProcessingException("Stored file for import job " + job.getId() + " is no longer available");
+        }
+        if (job.getFileSize() == 0) {
+            throw new ImportProcessingException("Upload of import job " + job.getId() + " did not complete");
+        }
+        return Path.of(job.getStoredFilePath());
+    }
+
+    private ImportProgressDto storedProgress(ImportJob job) {
+        long processed = job.getProcessedRecords() == null ? 0 : job.getProcessedRecords();
+        return new ImportProgressDto(job.getId(), job.getStatus(), processed, 0, null);
+    }
+
+    private void processImport(Long jobId, Path filePath, boolean resume) {
+        boolean completed = false;
+        boolean handedOff = false;
+        AdaptiveBatchSizer batchSizer = new AdaptiveBatchSizer(properties.getBatchSize(), properties.getMinBatchSize(),
+                properties.getMaxBatchSize(), properties.getBatchLatencySpikeFactor(), properties.isAdaptiveBatchSize());
         try {
-            markInProgress(jobId);
-            ImportSummary summary = runImportInTransaction(jobId, filePath);
+            ImportJob job = markInProgress(jobId, resume);
+            ImportUpload upload = resume ? null : uploads.get(jobId);
+            if (upload == null) {
+                estimateTotalRecords(jobId, filePath, job.getFormat());
+            }
+            if (upload == null && properties.getDistributed().isEnabled() && !resume && !job.isSkipInvalidRows()
+                    && job.getFormat() == ImportFormat.CSV && job.getMode() == ImportMode.INSERT
+                    && job.getTarget() == ImportTarget.PERSONS && ImportCompression.detect(filePath) == ImportCompression.NONE) {
+                int chunks = publishChunks(jobId, filePath);
+                handedOff = true;
+                log.info("Import job {} split into {} chunk messages", jobId, chunks);
+                return;
+            }
+            ImportCheckpoint checkpoint = checkpointOf(job);
+            CommittedRows committedRows = resume
+                    ? CommittedRows.of(importChunkRepository.findCommittedRanges(jobId))
+                    : CommittedRows.NONE;
+            if (checkpoint != null) {
+                committedRows = committedRows.andBefore(checkpoint.row());
+            }
+            updateProcessedRecords(jobId, committedRows.records());
+            ImportRun run = new ImportRun(jobId, job.getTarget(), job.getFormat(), job.getMode(), checkpoint, committedRows, resume,
+                    job.isSkipInvalidRows(), batchSizer, new LongAdder(), new LongAdder());
+            ImportSummary summary = doImport(run, filePath, upload);
+            saveBatchSizes(jobId, batchSizer);
+            try {
+                Files.deleteIfExists(filePath);
+            } catch (IOException e) {
+                log.warn("Could not delete stored import file {}", filePath, e);
+            }
             markCompleted(jobId, summary);
+            completed = true;
             String formattedThroughput = String.format(Locale.ROOT, "%.2f", summary.throughput());
-            log.info("Import job {} completed. Processed {} records at {} rows/s", jobId, summary.totalRecords(), formattedThroughput);
+            log.info("Import job {} completed. Processed {} records ({} rejected, {} updated, {} unchanged) at {} rows/s",
+                    jobId, summary.totalRecords(), summary.rejectedRecords(), summary.updatedRecords(), summary.unchangedRecords(),
+                    formattedThroughput);
         } catch (Exception ex) {
             log.error("Import job {} failed", jobId, ex);
+            metrics.recordFailure(ex);
+            saveBatchSizes(jobId, batchSizer);
+            progressRegistry.find(jobId).ifPresent(progress -> updateProcessedRecords(jobId, progress.processedRecords()));
             markFailed(jobId, ex);
         } finally {
-            if (releasePermit && concurrencySemaphore != null) {
-                concurrencySemaphore.release();
+            runningJobs.remove(jobId);
+            finishProgress(jobId, handedOff ? ImportJobStatus.IN_PROGRESS
+                    : completed ? ImportJobStatus.COMPLETED : ImportJobStatus.FAILED);
+        }
+    }
+
+    private void estimateTotalRecords(Long jobId, Path file, ImportFormat format) {
+        try {
+            long total = ImportRecordCounter.estimateRecords(file, ImportCompression.detect(file), format,
+                    properties.getRecordCountSampleBytes());
+            int totalInt = (int) Math.min(Integer.MAX_VALUE, total);
+            progressUpdateTransactionTemplate.executeWithoutResult(status -> importJobRepository.updateTotalRecords(jobId, totalInt));
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Could not estimate record count for import job {}", jobId, ex);
+        }
+    }
+
+    private void finishProgress(Long jobId, ImportJobStatus status) {
+        ImportProgressDto finalProgress = progressRegistry.find(jobId)
+                .map(LiveImportProgress::snapshot)
+                .orElseGet(() -> new ImportProgressDto(jobId, null, 0, 0, null));
+        finalProgress.setStatus(status);
+        finalProgress.setEtaSeconds(status == ImportJobStatus.COMPLETED ? 0L : null);
+        progressRegistry.finish(jobId, finalProgress);
+    }
+
+    private ImportSummary doImport(ImportRun run, Path storedFile, ImportUpload upload) {
+        if (run.target() == ImportTarget.POSITIONS) {
+            return importPositions(run, storedFile);
+        }
+        ImportCompression compression;
+        try {
+            compression = ImportCompression.detect(storedFile);
+        } catch (IOException e) {
+            throw new ImportProcessingException("Failed to read stored import file", e);
+        }
+        if (upload != null || compression != ImportCompression.NONE) {
+            return importStream(run, storedFile, compression, upload);
+        }
+        return run.format() == ImportFormat.NDJSON ? importNdjson(run, storedFile) : importCsv(run, storedFile);
+    }
+
+    private int publishChunks(Long jobId, Path csvFile) throws IOException {
+        try (MappedCsvFile file = MappedCsvFile.open(csvFile, properties.getRangeSizeBytes(), properties.resolveParserThreads(), null)) {
+            CsvHeader header = file.header();
+            header.validateRequiredColumns();
+            if (properties.isDuplicateCheck()) {
+                rejectDuplicates(peselDuplicateDetector.findDuplicates(file, properties.resolveParserThreads()));
+            }
+            List<MappedCsvFile.Range> ranges = file.ranges();
+            startDistributed(jobId, ranges.size());
+            for (int i = 0; i < ranges.size(); i++) {
+                MappedCsvFile.Range range = ranges.get(i);
+                importChunkPublisher.publish(new ImportChunkMessage(jobId, i, ranges.size(), header.columns(),
+                        file.delimiter(), range.firstLine(), range.endLine(), file.readRange(range)));
             }
+            return ranges.size();
+        }
+    }
+
+    private void startDistributed(Long jobId, int totalChunks) {
+        transactionTemplate.executeWithoutResult(status -> {
+            ImportJob job = importJobRepository.findById(jobId)
+                    .orElseThrow(() -> new ImportJobNotFoundException(jobId));
+            job.setTotalChunks(totalChunks);
+            job.setCompletedChunks(0);
+            job.setDistributed(true);
+            job.setProcessedRecords(0);
+            if (totalChunks == 0) {
+                job.setStatus(ImportJobStatus.COMPLETED);
+                job.setFinishedAt(OffsetDateTime.now());
+                job.setTotalRecords(0);
+                job.setSuccessRecords(0);
+                job.setRejectedRecords(0);
+            }
+        });
+    }
+
+    public void importChunk(ImportChunkMessage message) {
+        String completedFile = transactionTemplate.execute(status -> {
+            if (importChunkRepository.existsByJobIdAndChunkIndex(message.jobId(), message.chunkIndex())) {
+                return null;
+            }
+            ImportJob job = importJobRepository.findById(message.jobId()).orElse(null);
+            if (job == null || !job.isDistributed() || job.getStatus() != ImportJobStatus.IN_PROGRESS) {
+                return null;
+            }
+            ImportChunk chunk = importChunkRepository.saveAndFlush(new ImportChunk(message.jobId(), message.chunkIndex(),
+                    message.firstLine(), message.endLine(), 0, nodeName()));
+            int records = writeChunk(message);
+            chunk.setRecords(records);
+            importChunkRepository.save(chunk);
+            if (importJobRepository.completeChunk(message.jobId(), records) == 0) {
+                status.setRollbackOnly();
+                return null;
+            }
+            Integer completedChunks = importJobRepository.findCompletedChunks(message.jobId());
+            if (completedChunks != null && completedChunks == message.totalChunks()
+                    && importJobRepository.completeDistributed(message.jobId(), OffsetDateTime.now()) > 0) {
+                log.info("Distributed import job {} completed all {} chunks", message.jobId(), message.totalChunks());
+                return job.getStoredFilePath();
+            }
+            return null;
+        });
+        if (completedFile != null) {
             try {
-                Files.deleteIfExists(filePath);
+                Files.deleteIfExists(Path.of(completedFile));
             } catch (IOException e) {
-                log.warn("Could not delete temporary file {}", filePath, e);
+                log.warn("Could not delete stored import file {}", completedFile, e);
             }
         }
     }
 
-    private ImportSummary runImportInTransaction(Long jobId, Path filepath) {
-        return transactionTemplate.execute(status -> doImport(jobId, filepath));
+    public boolean failChunk(ImportChunkMessage message, RuntimeException failure) {
+        boolean relevant = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (importChunkRepository.existsByJobIdAndChunkIndex(message.jobId(), message.chunkIndex())) {
+                return false;
+            }
+            return importJobRepository.findById(message.jobId())
+                    .map(job -> job.getStatus() == ImportJobStatus.IN_PROGRESS)
+                    .orElse(false);
+        }));
+        if (relevant) {
+            log.error("Chunk {} of import job {} failed", message.chunkIndex(), message.jobId(), failure);
+            metrics.recordFailure(failure);
+            markFailed(message.jobId(), failure);
+        }
+        return relevant;
     }
 
-    private ImportSummary doImport(Long jobId, Path filepath) {
-        int batchSize = Math.max(1, properties.getBatchSize());
-        try (BufferedReader reader = Files.newBufferedReader(filepath, StandardCharsets.UTF_8)) {
-            String headerLine = reader.readLine();
-            if (headerLine == null) {
-                throw new ImportProcessingException("CSV file is empty");
+    private int writeChunk(ImportChunkMessage message) {
+        CsvHeader header = new CsvHeader(message.columns());
+        List<Person> batch = new ArrayList<>();
+        int records = 0;
+        try (CsvTokenizer tokenizer = new CsvTokenizer(new InputStreamReader(new ByteArrayInputStream(message.payload()),
+                StandardCharsets.UTF_8), message.delimiter(), message.firstLine())) {
+            while (tokenizer.nextRecord()) {
+                if (tokenizer.isBlankRecord()) {
+                    continue;
+                }
+                batch.add(mapToPerson(header, tokenizer.fields(header.columnCount()), tokenizer.recordLine(), Map.of()));
+                records++;
+                if (batch.size() >= properties.getBatchSize()) {
+                    writeBatch(batch, properties.getWriter());
+                    batch = new ArrayList<>();
+                }
+            }
+        } catch (IOException ex) {
+            throw new ImportProcessingException("Failed to read import chunk " + message.chunkIndex(), ex);
+        }
+        writeBatch(batch, properties.getWriter());
+        return records;
+    }
+
+    private String nodeName() {
+        if (!properties.getNodeId().isBlank()) {
+            return properties.getNodeId();
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException ex) {
+            return "unknown";
+        }
+    }
+
+    private ImportSummary importCsv(ImportRun run, Path filepath) {
+        try (MappedCsvFile file = MappedCsvFile.open(filepath, properties.getRangeSizeBytes(), properties.resolveParserThreads(), run.checkpoint());
+             ImportRejectionFile rejections = run.skipInvalidRows() ? openRejectionFile(run, file.header().columns()) : null) {
+            CsvHeader header = file.header();
+            header.validateRequiredColumns();
+            Map<Integer, String> duplicateRows = Map.of();
+            if (properties.isDuplicateCheck()) {
+                int peselIndex = header.indexOf("pesel");
+                CommittedRows committedRows = run.committedRows();
+                duplicateRows = handleDuplicates(run, peselDuplicateDetector.findDuplicates(file,
+                        reader -> committedRows.contains(reader.recordLine()) ? null : reader.field(peselIndex),
+                        properties.resolveParserThreads()));
             }
 
-            String delimiter = headerLine.contains(";") ? ";" : ",";
-            String[] headers = tokenize(headerLine, delimiter, 0);
-            Map<String, Integer> headerIndex = buildHeaderIndex(headers);
-            validateRequiredColumns(headerIndex);
+            Map<Integer, String> rejectedDuplicates = duplicateRows;
+            return runPipeline(run, file, header.columnCount(), rejections,
+                    (values, rowNumber) -> mapToPerson(header, values, rowNumber, rejectedDuplicates));
+        } catch (IOException e) {
+            throw new ImportProcessingException("Failed to read CSV file", e);
+        }
+    }
 
-            List<Person> batch = new ArrayList<>(batchSize);
-            long processed = 0;
-            long start = System.nanoTime();
-            long lastReported = 0;
-            String line;
-            int rowNumber = 1;
-            while ((line = reader.readLine()) != null) {
-                rowNumber++;
-                if (line.isBlank()) {
-                    continue;
+    private ImportSummary importStream(ImportRun run, Path storedFile, ImportCompression compression, ImportUpload upload) {
+        boolean ndjson = run.format() == ImportFormat.NDJSON;
+        try (ImportStream stream = ImportStream.of(upload == null ? Files.newInputStream(storedFile) : upload.open(storedFile), compression);
+             ImportRecordReader reader = ndjson ? stream.ndjsonRecords() : stream.csvRecords()) {
+            if (stream.isEmpty()) {
+                throw new ImportProcessingException((ndjson ? "NDJSON" : "CSV") + " file is empty");
+            }
+            long remainingBytes = upload == null ? Files.size(storedFile) : 0;
+            if (ndjson) {
+                Map<Integer, String> duplicateRows = Map.of();
+                PersonImportPipeline.RecordScreen screen = null;
+                if (properties.isDuplicateCheck() && upload != null) {
+                    screen = peselDuplicateDetector.streamingScreen(values -> commandPesel(values[0]), run.mode() == ImportMode.UPSERT);
+                } else if (properties.isDuplicateCheck()) {
+                    CommittedRows committedRows = run.committedRows();
+                    duplicateRows = handleDuplicates(run, streamDuplicates(storedFile, true,
+                            records -> committedRows.contains(records.recordLine()) ? null : commandPesel(records.field(0))));
                 }
-                String[] values = tokenize(line, delimiter, headers.length);
-                Person person = mapToPerson(headerIndex, values, rowNumber);
-                batch.add(person);
-                processed++;
-                if (batch.size() >= batchSize) {
-                    persistBatch(batch);
-                    lastReported = reportProgressIfNeeded(jobId, processed, lastReported);
+                try (ImportRejectionFile rejections = run.skipInvalidRows() ? openRejectionFile(run, MappedNdjsonFile.COLUMNS) : null) {
+                    return runPipeline(run, stream, reader, MappedNdjsonFile.COLUMNS.length, remainingBytes, rejections, screen,
+                            ndjsonRowParser(duplicateRows));
                 }
             }
-            persistBatch(batch);
-            lastReported = reportProgressIfNeeded(jobId, processed, lastReported);
-            double durationSeconds = Math.max(1e-9, (System.nanoTime() - start) / 1_000_000_000.0);
-            double throughput = processed / durationSeconds;
-            if (properties.getMinimumTps() > 0 && throughput < properties.getMinimumTps()) {
-                log.warn("Import throughput {} rows/s below configured minimum {}", String.format(Locale.ROOT, "%.2f", throughput), properties.getMinimumTps());
+            if (!reader.nextRecord()) {
+                throw new ImportProcessingException("CSV file is empty");
+            }
+            CsvHeader header = new CsvHeader(reader.fields(0));
+            header.validateRequiredColumns();
+            Map<Integer, String> duplicateRows = Map.of();
+            PersonImportPipeline.RecordScreen screen = null;
+            if (properties.isDuplicateCheck() && upload != null) {
+                int peselIndex = header.indexOf("pesel");
+                screen = peselDuplicateDetector.streamingScreen(values -> values[peselIndex], run.mode() == ImportMode.UPSERT);
+            } else if (properties.isDuplicateCheck()) {
+                int peselIndex = header.indexOf("pesel");
+                CommittedRows committedRows = run.committedRows();
+                duplicateRows = handleDuplicates(run, streamDuplicates(storedFile, false,
+                        records -> committedRows.contains(records.recordLine()) ? null : records.field(peselIndex)));
             }
-            if (processed > Integer.MAX_VALUE) {
-                throw new ImportProcessingException("Imported record count exceeds supported limit");
+            Map<Integer, String> rejectedDuplicates = duplicateRows;
+            try (ImportRejectionFile rejections = run.skipInvalidRows() ? openRejectionFile(run, header.columns()) : null) {
+                return runPipeline(run, stream, reader, header.columnCount(), remainingBytes, rejections, screen,
+                        (values, rowNumber) -> mapToPerson(header, values, rowNumber, rejectedDuplicates));
             }
-            return new ImportSummary((int) processed, throughput);
         } catch (IOException e) {
-            throw new ImportProcessingException("Failed to read CSV file", e);
+            throw new ImportProcessingException("Failed to read compressed import file", e);
+        }
+    }
+
+    private List<PeselDuplicateDetector.DuplicatePesel> streamDuplicates(Path storedFile, boolean ndjson,
+                                                                         PeselDuplicateDetector.PeselReader peselReader) throws IOException {
+        try (ImportStream stream = ImportStream.open(storedFile);
+             ImportRecordReader records = ndjson ? stream.ndjsonRecords() : stream.csvRecords()) {
+            if (!ndjson && !records.nextRecord()) {
+                return List.of();
+            }
+            return peselDuplicateDetector.findDuplicates(records, peselReader);
+        }
+    }
+
+    private Map<Integer, String> handleDuplicates(ImportRun run, List<PeselDuplicateDetector.DuplicatePesel> duplicates) {
+        if (run.mode() == ImportMode.UPSERT) {
+            duplicates = duplicates.stream().filter(duplicate -> duplicate.firstRow() != null).toList();
+        }
+        if (run.skipInvalidRows()) {
+            return describeByRow(duplicates);
+        }
+        rejectDuplicates(duplicates);
+        return Map.of();
+    }
+
+    private ImportSummary importNdjson(ImportRun run, Path filepath) {
+        try (MappedNdjsonFile file = MappedNdjsonFile.open(filepath, properties.getRangeSizeBytes(), run.checkpoint());
+             ImportRejectionFile rejections = run.skipInvalidRows() ? openRejectionFile(run, MappedNdjsonFile.COLUMNS) : null) {
+            Map<Integer, String> duplicateRows = Map.of();
+            if (properties.isDuplicateCheck()) {
+                CommittedRows committedRows = run.committedRows();
+                duplicateRows = handleDuplicates(run, peselDuplicateDetector.findDuplicates(file,
+                        reader -> committedRows.contains(reader.recordLine()) ? null : commandPesel(reader.field(0)),
+                        properties.resolveParserThreads()));
+            }
+            return runPipeline(run, file, MappedNdjsonFile.COLUMNS.length, rejections, ndjsonRowParser(duplicateRows));
+        } catch (IOException e) {
+            throw new ImportProcessingException("Failed to read NDJSON file", e);
+        }
+    }
+
+    private ImportSummary importPositions(ImportRun run, Path storedFile) {
+        boolean ndjson = run.format() == ImportFormat.NDJSON;
+        try {
+            if (ImportCompression.detect(storedFile) != ImportCompression.NONE) {
+                return importPositionStream(run, storedFile, ndjson);
+            }
+            try (ImportRecordFile file = ndjson
+                    ? MappedNdjsonFile.open(storedFile, properties.getRangeSizeBytes(), null)
+                    : MappedCsvFile.open(storedFile, properties.getRangeSizeBytes(), properties.resolveParserThreads(), null)) {
+                String[] columns = ndjson ? MappedNdjsonFile.COLUMNS : ((MappedCsvFile) file).header().columns();
+                PositionImporter.PositionParser parser = ndjson
+                        ? positionImporter.jsonParser()
+                        : positionImporter.csvParser(((MappedCsvFile) file).header());
+                long remainingBytes = file.ranges().stream().mapToLong(range -> range.end() - range.start()).sum();
+                return importPositions(run, columns, remainingBytes, (rejections, commitListener, progressListener) ->
+                        positionImporter.run(file, columns.length, parser, properties.resolveParserThreads(), run.committedRows(),
+                                run.batchSizer(), rejections, commitListener, progressListener));
+            }
+        } catch (IOException e) {
+            throw new ImportProcessingException("Failed to read position import file", e);
+        }
+    }
+
+    private ImportSummary importPositionStream(ImportRun run, Path storedFile, boolean ndjson) throws IOException {
+        try (ImportStream stream = ImportStream.open(storedFile);
+             ImportRecordReader reader = ndjson ? stream.ndjsonRecords() : stream.csvRecords()) {
+            String[] columns = MappedNdjsonFile.COLUMNS;
+            PositionImporter.PositionParser parser = positionImporter.jsonParser();
+            if (!ndjson) {
+                if (!reader.nextRecord()) {
+                    throw new ImportProcessingException("CSV file is empty");
+                }
+                CsvHeader header = new CsvHeader(reader.fields(0));
+                columns = header.columns();
+                parser = positionImporter.csvParser(header);
+            }
+            int columnCount = columns.length;
+            PositionImporter.PositionParser rowParser = parser;
+            return importPositions(run, columns, Files.size(storedFile), (rejections, commitListener, progressListener) ->
+                    positionImporter.run(reader, stream, columnCount, properties.getRangeSizeBytes(), rowParser,
+                            properties.resolveParserThreads(), run.committedRows(), run.batchSizer(), rejections,
+                            commitListener, progressListener));
+        }
+    }
+
+    private ImportSummary importPositions(ImportRun run, String[] columns, long remainingBytes, PositionRun execution)
+            throws IOException {
+        try (ImportRejectionFile rejections = run.skipInvalidRows() ? openRejectionFile(run, columns) : null) {
+            Long jobId = run.jobId();
+            LiveImportProgress progress = progressRegistry.start(jobId, run.committedRows().records(), remainingBytes);
+            long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getProgressFlushIntervalMillis());
+            AtomicInteger chunkIndexes = new AtomicInteger(importChunkRepository.findLastChunkIndex(jobId) + 1);
+
+            long start = System.nanoTime();
+            PositionImporter.PositionImportSummary summary = execution.run(rejections == null ? null : rejections::reject,
+                    (firstLine, endLine, records) -> importChunkRepository.save(new ImportChunk(jobId,
+                            chunkIndexes.getAndIncrement(), firstLine, endLine, records, nodeName())),
+                    (records, bytes) -> recordProgress(jobId, progress, records, bytes, flushIntervalNanos));
+            double durationSeconds = Math.max(1e-9, (System.nanoTime() - start) / 1_000_000_000.0);
+            int rejected = rejections == null ? 0 : rejections.count();
+            return new ImportSummary(summary.totalRecords(), rejected, 0, summary.unchangedRecords(),
+                    summary.totalRecords() / durationSeconds, rejected > 0 ? rejections.path() : null);
+        }
+    }
+
+    private ImportDryRun.Result dryRunCsv(Path filepath, ImportMode mode, int maxErrors) throws IOException {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        try (MappedCsvFile file = MappedCsvFile.open(filepath, properties.getRangeSizeBytes(), parallelism, null)) {
+            CsvHeader header = file.header();
+            header.validateRequiredColumns();
+            Map<Integer, String> duplicateRows = Map.of();
+            if (properties.isDuplicateCheck()) {
+                duplicateRows = dryRunDuplicates(peselDuplicateDetector.findDuplicates(file, parallelism), mode);
+            }
+            Map<Integer, String> rejectedDuplicates = duplicateRows;
+            return dryRun((values, rowNumber) -> mapToPerson(header, values, rowNumber, rejectedDuplicates), maxErrors)
+                    .run(file, header.columnCount(), parallelism);
+        }
+    }
+
+    private ImportDryRun.Result dryRunCsv(MultipartFile upload, ImportCompression compression, ImportMode mode,
+                                          int maxErrors) throws IOException {
+        try (ImportStream stream = ImportStream.of(upload.getInputStream(), compression);
+             ImportRecordReader reader = stream.csvRecords()) {
+            if (!reader.nextRecord()) {
+                throw new ImportProcessingException("CSV file is empty");
+            }
+            CsvHeader header = new CsvHeader(reader.fields(0));
+            header.validateRequiredColumns();
+            Map<Integer, String> duplicateRows = Map.of();
+            if (properties.isDuplicateCheck()) {
+                int peselIndex = header.indexOf("pesel");
+                duplicateRows = dryRunDuplicates(streamDuplicates(upload, compression, false,
+                        records -> records.field(peselIndex)), mode);
+            }
+            Map<Integer, String> rejectedDuplicates = duplicateRows;
+            return dryRun((values, rowNumber) -> mapToPerson(header, values, rowNumber, rejectedDuplicates), maxErrors)
+                    .run(reader, header.columnCount());
+        }
+    }
+
+    private ImportDryRun.Result dryRunNdjson(Path filepath, ImportMode mode, int maxErrors) throws IOException {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        try (MappedNdjsonFile file = MappedNdjsonFile.open(filepath, properties.getRangeSizeBytes(), null)) {
+            Map<Integer, String> duplicateRows = Map.of();
+            if (properties.isDuplicateCheck()) {
+                duplicateRows = dryRunDuplicates(peselDuplicateDetector.findDuplicates(file,
+                        reader -> commandPesel(reader.field(0)), parallelism), mode);
+            }
+            return dryRunNdjson(duplicateRows, maxErrors).run(file, MappedNdjsonFile.COLUMNS.length, parallelism);
         }
     }
 
-    private long reportProgressIfNeeded(Long jobId, long processed, long lastReported) {
-        if (processed <= lastReported) {
-            return lastReported;
+    private ImportDryRun.Result dryRunNdjson(MultipartFile upload, ImportCompression compression, ImportMode mode,
+                                             int maxErrors) throws IOException {
+        Map<Integer, String> duplicateRows = Map.of();
+        if (properties.isDuplicateCheck()) {
+            duplicateRows = dryRunDuplicates(streamDuplicates(upload, compression, true,
+                    records -> commandPesel(records.field(0))), mode);
+        }
+        try (ImportStream stream = ImportStream.of(upload.getInputStream(), compression);
+             ImportRecordReader reader = stream.ndjsonRecords()) {
+            return dryRunNdjson(duplicateRows, maxErrors).run(reader, MappedNdjsonFile.COLUMNS.length);
+        }
+    }
+
+    private ImportDryRun dryRunNdjson(Map<Integer, String> duplicateRows, int maxErrors) {
+        return dryRun(ndjsonRowParser(duplicateRows), maxErrors);
+    }
+
+    private PersonImportPipeline.RowParser ndjsonRowParser(Map<Integer, String> duplicateRows) {
+        return (values, rowNumber) -> {
+            String duplicate = duplicateRows.get(rowNumber);
+            if (duplicate != null) {
+                throw new ImportProcessingException(duplicate);
+            }
+            return commandToPerson(values[0], rowNumber);
+        };
+    }
+
+    private List<PeselDuplicateDetector.DuplicatePesel> streamDuplicates(MultipartFile upload, ImportCompression compression,
+                                                                         boolean ndjson,
+                                                                         PeselDuplicateDetector.PeselReader peselReader) throws IOException {
+        try (ImportStream stream = ImportStream.of(upload.getInputStream(), compression);
+             ImportRecordReader records = ndjson ? stream.ndjsonRecords() : stream.csvRecords()) {
+            if (!ndjson && !records.nextRecord()) {
+                return List.of();
+            }
+            return peselDuplicateDetector.findDuplicates(records, peselReader);
+        }
+    }
+
+    private Map<Integer, String> dryRunDuplicates(List<PeselDuplicateDetector.DuplicatePesel> duplicates, ImportMode mode) {
+        if (mode == ImportMode.UPSERT) {
+            duplicates = duplicates.stream().filter(duplicate -> duplicate.firstRow() != null).toList();
+        }
+        return describeByRow(duplicates);
+    }
+
+    private ImportDryRun dryRun(PersonImportPipeline.RowParser rowParser, int maxErrors) {
+        return new ImportDryRun(rowParser, person -> personTypeRegistry.getByEntity(person).getType(), maxErrors);
+    }
+
+    private ImportSummary runPipeline(ImportRun run, ImportRecordFile file, int columnCount, ImportRejectionFile rejections,
+                                      PersonImportPipeline.RowParser rowParser) {
+        long remainingBytes = file.ranges().stream().mapToLong(range -> range.end() - range.start()).sum();
+        return runPipeline(run, remainingBytes, rejections, rowParser,
+                (pipeline, initialRecords) -> pipeline.run(file, columnCount, initialRecords, run.committedRows()));
+    }
+
+    private ImportSummary runPipeline(ImportRun run, ImportStream stream, ImportRecordReader reader, int columnCount,
+                                      long remainingBytes, ImportRejectionFile rejections, PersonImportPipeline.RecordScreen screen,
+                                      PersonImportPipeline.RowParser rowParser) {
+        return runPipeline(run, remainingBytes, rejections, rowParser,
+                (pipeline, initialRecords) -> pipeline.runSequential(reader, stream, columnCount, initialRecords,
+                        run.committedRows(), screen));
+    }
+
+    private ImportSummary runPipeline(ImportRun run, long remainingBytes, ImportRejectionFile rejections,
+                                      PersonImportPipeline.RowParser rowParser,
+                                      ToLongBiFunction<PersonImportPipeline, Integer> execution) {
+        Long jobId = run.jobId();
+        long initialRecords = Math.max(run.checkpoint() == null ? 0 : run.checkpoint().records(), run.committedRows().records());
+        LiveImportProgress progress = progressRegistry.start(jobId, initialRecords, remainingBytes);
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getProgressFlushIntervalMillis());
+        AtomicInteger chunkIndexes = new AtomicInteger(importChunkRepository.findLastChunkIndex(jobId) + 1);
+        PersonImportPipeline pipeline = new PersonImportPipeline(
+                "persons-import-" + jobId,
+                properties,
+                transactionTemplate,
+                run.batchSizer()::currentSize,
+                (values, rowNumber) -> parseRow(rowParser, values, rowNumber),
+                batch -> writeBatch(run, batch),
+                (records, bytes) -> recordProgress(jobId, progress, records, bytes, flushIntervalNanos),
+                reached -> saveCheckpoint(jobId, reached),
+                (firstLine, endLine, records) -> importChunkRepository.save(new ImportChunk(jobId, chunkIndexes.getAndIncrement(),
+                        firstLine, endLine, records, nodeName())),
+                rejections == null ? null : rejections::reject);
+
+        long start = System.nanoTime();
+        long processed = execution.applyAsLong(pipeline, (int) initialRecords);
+        double durationSeconds = Math.max(1e-9, (System.nanoTime() - start) / 1_000_000_000.0);
+        double throughput = processed / durationSeconds;
+        if (properties.getMinimumTps() > 0 && throughput < properties.getMinimumTps()) {
+            log.warn("Import throughput {} rows/s below configured minimum {}", String.format(Locale.ROOT, "%.2f", throughput), properties.getMinimumTps());
+        }
+        if (processed > Integer.MAX_VALUE) {
+            throw new ImportProcessingException("Imported record count exceeds supported limit");
+        }
+        int rejected = rejections == null ? 0 : rejections.count();
+        return new ImportSummary((int) processed, rejected, run.updatedRecords().intValue(), run.unchangedRecords().intValue(),
+                throughput, rejected > 0 ? rejections.path() : null);
+    }
+
+    private ImportRejectionFile openRejectionFile(ImportRun run, String[] columns) throws IOException {
+        Path path = rejectionFilePath(run.jobId());
+        Files.createDirectories(path.getParent());
+        ImportCheckpoint checkpoint = run.checkpoint();
+        CommittedRows committedRows = run.committedRows();
+        if (checkpoint == null && committedRows.isEmpty()) {
+            return ImportRejectionFile.create(path, columns);
+        }
+        return ImportRejectionFile.resume(path, columns,
+                row -> checkpoint != null && row < checkpoint.row() || committedRows.contains(row));
+    }
+
+    private Map<Integer, String> describeByRow(List<PeselDuplicateDetector.DuplicatePesel> duplicates) {
+        Map<Integer, String> byRow = new HashMap<>();
+        for (PeselDuplicateDetector.DuplicatePesel duplicate : duplicates) {
+            byRow.put(duplicate.row(), duplicate.describe());
+        }
+        return byRow;
+    }
+
+    private void rejectDuplicates(List<PeselDuplicateDetector.DuplicatePesel> duplicates) {
+        if (duplicates.isEmpty()) {
+            return;
+        }
+        StringBuilder message = new StringBuilder("Duplicate PESEL values found: ");
+        for (int i = 0; i < Math.min(duplicates.size(), MAX_REPORTED_DUPLICATES); i++) {
+            if (i > 0) {
+                message.append("; ");
+            }
+            message.append(duplicates.get(i).describe());
+        }
+        if (duplicates.size() > MAX_REPORTED_DUPLICATES) {
+            message.append(" (and ").append(duplicates.size() - MAX_REPORTED_DUPLICATES).append(" more)");
+        }
+        throw new ImportProcessingException(message.toString());
+    }
+
+    private void recordProgress(Long jobId, LiveImportProgress progress, int records, long bytes, long flushIntervalNanos) {
+        progress.add(records, bytes);
+        if (progress.claimFlush(flushIntervalNanos)) {
+            updateProcessedRecords(jobId, progress.processedRecords());
         }
-        updateProcessedRecords(jobId, processed);
-        return processed;
     }
 
     private void updateProcessedRecords(Long jobId, long processed) {
@@ -205,13 +1109,58 @@ public class PersonCsvImportService {
         } catch (ArithmeticException ex) {
             throw new ImportProcessingException("Imported record count exceeds supported limit", ex);
         }
-        progressUpdateTransactionTemplate.executeWithoutResult(status -> {
-            ImportJob job = importJobRepository.findById(jobId)
-                    .orElseThrow(() -> new ImportJobNotFoundException(jobId));
-            job.setProcessedRecords(processedInt);
+        long start = System.nanoTime();
+        progressUpdateTransactionTemplate.executeWithoutResult(status -> importJobRepository.updateProcessedRecords(jobId, processedInt));
+        metrics.recordProgressUpdate(System.nanoTime() - start);
+    }
+
+    private void saveCheckpoint(Long jobId, ImportCheckpoint checkpoint) {
+        long start = System.nanoTime();
+        progressUpdateTransactionTemplate.executeWithoutResult(status ->
+                importJobRepository.advanceCheckpoint(jobId, checkpoint.offset(), checkpoint.row(), checkpoint.records()));
+        metrics.recordCheckpointUpdate(System.nanoTime() - start);
+    }
+
+    private void writeBatch(ImportRun run, List<Person> batch) {
+        if (run.mode() == ImportMode.UPSERT) {
+            upsertBatch(run, batch);
+            return;
+        }
+        int rows = batch.size();
+        run.batchSizer().record(rows, writeBatch(batch, properties.getWriter()));
+    }
+
+    private void upsertBatch(ImportRun run, List<Person> batch) {
+        int rows = batch.size();
+        long start = System.nanoTime();
+        PersonUpsertMerger.UpsertResult result = personUpsertMerger.merge(batch);
+        writeBatch(new ArrayList<>(result.inserts()), properties.getWriter());
+        run.batchSizer().record(rows, System.nanoTime() - start);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                run.updatedRecords().add(result.updated());
+                run.unchangedRecords().add(result.unchanged());
+            }
         });
     }
 
+    private long writeBatch(List<Person> batch, ImportProperties.WriterType writer) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int rows = batch.size();
+        long start = System.nanoTime();
+        if (writer == ImportProperties.WriterType.JDBC) {
+            jdbcPersonBatchWriter.write(batch);
+        } else {
+            persistBatch(batch);
+        }
+        long elapsed = System.nanoTime() - start;
+        metrics.recordBatchFlush(writer, rows, elapsed);
+        return elapsed;
+    }
+
     private void persistBatch(List<Person> batch) {
         if (batch.isEmpty()) {
             return;
@@ -222,68 +1171,89 @@ public class PersonCsvImportService {
         batch.clear();
     }
 
-    private Map<String, Integer> buildHeaderIndex(String[] headers) {
-        Map<String, Integer> index = new HashMap<>();
-        for (int i = 0; i < headers.length; i++) {
-            index.put(headers[i].trim().toLowerCase(Locale.ROOT), i);
-        }
-        return index;
+    private Person parseRow(PersonImportPipeline.RowParser rowParser, String[] values, int rowNumber) {
+        long start = System.nanoTime();
+        Person person = rowParser.parse(values, rowNumber);
+        metrics.recordRowParsed(System.nanoTime() - start);
+        return person;
     }
 
-    private void validateRequiredColumns(Map<String, Integer> headerIndex) {
-        String[] required = {"type", "firstname", "lastname", "pesel", "height", "weight", "email"};
-        for (String column : required) {
-            if (!headerIndex.containsKey(column)) {
-                throw new ImportProcessingException("Missing required column: " + column);
-            }
+    private Person mapToPerson(CsvHeader header, String[] values, int rowNumber, Map<Integer, String> duplicateRows) {
+        String duplicate = duplicateRows.get(rowNumber);
+        if (duplicate != null) {
+            throw new ImportProcessingException(duplicate);
         }
-    }
-
-    private Person mapToPerson(Map<String, Integer> headerIndex, String[] values, int rowNumber) {
-        Map<String, String> normalizedValues = extractValues(headerIndex, values);
-        PersonCsvRow row = new PersonCsvRow(normalizedValues, rowNumber);
+        PersonCsvRow row = new PersonCsvRow(header, values, rowNumber);
         PersonTypeModule<?, ?, ?> module = personTypeRegistry.getByType(row.type());
-        Person person = module.createFromCsv(row);
-        return person;
+        return module.createFromCsv(row);
     }
 
-    private Map<String, String> extractValues(Map<String, Integer> headerIndex, String[] values) {
-        Map<String, String> normalized = new HashMap<>();
-        headerIndex.forEach((column, index) -> {
-            String value = index != null && index < values.length ? values[index] : "";
-            normalized.put(column, value == null ? "" : value.trim());
-        });
-        return normalized;
+    private Person commandToPerson(String json, int lineNumber) {
+        CreatePersonCommand command = commandReader.read(json, lineNumber);
+        return personTypeRegistry.getByType(command.getType()).createFromCommandUsingBase(command);
     }
 
+    private String commandPesel(String json) {
+        CreatePersonCommand command = commandReader.readLenient(json);
+        return command != null ? command.getPesel() : null;
+    }
 
-    private String[] tokenize(String line, String delimiter, int expectedLength) {
-        String[] tokens = line.split(Pattern.quote(delimiter), -1);
-        if (expectedLength > 0 && tokens.length < expectedLength) {
-            tokens = java.util.Arrays.copyOf(tokens, expectedLength);
-        }
-        for (int i = 0; i < tokens.length; i++) {
-            if (tokens[i] == null) {
-                tokens[i] = "";
-            }
-            tokens[i] = tokens[i].trim();
-        }
-        return tokens;
+    private ImportJob markPending(Long jobId) {
+        return transactionTemplate.execute(status -> {
+            ImportJob job = importJobRepository.findById(jobId)
+                    .orElseThrow(() -> new ImportJobNotFoundException(jobId));
+            job.setStatus(ImportJobStatus.PENDING);
+            job.setOwnerNode(nodeName());
+            job.setDistributed(false);
+            job.setFinishedAt(null);
+            job.setErrorMessage(null);
+            return job;
+        });
     }
 
-    private void markInProgress(Long jobId) {
-        transactionTemplate.executeWithoutResult(status -> {
+    private ImportJob markInProgress(Long jobId, boolean resume) {
+        return transactionTemplate.execute(status -> {
             ImportJob job = importJobRepository.findById(jobId)
                     .orElseThrow(() -> new ImportJobNotFoundException(jobId));
             job.setStatus(ImportJobStatus.IN_PROGRESS);
+            job.setOwnerNode(nodeName());
             job.setStartedAt(OffsetDateTime.now());
             job.setFinishedAt(null);
             job.setErrorMessage(null);
-            job.setProcessedRecords(0);
             job.setTotalRecords(null);
+            job.setSuccessRecords(null);
+            job.setRejectedRecords(null);
+            job.setUpdatedRecords(null);
+            job.setUnchangedRecords(null);
+            job.setRejectionFilePath(null);
+            if (!resume) {
+                job.setCheckpointOffset(null);
+                job.setCheckpointRow(null);
+                job.setCheckpointRecords(null);
+            }
+            job.setProcessedRecords(job.getCheckpointOffset() == null ? 0 : job.getCheckpointRecords());
+            return job;
         });
     }
 
+    private ImportCheckpoint checkpointOf(ImportJob job) {
+        if (job.getCheckpointOffset() == null) {
+            return null;
+        }
+        return new ImportCheckpoint(job.getCheckpointOffset(), job.getCheckpointRow(), job.getCheckpointRecords());
+    }
+
+    private void saveBatchSizes(Long jobId, AdaptiveBatchSizer batchSizer) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> importJobRepository.findById(jobId).ifPresent(job -> {
+                job.setFinalBatchSize(batchSizer.currentSize());
+                job.setBatchSizeHistory(batchSizer.history());
+            }));
+        } catch (RuntimeException ex) {
+            log.warn("Could not record batch sizes for import job {}", jobId, ex);
+        }
+    }
+
     private void markCompleted(Long jobId, ImportSummary summary) {
         transactionTemplate.executeWithoutResult(status -> {
             ImportJob job = importJobRepository.findById(jobId)
@@ -292,6 +1262,11 @@ public class PersonCsvImportService {
             job.setFinishedAt(OffsetDateTime.now());
             job.setProcessedRecords(summary.totalRecords());
             job.setTotalRecords(summary.totalRecords());
+            job.setSuccessRecords(summary.totalRecords() - summary.rejectedRecords());
+            job.setRejectedRecords(summary.rejectedRecords());
+            job.setUpdatedRecords(summary.updatedRecords());
+            job.setUnchangedRecords(summary.unchangedRecords());
+            job.setRejectionFilePath(summary.rejectionFile() == null ? null : summary.rejectionFile().toString());
             job.setErrorMessage(null);
         });
     }
@@ -302,7 +1277,6 @@ public class PersonCsvImportService {
                     .orElseThrow(() -> new ImportJobNotFoundException(jobId));
             job.setStatus(ImportJobStatus.FAILED);
             job.setFinishedAt(OffsetDateTime.now());
-            job.setProcessedRecords(null);
             job.setTotalRecords(null);
             job.setErrorMessage(truncateMessage(throwable.getMessage()));
         });
@@ -318,6 +1292,20 @@ public class PersonCsvImportService {
         return message.substring(0, MAX_ERROR_MESSAGE_LENGTH);
     }
 
-    private record ImportSummary(int totalRecords, double throughput) {
+    @FunctionalInterface
+    private interface PositionRun {
+        PositionImporter.PositionImportSummary run(PersonImportPipeline.RejectionHandler rejections,
+                                                   PersonImportPipeline.CommitListener commitListener,
+                                                   PersonImportPipeline.ProgressListener progressListener);
+    }
+
+    private record ImportRun(Long jobId, ImportTarget target, ImportFormat format, ImportMode mode, ImportCheckpoint checkpoint,
+                             CommittedRows committedRows, boolean resume,
+                             boolean skipInvalidRows, AdaptiveBatchSizer batchSizer, LongAdder updatedRecords,
+                             LongAdder unchangedRecords) {
+    }
+
+    private record ImportSummary(int totalRecords, int rejectedRecords, int updatedRecords, int unchangedRecords, double throughput,
+                                 Path rejectionFile) {
     }
 }
@@ -5,57 +5,57 @@ import pl.kurs.test3r.exceptions.ImportProcessingException;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.Locale;
-import java.util.Map;
 
 public class PersonCsvRow {
 
-    private final Map<String, String> values;
+    private final CsvHeader header;
+    private final String[] values;
     private final int rowNumber;
 
-    public PersonCsvRow(Map<String, String> values, int rowNumber) {
+    public PersonCsvRow(CsvHeader header, String[] values, int rowNumber) {
+        this.header = header;
         this.values = values;
         this.rowNumber = rowNumber;
     }
 
+    public int rowNumber() {
+        return rowNumber;
+    }
+
     public String type() {
-        return required("type").toUpperCase(Locale.ROOT);
+        return required(header.typeIndex(), "type").toUpperCase(Locale.ROOT);
     }
 
     public String firstName() {
-        return required("firstname");
+        return required(header.firstNameIndex(), "firstname");
     }
 
     public String lastName() {
-        return required("lastname");
+        return required(header.lastNameIndex(), "lastname");
     }
 
     public String pesel() {
-        return required("pesel");
+        return required(header.peselIndex(), "pesel");
     }
 
     public double height() {
-        return parseDouble(required("height"), "height");
+        return parseDouble(required(header.heightIndex(), "height"), "height");
     }
 
     public double weight() {
-        return parseDouble(required("weight"), "weight");
+        return parseDouble(required(header.weightIndex(), "weight"), "weight");
     }
 
     public String email() {
-        return required("email");
+        return required(header.emailIndex(), "email");
     }
 
     public String required(String column) {
-        String value = values.get(column);
-        if (value == null || value.isBlank()) {
-            throw new ImportProcessingException("Missing value for column '" + column + "' at row " + rowNumber);
-        }
-        return value.trim();
+        return required(header.indexOf(column), column);
     }
 
     public String optional(String column) {
-        String value = values.get(column);
-        return value == null ? null : value.trim();
+        return value(header.indexOf(column));
     }
 
     public double requiredDouble(String column) {
@@ -72,7 +72,42 @@ public class PersonCsvRow {
     }
 
     public LocalDate requiredDate(String column) {
-        String value = required(column);
+        return parseDate(required(column), column);
+    }
+
+    public Long optionalLong(String column) {
+        String value = optional(column);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new ImportProcessingException("Invalid integer value in column '" + column + "' at row " + rowNumber);
+        }
+    }
+
+    public LocalDate optionalDate(String column) {
+        String value = optional(column);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return parseDate(value, column);
+    }
+
+    private String required(int index, String column) {
+        String value = value(index);
+        if (value == null || value.isBlank()) {
+            throw new ImportProcessingException("Missing value for column '" + column + "' at row " + rowNumber);
+        }
+        return value;
+    }
+
+    private String value(int index) {
+        return index >= 0 && index < values.length ? values[index] : null;
+    }
+
+    private LocalDate parseDate(String value, String column) {
         try {
             return LocalDate.parse(value);
         } catch (DateTimeParseException ex) {
@@ -87,4 +122,4 @@ public class PersonCsvRow {
             throw new ImportProcessingException("Invalid decimal value in column '" + column + "' at row " + rowNumber);
         }
     }
-}
\ No newline at end of file
+}
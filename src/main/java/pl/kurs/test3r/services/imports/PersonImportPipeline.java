@@ -0,0 +1,598 @@
+package pl.kurs.test3r.services.imports;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.DataException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.kurs.test3r.config.ImportProperties;
+import pl.kurs.test3r.exceptions.ImportProcessingException;
+import pl.kurs.test3r.models.person.Person;
+
+import java.io.IOException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntSupplier;
+
+public class PersonImportPipeline {
+
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final String name;
+    private final IntSupplier batchSize;
+    private final int parserThreads;
+    private final int writerThreads;
+    private final int rangeSizeBytes;
+    private final RowParser rowParser;
+    private final BatchWriter batchWriter;
+    private final ProgressListener progressListener;
+    private final CheckpointListener checkpointListener;
+    private final CommitListener commitListener;
+    private final RejectionHandler rejectionHandler;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int queueCapacity;
+    private final BlockingQueue<ParsedChunk> chunkQueue;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final AtomicLong persisted = new AtomicLong();
+
+    public PersonImportPipeline(String name,
+                                ImportProperties properties,
+                                TransactionTemplate transactionTemplate,
+                                IntSupplier batchSize,
+                                RowParser rowParser,
+                                BatchWriter batchWriter,
+                                ProgressListener progressListener,
+                                CheckpointListener checkpointListener,
+                                CommitListener commitListener,
+                                RejectionHandler rejectionHandler) {
+        this.name = name;
+        this.batchSize = batchSize;
+        this.parserThreads = properties.resolveParserThreads();
+        this.writerThreads = Math.max(1, properties.getWriterThreads());
+        this.rangeSizeBytes = Math.max(1, properties.getRangeSizeBytes());
+        this.queueCapacity = Math.max(1, properties.getQueueCapacity());
+        this.chunkQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.transactionTemplate = transactionTemplate;
+        this.rowParser = rowParser;
+        this.batchWriter = batchWriter;
+        this.progressListener = progressListener;
+        this.checkpointListener = checkpointListener;
+        this.commitListener = commitListener;
+        this.rejectionHandler = rejectionHandler;
+    }
+
+    public long run(ImportRecordFile file, int columnCount, int alreadyCommitted, CommittedRows committedRows) {
+        List<MappedCsvFile.Range> ranges = file.ranges();
+        ForkJoinPool parsers = new ForkJoinPool(parserThreads, new ParserThreadFactory(name), null, false);
+        try {
+            return execute(alreadyCommitted, new CheckpointTracker(ranges, alreadyCommitted),
+                    () -> parsers.invoke(new RangeParseTask(file, ranges, 0, ranges.size(), columnCount, committedRows)));
+        } finally {
+            parsers.shutdownNow();
+        }
+    }
+
+    public long runSequential(ImportRecordReader reader, ImportStream stream, int columnCount, int alreadyCommitted,
+                              CommittedRows committedRows, RecordScreen screen) {
+        return execute(alreadyCommitted, null, () -> parseSequential(reader, stream, columnCount, committedRows, screen));
+    }
+
+    private void parseSequential(ImportRecordReader reader, ImportStream stream, int columnCount, CommittedRows committedRows,
+                                 RecordScreen screen) {
+        BlockingQueue<RawChunk> rawQueue = new ArrayBlockingQueue<>(queueCapacity);
+        ExecutorService parsers = Executors.newFixedThreadPool(parserThreads, new StageThreadFactory(name + "-parser"));
+        try {
+            List<Future<?>> stages = new ArrayList<>(parserThreads);
+            for (int i = 0; i < parserThreads; i++) {
+                stages.add(parsers.submit(() -> runParser(rawQueue, screen)));
+            }
+            try {
+                readSequential(reader, stream, columnCount, committedRows, screen, rawQueue);
+            } finally {
+                for (int i = 0; i < parserThreads; i++) {
+                    putEndMarker(rawQueue, RawChunk.END);
+                }
+            }
+            awaitStages(stages);
+        } finally {
+            parsers.shutdownNow();
+        }
+    }
+
+    private long execute(int alreadyCommitted, CheckpointTracker tracker, Runnable parser) {
+        persisted.set(alreadyCommitted);
+        ExecutorService writers = Executors.newFixedThreadPool(writerThreads, new StageThreadFactory(name + "-writer"));
+        try {
+            List<Future<?>> stages = new ArrayList<>(writerThreads);
+            for (int i = 0; i < writerThreads; i++) {
+                stages.add(writers.submit(() -> runWriter(tracker)));
+            }
+
+            try {
+                parser.run();
+            } catch (RuntimeException ex) {
+                fail(ex);
+            } finally {
+                for (int i = 0; i < writerThreads; i++) {
+                    putEndMarker(chunkQueue, ParsedChunk.END);
+                }
+            }
+            awaitStages(stages);
+        } finally {
+            writers.shutdownNow();
+        }
+
+        Throwable cause = failure.get();
+        if (cause instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (cause != null) {
+            throw new ImportProcessingException("Import pipeline failed", cause);
+        }
+        return persisted.get();
+    }
+
+    private void parseRange(ImportRecordFile file, int index, int columnCount, CommittedRows committedRows) {
+        MappedCsvFile.Range range = file.ranges().get(index);
+        try (ImportRecordReader tokenizer = file.openRange(range)) {
+            ChunkBuilder chunk = new ChunkBuilder();
+            while (!isAborted() && tokenizer.nextRecord()) {
+                if (tokenizer.isBlankRecord() || committedRows.contains(tokenizer.recordLine())) {
+                    continue;
+                }
+                chunk.add(tokenizer.fields(columnCount), tokenizer.recordLine(), null);
+            }
+            if (!isAborted()) {
+                put(chunkQueue, chunk.build(index, range.firstLine(), range.endLine(), range.end() - range.start()));
+            }
+        } catch (IOException ex) {
+            fail(new ImportProcessingException("Failed to read import file", ex));
+        } catch (RuntimeException ex) {
+            fail(ex);
+        }
+    }
+
+    private void readSequential(ImportRecordReader reader, ImportStream stream, int columnCount, CommittedRows committedRows,
+                                RecordScreen screen, BlockingQueue<RawChunk> rawQueue) {
+        try {
+            int index = 0;
+            long storedStart = stream.storedBytes();
+            RawChunk chunk = new RawChunk(index++);
+            while (!isAborted() && reader.nextRecord()) {
+                int rowNumber = reader.recordLine();
+                if (reader.isBlankRecord() || committedRows.contains(rowNumber)) {
+                    continue;
+                }
+                String[] values = reader.fields(columnCount);
+                chunk.add(values, rowNumber, screen == null ? null : screen.screenRecord(values, rowNumber));
+                if (chunk.chars >= rangeSizeBytes) {
+                    chunk.bytes = stream.storedBytes() - storedStart;
+                    put(rawQueue, chunk);
+                    storedStart = stream.storedBytes();
+                    chunk = new RawChunk(index++);
+                }
+            }
+            if (!isAborted() && !chunk.isEmpty()) {
+                chunk.bytes = stream.storedBytes() - storedStart;
+                put(rawQueue, chunk);
+            }
+        } catch (IOException ex) {
+            fail(new ImportProcessingException("Failed to read import file", ex));
+        } catch (RuntimeException ex) {
+            fail(ex);
+        }
+    }
+
+    private void runParser(BlockingQueue<RawChunk> rawQueue, RecordScreen screen) {
+        try {
+            while (true) {
+                RawChunk raw = take(rawQueue);
+                if (raw == RawChunk.END) {
+                    return;
+                }
+                if (!isAborted()) {
+                    put(chunkQueue, parseChunk(raw, screen));
+                }
+            }
+        } catch (RuntimeException ex) {
+            fail(ex);
+            drainUntilEnd(rawQueue, RawChunk.END);
+        }
+    }
+
+    private ParsedChunk parseChunk(RawChunk raw, RecordScreen screen) {
+        String[] chunkRejections = screen == null ? null : screen.screenChunk(raw.values, raw.rowNumbers());
+        ChunkBuilder chunk = new ChunkBuilder();
+        for (int i = 0; i < raw.values.size(); i++) {
+            String rejection = raw.rejections.get(i);
+            if (rejection == null && chunkRejections != null) {
+                rejection = chunkRejections[i];
+            }
+            chunk.add(raw.values.get(i), raw.rows.get(i), rejection);
+        }
+        return chunk.build(raw.index, raw.firstLine(), raw.endLine(), raw.bytes);
+    }
+
+    private void runWriter(CheckpointTracker tracker) {
+        try {
+            while (true) {
+                ParsedChunk chunk = take(chunkQueue);
+                if (chunk == ParsedChunk.END) {
+                    return;
+                }
+                if (isAborted()) {
+                    continue;
+                }
+                commitChunk(chunk);
+                int size = chunk.persons().size() + chunk.rejected();
+                persisted.addAndGet(size);
+                progressListener.onChunkCommitted(size, chunk.bytes());
+                ImportCheckpoint checkpoint = tracker == null ? null : tracker.commit(chunk.index(), size);
+                if (checkpoint != null) {
+                    checkpointListener.onCheckpoint(checkpoint);
+                }
+            }
+        } catch (RuntimeException ex) {
+            fail(ex);
+            drainUntilEnd(chunkQueue, ParsedChunk.END);
+        }
+    }
+
+    private void commitChunk(ParsedChunk chunk) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                writeChunk(chunk.persons());
+                int records = chunk.persons().size() + chunk.rejected();
+                if (records > 0) {
+                    commitListener.onCommit(chunk.firstLine(), chunk.endLine(), records);
+                }
+            });
+        } catch (RuntimeException ex) {
+            if (rejectionHandler == null || !isRowLevelFailure(ex)) {
+                throw ex;
+            }
+            commitRowByRow(chunk);
+        }
+    }
+
+    private void commitRowByRow(ParsedChunk chunk) {
+        for (int i = 0; i < chunk.persons().size(); i++) {
+            Person person = chunk.persons().get(i);
+            person.setId(null);
+            person.setVersion(null);
+            try {
+                int rowNumber = chunk.rows().get(i).rowNumber();
+                transactionTemplate.executeWithoutResult(status -> {
+                    writeChunk(List.of(person));
+                    commitListener.onCommit(rowNumber, rowNumber + 1, 1);
+                });
+            } catch (RuntimeException ex) {
+                if (!isRowLevelFailure(ex)) {
+                    throw ex;
+                }
+                ParsedRow row = chunk.rows().get(i);
+                rejectionHandler.reject(row.rowNumber(), row.values(), describe(mostSpecificCause(ex)));
+            }
+        }
+    }
+
+    private void writeChunk(List<Person> persons) {
+        int from = 0;
+        while (from < persons.size()) {
+            int to = Math.min(persons.size(), from + Math.max(1, batchSize.getAsInt()));
+            batchWriter.write(new ArrayList<>(persons.subList(from, to)));
+            from = to;
+        }
+    }
+
+    private <T> void put(BlockingQueue<T> queue, T item) {
+        try {
+            while (!queue.offer(item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (isAborted()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ImportProcessingException("Import pipeline interrupted", ex);
+        }
+    }
+
+    private <T> void putEndMarker(BlockingQueue<T> queue, T marker) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(marker);
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> T take(BlockingQueue<T> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ImportProcessingException("Import pipeline interrupted", ex);
+        }
+    }
+
+    private <T> void drainUntilEnd(BlockingQueue<T> queue, T marker) {
+        T item;
+        do {
+            item = take(queue);
+        } while (item != marker);
+    }
+
+    private void awaitStages(List<Future<?>> stages) {
+        for (Future<?> stage : stages) {
+            try {
+                stage.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                fail(ex);
+                return;
+            } catch (ExecutionException ex) {
+                fail(ex.getCause());
+            }
+        }
+    }
+
+    private static boolean isRowLevelFailure(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataIntegrityViolationException
+                    || cause instanceof OptimisticLockingFailureException
+                    || cause instanceof ConstraintViolationException
+                    || cause instanceof DataException
+                    || cause instanceof SQLIntegrityConstraintViolationException
+                    || cause instanceof jakarta.validation.ConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Throwable mostSpecificCause(Throwable failure) {
+        Throwable specific = failure;
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null) {
+                specific = cause;
+            }
+        }
+        return specific;
+    }
+
+    private static String describe(Throwable failure) {
+        return failure.getMessage() != null ? failure.getMessage() : failure.getClass().getSimpleName();
+    }
+
+    private boolean isAborted() {
+        return failure.get() != null;
+    }
+
+    private void fail(Throwable cause) {
+        failure.compareAndSet(null, cause);
+    }
+
+    @FunctionalInterface
+    public interface RowParser {
+        Person parse(String[] values, int rowNumber);
+    }
+
+    @FunctionalInterface
+    public interface BatchWriter {
+        void write(List<Person> batch);
+    }
+
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onChunkCommitted(int records, long bytes);
+    }
+
+    @FunctionalInterface
+    public interface CheckpointListener {
+        void onCheckpoint(ImportCheckpoint checkpoint);
+    }
+
+    @FunctionalInterface
+    public interface CommitListener {
+        void onCommit(int firstLine, int endLine, int records);
+    }
+
+    @FunctionalInterface
+    public interface RejectionHandler {
+        void reject(int rowNumber, String[] values, String reason);
+    }
+
+    public interface RecordScreen {
+        String screenRecord(String[] values, int rowNumber);
+
+        String[] screenChunk(List<String[]> values, int[] rowNumbers);
+    }
+
+    private record ParsedRow(int rowNumber, String[] values) {
+    }
+
+    private record ParsedChunk(int index, int firstLine, int endLine, long bytes, List<Person> persons, List<ParsedRow> rows,
+                               int rejected) {
+        static final ParsedChunk END = new ParsedChunk(-1, 0, 0, 0, List.of(), List.of(), 0);
+    }
+
+    private static final class RawChunk {
+
+        static final RawChunk END = new RawChunk(-1);
+
+        private final int index;
+        private final List<String[]> values = new ArrayList<>();
+        private final List<Integer> rows = new ArrayList<>();
+        private final List<String> rejections = new ArrayList<>();
+        private long chars;
+        private long bytes;
+
+        RawChunk(int index) {
+            this.index = index;
+        }
+
+        void add(String[] record, int rowNumber, String rejection) {
+            values.add(record);
+            rows.add(rowNumber);
+            rejections.add(rejection);
+            for (String value : record) {
+                chars += value == null ? 1 : value.length() + 1;
+            }
+        }
+
+        boolean isEmpty() {
+            return rows.isEmpty();
+        }
+
+        int firstLine() {
+            return rows.get(0);
+        }
+
+        int endLine() {
+            return rows.get(rows.size() - 1) + 1;
+        }
+
+        int[] rowNumbers() {
+            return rows.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private final class ChunkBuilder {
+
+        private final List<Person> persons = new ArrayList<>();
+        private final List<ParsedRow> rows = new ArrayList<>();
+        private int rejected;
+
+        void add(String[] values, int rowNumber, String rejection) {
+            if (rejectionHandler == null) {
+                persons.add(parse(values, rowNumber, rejection));
+                return;
+            }
+            try {
+                persons.add(parse(values, rowNumber, rejection));
+                rows.add(new ParsedRow(rowNumber, values));
+            } catch (RuntimeException ex) {
+                rejectionHandler.reject(rowNumber, values, describe(ex));
+                rejected++;
+            }
+        }
+
+        private Person parse(String[] values, int rowNumber, String rejection) {
+            if (rejection != null) {
+                throw new ImportProcessingException(rejection);
+            }
+            return rowParser.parse(values, rowNumber);
+        }
+
+        ParsedChunk build(int index, int firstLine, int endLine, long bytes) {
+            return new ParsedChunk(index, firstLine, endLine, bytes, persons, rows, rejected);
+        }
+    }
+
+    private static final class CheckpointTracker {
+
+        private final List<MappedCsvFile.Range> ranges;
+        private final int[] committedRecords;
+        private int watermark;
+        private int records;
+
+        CheckpointTracker(List<MappedCsvFile.Range> ranges, int alreadyCommitted) {
+            this.ranges = ranges;
+            this.committedRecords = new int[ranges.size()];
+            Arrays.fill(committedRecords, -1);
+            this.records = alreadyCommitted;
+        }
+
+        synchronized ImportCheckpoint commit(int index, int size) {
+            committedRecords[index] = size;
+            int before = watermark;
+            while (watermark < committedRecords.length && committedRecords[watermark] >= 0) {
+                records += committedRecords[watermark];
+                watermark++;
+            }
+            if (watermark == before) {
+                return null;
+            }
+            MappedCsvFile.Range last = ranges.get(watermark - 1);
+            return new ImportCheckpoint(last.end(), last.endLine(), records);
+        }
+    }
+
+    private final class RangeParseTask extends RecursiveAction {
+
+        private final ImportRecordFile file;
+        private final List<MappedCsvFile.Range> ranges;
+        private final int from;
+        private final int to;
+        private final int columnCount;
+        private final CommittedRows committedRows;
+
+        RangeParseTask(ImportRecordFile file, List<MappedCsvFile.Range> ranges, int from, int to, int columnCount,
+                       CommittedRows committedRows) {
+            this.file = file;
+            this.ranges = ranges;
+            this.from = from;
+            this.to = to;
+            this.columnCount = columnCount;
+            this.committedRows = committedRows;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RangeParseTask(file, ranges, from, middle, columnCount, committedRows),
+                        new RangeParseTask(file, ranges, middle, to, columnCount, committedRows));
+            } else if (to > from && !isAborted()) {
+                parseRange(file, from, columnCount, committedRows);
+            }
+        }
+    }
+
+    private static final class ParserThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+
+        private final String prefix;
+
+        ParserThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(prefix + "-parser-" + thread.getPoolIndex());
+            return thread;
+        }
+    }
+
+    private static final class StageThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        StageThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package pl.kurs.test3r.services.imports;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import pl.kurs.test3r.models.person.Person;
+import pl.kurs.test3r.repositories.PersonRepository;
+import pl.kurs.test3r.services.person.PersonTypeModule;
+import pl.kurs.test3r.services.person.PersonTypeRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class PersonUpsertMerger {
+
+    private final PersonRepository personRepository;
+    private final PersonTypeRegistry personTypeRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public PersonUpsertMerger(PersonRepository personRepository, PersonTypeRegistry personTypeRegistry) {
+        this.personRepository = personRepository;
+        this.personTypeRegistry = personTypeRegistry;
+    }
+
+    public UpsertResult merge(List<Person> batch) {
+        if (batch.isEmpty()) {
+            return new UpsertResult(List.of(), 0, 0);
+        }
+        Map<String, Person> existing = new HashMap<>();
+        for (Person person : personRepository.findAllByPeselIn(batch.stream().map(Person::getPesel).toList())) {
+            existing.put(person.getPesel(), person);
+        }
+
+        List<Person> inserts = new ArrayList<>();
+        int updated = 0;
+        int unchanged = 0;
+        for (Person incoming : batch) {
+            Person current = existing.get(incoming.getPesel());
+            if (current == null) {
+                inserts.add(incoming);
+                continue;
+            }
+            PersonTypeModule<?, ?, ?> module = personTypeRegistry.getByEntity(current);
+            if (!current.getClass().equals(incoming.getClass())) {
+                throw new DataIntegrityViolationException("Person with PESEL " + incoming.getPesel() + " is a " + module.getType()
+                        + " and cannot be imported as " + personTypeRegistry.getByEntity(incoming).getType());
+            }
+            if (Arrays.equals(fieldValues(module, current), fieldValues(module, incoming))) {
+                unchanged++;
+                continue;
+            }
+            module.applyImportedUsingBase(current, incoming);
+            updated++;
+        }
+        if (updated > 0) {
+            entityManager.flush();
+        }
+        entityManager.clear();
+        return new UpsertResult(inserts, updated, unchanged);
+    }
+
+    private <P extends Person> Object[] fieldValues(PersonTypeModule<?, ?, P> module, Person person) {
+        Object[] subtype = module.getJdbcSubtypeInsert().values().apply(module.getPersonClass().cast(person));
+        Object[] values = Arrays.copyOf(new Object[]{
+                person.getFirstName(),
+                person.getLastName(),
+                person.getHeight(),
+                person.getWeight(),
+                person.getEmail()
+        }, 5 + subtype.length);
+        System.arraycopy(subtype, 0, values, 5, subtype.length);
+        return values;
+    }
+
+    public record UpsertResult(List<Person> inserts, int updated, int unchanged) {
+    }
+}
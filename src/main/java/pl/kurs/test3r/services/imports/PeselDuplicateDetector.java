@@ -0,0 +1,305 @@
+package pl.kurs.test3r.services.imports;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import pl.kurs.test3r.exceptions.ImportProcessingException;
+import pl.kurs.test3r.repositories.PersonRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+@Component
+public class PeselDuplicateDetector {
+
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+    private static final int LOOKUP_BATCH_SIZE = 1000;
+    private static final int SCAN_FETCH_SIZE = 1000;
+    private static final int SCREEN_INITIAL_SIZE = 1 << 16;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PersonRepository personRepository;
+
+    public PeselDuplicateDetector(JdbcTemplate jdbcTemplate, PersonRepository personRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.personRepository = personRepository;
+    }
+
+    public List<DuplicatePesel> findDuplicates(MappedCsvFile file, int parallelism) {
+        int peselIndex = file.header().indexOf("pesel");
+        return findDuplicates(file, reader -> reader.field(peselIndex), parallelism);
+    }
+
+    public List<DuplicatePesel> findDuplicates(ImportRecordFile file, PeselReader peselReader, int parallelism) {
+        List<MappedCsvFile.Range> ranges = file.ranges();
+        RangePesels[] scanned = new RangePesels[ranges.size()];
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            pool.invoke(new ScanTask(file, peselReader, scanned, 0, scanned.length));
+        } catch (UncheckedIOException ex) {
+            throw new ImportProcessingException("Failed to read import file", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return findDuplicates(scanned);
+    }
+
+    public List<DuplicatePesel> findDuplicates(ImportRecordReader reader, PeselReader peselReader) {
+        try {
+            return findDuplicates(new RangePesels[]{scan(reader, peselReader)});
+        } catch (IOException ex) {
+            throw new ImportProcessingException("Failed to read import file", ex);
+        }
+    }
+
+    public PersonImportPipeline.RecordScreen streamingScreen(Function<String[], String> peselOf, boolean existingAllowed) {
+        return new StreamingScreen(peselOf, existingAllowed);
+    }
+
+    private List<DuplicatePesel> findDuplicates(RangePesels[] scanned) {
+        int total = 0;
+        for (RangePesels range : scanned) {
+            total += range.size();
+        }
+        List<DuplicatePesel> duplicates = new ArrayList<>();
+        PeselSet seen = new PeselSet(total);
+        for (RangePesels range : scanned) {
+            for (int i = 0; i < range.size(); i++) {
+                int firstRow = seen.addIfAbsent(range.keys()[i], range.rows()[i]);
+                if (firstRow >= 0) {
+                    duplicates.add(new DuplicatePesel(PeselSet.pesel(range.keys()[i]), range.rows()[i], firstRow));
+                }
+            }
+        }
+
+        duplicates.addAll(findExisting(scanned));
+        duplicates.sort(Comparator.comparingInt(DuplicatePesel::row));
+        return duplicates;
+    }
+
+    private List<DuplicatePesel> findExisting(RangePesels[] scanned) {
+        BloomFilter existing = loadExisting();
+        if (existing == null) {
+            return List.of();
+        }
+        List<DuplicatePesel> duplicates = new ArrayList<>();
+        List<String> candidates = new ArrayList<>(LOOKUP_BATCH_SIZE);
+        List<Integer> candidateRows = new ArrayList<>(LOOKUP_BATCH_SIZE);
+        for (RangePesels range : scanned) {
+            for (int i = 0; i < range.size(); i++) {
+                if (!existing.mightContain(range.keys()[i])) {
+                    continue;
+                }
+                candidates.add(PeselSet.pesel(range.keys()[i]));
+                candidateRows.add(range.rows()[i]);
+                if (candidates.size() == LOOKUP_BATCH_SIZE) {
+                    confirm(candidates, candidateRows, duplicates);
+                }
+            }
+        }
+        confirm(candidates, candidateRows, duplicates);
+        return duplicates;
+    }
+
+    private BloomFilter loadExisting() {
+        Long stored = jdbcTemplate.queryForObject("select count(*) from persons", Long.class);
+        if (stored == null || stored == 0) {
+            return null;
+        }
+        BloomFilter existing = new BloomFilter(stored, BLOOM_FALSE_POSITIVE_RATE);
+        jdbcTemplate.query(connection -> streamingStatement(connection, "select pesel from persons"), resultSet -> {
+            long key = PeselSet.key(resultSet.getString(1));
+            if (PeselSet.isValidKey(key)) {
+                existing.put(key);
+            }
+        });
+        return existing;
+    }
+
+    private static PreparedStatement streamingStatement(Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        boolean mysql = "MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        statement.setFetchSize(mysql ? Integer.MIN_VALUE : SCAN_FETCH_SIZE);
+        return statement;
+    }
+
+    private void confirm(List<String> candidates, List<Integer> candidateRows, List<DuplicatePesel> duplicates) {
+        if (candidates.isEmpty()) {
+            return;
+        }
+        Set<String> confirmed = personRepository.findExistingPesels(candidates);
+        for (int i = 0; i < candidates.size(); i++) {
+            if (confirmed.contains(candidates.get(i))) {
+                duplicates.add(new DuplicatePesel(candidates.get(i), candidateRows.get(i), null));
+            }
+        }
+        candidates.clear();
+        candidateRows.clear();
+    }
+
+    private static RangePesels scanRange(ImportRecordFile file, MappedCsvFile.Range range, PeselReader peselReader) throws IOException {
+        try (ImportRecordReader reader = file.openRange(range)) {
+            return scan(reader, peselReader);
+        }
+    }
+
+    private static RangePesels scan(ImportRecordReader reader, PeselReader peselReader) throws IOException {
+        long[] keys = new long[256];
+        int[] rows = new int[256];
+        int size = 0;
+        while (reader.nextRecord()) {
+            if (reader.isBlankRecord()) {
+                continue;
+            }
+            String pesel = peselReader.read(reader);
+            long key = pesel == null ? 0 : PeselSet.key(pesel);
+            if (pesel == null || !PeselSet.isValidKey(key)) {
+                continue;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size << 1);
+                rows = Arrays.copyOf(rows, size << 1);
+            }
+            keys[size] = key;
+            rows[size] = reader.recordLine();
+            size++;
+        }
+        return new RangePesels(keys, rows, size);
+    }
+
+    @FunctionalInterface
+    public interface PeselReader {
+
+        String read(ImportRecordReader reader);
+    }
+
+    public record DuplicatePesel(String pesel, int row, Integer firstRow) {
+
+        public String describe() {
+            return firstRow == null
+                    ? "PESEL " + pesel + " at row " + row + " already exists"
+                    : "PESEL " + pesel + " at row " + row + " duplicates row " + firstRow;
+        }
+    }
+
+    private record RangePesels(long[] keys, int[] rows, int size) {
+    }
+
+    private final class StreamingScreen implements PersonImportPipeline.RecordScreen {
+
+        private final Function<String[], String> peselOf;
+        private final boolean existingAllowed;
+        private final PeselSet seen = new PeselSet(SCREEN_INITIAL_SIZE);
+        private BloomFilter existing;
+        private boolean existingLoaded;
+
+        StreamingScreen(Function<String[], String> peselOf, boolean existingAllowed) {
+            this.peselOf = peselOf;
+            this.existingAllowed = existingAllowed;
+        }
+
+        @Override
+        public String screenRecord(String[] values, int rowNumber) {
+            String pesel = peselOf.apply(values);
+            long key = pesel == null ? 0 : PeselSet.key(pesel);
+            if (pesel == null || !PeselSet.isValidKey(key)) {
+                return null;
+            }
+            int firstRow = seen.addIfAbsent(key, rowNumber);
+            return firstRow < 0 ? null : new DuplicatePesel(PeselSet.pesel(key), rowNumber, firstRow).describe();
+        }
+
+        @Override
+        public String[] screenChunk(List<String[]> values, int[] rowNumbers) {
+            String[] rejections = new String[values.size()];
+            if (existingAllowed || existing() == null) {
+                return rejections;
+            }
+            List<String> candidates = new ArrayList<>(LOOKUP_BATCH_SIZE);
+            List<Integer> candidateIndexes = new ArrayList<>(LOOKUP_BATCH_SIZE);
+            for (int i = 0; i < values.size(); i++) {
+                String pesel = peselOf.apply(values.get(i));
+                long key = pesel == null ? 0 : PeselSet.key(pesel);
+                if (pesel == null || !PeselSet.isValidKey(key) || !existing.mightContain(key)) {
+                    continue;
+                }
+                candidates.add(PeselSet.pesel(key));
+                candidateIndexes.add(i);
+                if (candidates.size() == LOOKUP_BATCH_SIZE) {
+                    rejectExisting(candidates, candidateIndexes, rowNumbers, rejections);
+                }
+            }
+            rejectExisting(candidates, candidateIndexes, rowNumbers, rejections);
+            return rejections;
+        }
+
+        private synchronized BloomFilter existing() {
+            if (!existingLoaded) {
+                existing = loadExisting();
+                existingLoaded = true;
+            }
+            return existing;
+        }
+
+        private void rejectExisting(List<String> candidates, List<Integer> candidateIndexes, int[] rowNumbers, String[] rejections) {
+            if (candidates.isEmpty()) {
+                return;
+            }
+            Set<String> existing = personRepository.findExistingPesels(candidates);
+            for (int i = 0; i < candidates.size(); i++) {
+                if (existing.contains(candidates.get(i))) {
+                    int index = candidateIndexes.get(i);
+                    rejections[index] = new DuplicatePesel(candidates.get(i), rowNumbers[index], null).describe();
+                }
+            }
+            candidates.clear();
+            candidateIndexes.clear();
+        }
+    }
+
+    private static final class ScanTask extends RecursiveAction {
+
+        private final ImportRecordFile file;
+        private final PeselReader peselReader;
+        private final RangePesels[] results;
+        private final int from;
+        private final int to;
+
+        ScanTask(ImportRecordFile file, PeselReader peselReader, RangePesels[] results, int from, int to) {
+            this.file = file;
+            this.peselReader = peselReader;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ScanTask(file, peselReader, results, from, middle),
+                        new ScanTask(file, peselReader, results, middle, to));
+                return;
+            }
+            if (from == to) {
+                return;
+            }
+            try {
+                results[from] = scanRange(file, file.ranges().get(from), peselReader);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package pl.kurs.test3r.services.imports;
+
+import java.util.Arrays;
+
+public class PeselSet {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] rows;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public PeselSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) Math.ceil(expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public static long key(String pesel) {
+        int length = pesel.length();
+        if (length == 0 || length > 17) {
+            return EMPTY;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = pesel.charAt(i);
+            if (c < '0' || c > '9') {
+                return EMPTY;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value << 5 | length;
+    }
+
+    public static boolean isValidKey(long key) {
+        return key != EMPTY;
+    }
+
+    public static String pesel(long key) {
+        int length = (int) (key & 31);
+        String digits = Long.toString(key >>> 5);
+        return "0".repeat(length - digits.length()) + digits;
+    }
+
+    public static long hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    public int addIfAbsent(long key, int row) {
+        int slot = (int) hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return rows[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        rows[slot] = row;
+        if (++size >= resizeAt) {
+            rehash();
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        rows = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldRows = rows;
+        allocate(oldKeys.length << 1);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                addIfAbsent(oldKeys[i], oldRows[i]);
+            }
+        }
+    }
+}
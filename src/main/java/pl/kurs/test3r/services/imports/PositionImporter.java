@@ -0,0 +1,444 @@
+package pl.kurs.test3r.services.imports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.Validator;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.kurs.test3r.commands.ImportPositionCommand;
+import pl.kurs.test3r.config.ImportProperties;
+import pl.kurs.test3r.exceptions.ImportProcessingException;
+import pl.kurs.test3r.models.person.Employee;
+import pl.kurs.test3r.models.position.PositionHistory;
+import pl.kurs.test3r.repositories.EmployeeRepository;
+import pl.kurs.test3r.repositories.PositionRepository;
+import pl.kurs.test3r.services.PositionService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+
+@Component
+public class PositionImporter {
+
+    private static final String[] REQUIRED_COLUMNS = {"positionname", "salary", "datefrom"};
+    private static final int LOOKUP_BATCH_SIZE = 1000;
+
+    private final EmployeeRepository employeeRepository;
+    private final PositionRepository positionRepository;
+    private final PositionService positionService;
+    private final ImportMetrics metrics;
+    private final TransactionTemplate transactionTemplate;
+    private final ImportCommandReader<ImportPositionCommand> commandReader;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public PositionImporter(EmployeeRepository employeeRepository,
+                            PositionRepository positionRepository,
+                            PositionService positionService,
+                            ImportMetrics metrics,
+                            PlatformTransactionManager transactionManager,
+                            ObjectMapper objectMapper,
+                            Validator validator) {
+        this.employeeRepository = employeeRepository;
+        this.positionRepository = positionRepository;
+        this.positionService = positionService;
+        this.metrics = metrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.commandReader = new ImportCommandReader<>(objectMapper, validator, ImportPositionCommand.class);
+    }
+
+    public PositionParser csvParser(CsvHeader header) {
+        for (String column : REQUIRED_COLUMNS) {
+            if (header.indexOf(column) < 0) {
+                throw new ImportProcessingException("Missing required column: " + column);
+            }
+        }
+        if (header.indexOf("employeeid") < 0 && header.indexOf("pesel") < 0) {
+            throw new ImportProcessingException("Missing required column: employeeid or pesel");
+        }
+        return (values, rowNumber) -> fromCsv(new PersonCsvRow(header, values, rowNumber));
+    }
+
+    public PositionParser jsonParser() {
+        return (values, rowNumber) -> fromJson(values[0], rowNumber);
+    }
+
+    public PositionImportSummary run(ImportRecordFile file,
+                                     int columnCount,
+                                     PositionParser parser,
+                                     int parallelism,
+                                     CommittedRows committedRows,
+                                     AdaptiveBatchSizer batchSizer,
+                                     PersonImportPipeline.RejectionHandler rejectionHandler,
+                                     PersonImportPipeline.CommitListener commitListener,
+                                     PersonImportPipeline.ProgressListener progressListener) {
+        List<MappedCsvFile.Range> ranges = file.ranges();
+        int window = Math.max(1, parallelism);
+        PositionImportSummary summary = new PositionImportSummary(committedRows.records(), 0, 0);
+        ForkJoinPool pool = new ForkJoinPool(window);
+        try {
+            for (int from = 0; from < ranges.size(); from += window) {
+                int offset = from;
+                RangeRows[] parsed = parse(pool, Math.min(window, ranges.size() - from),
+                        index -> parseRange(file, ranges.get(offset + index), columnCount, parser, committedRows, rejectionHandler));
+                summary = write(parsed, summary, batchSizer, rejectionHandler, commitListener, progressListener);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return summary;
+    }
+
+    public PositionImportSummary run(ImportRecordReader reader,
+                                     ImportStream stream,
+                                     int columnCount,
+                                     int rangeSizeBytes,
+                                     PositionParser parser,
+                                     int parallelism,
+                                     CommittedRows committedRows,
+                                     AdaptiveBatchSizer batchSizer,
+                                     PersonImportPipeline.RejectionHandler rejectionHandler,
+                                     PersonImportPipeline.CommitListener commitListener,
+                                     PersonImportPipeline.ProgressListener progressListener) {
+        int window = Math.max(1, parallelism);
+        PositionImportSummary summary = new PositionImportSummary(committedRows.records(), 0, 0);
+        ForkJoinPool pool = new ForkJoinPool(window);
+        try {
+            List<RawRange> raws = new ArrayList<>(window);
+            RawRange raw;
+            do {
+                raw = readRange(reader, stream, columnCount, rangeSizeBytes, committedRows);
+                if (raw != null) {
+                    raws.add(raw);
+                }
+                if (!raws.isEmpty() && (raw == null || raws.size() == window)) {
+                    RangeRows[] parsed = parse(pool, raws.size(), index -> parseRaw(raws.get(index), parser, rejectionHandler));
+                    raws.clear();
+                    summary = write(parsed, summary, batchSizer, rejectionHandler, commitListener, progressListener);
+                }
+            } while (raw != null);
+        } catch (IOException ex) {
+            throw new ImportProcessingException("Failed to read import file", ex);
+        } finally {
+            pool.shutdownNow();
+        }
+        return summary;
+    }
+
+    private PositionImportSummary write(RangeRows[] parsed, PositionImportSummary summary, AdaptiveBatchSizer batchSizer,
+                                        PersonImportPipeline.RejectionHandler rejectionHandler,
+                                        PersonImportPipeline.CommitListener commitListener,
+                                        PersonImportPipeline.ProgressListener progressListener) {
+        for (RangeRows rows : parsed) {
+            BatchResult result = writeRange(rows, batchSizer, rejectionHandler, commitListener);
+            summary = new PositionImportSummary(summary.totalRecords() + rows.records(),
+                    summary.importedRecords() + result.imported(), summary.unchangedRecords() + result.unchanged());
+            progressListener.onChunkCommitted(rows.records(), rows.bytes());
+        }
+        return summary;
+    }
+
+    private BatchResult writeRange(RangeRows parsed, AdaptiveBatchSizer batchSizer,
+                                   PersonImportPipeline.RejectionHandler rejectionHandler,
+                                   PersonImportPipeline.CommitListener commitListener) {
+        Map<Long, List<PositionRow>> byEmployee = groupByEmployee(parsed.rows(), rejectionHandler);
+        return transactionTemplate.execute(status -> {
+            int imported = 0;
+            int unchanged = 0;
+            List<Long> pending = new ArrayList<>();
+            int pendingRows = 0;
+            Iterator<Map.Entry<Long, List<PositionRow>>> iterator = byEmployee.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, List<PositionRow>> entry = iterator.next();
+                pending.add(entry.getKey());
+                pendingRows += entry.getValue().size();
+                if (pendingRows < batchSizer.currentSize() && iterator.hasNext()) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                BatchResult result = writeBatch(pending, byEmployee, rejectionHandler);
+                long elapsed = System.nanoTime() - start;
+                batchSizer.record(pendingRows, elapsed);
+                metrics.recordBatchFlush(ImportProperties.WriterType.JPA, pendingRows, elapsed);
+                imported += result.imported();
+                unchanged += result.unchanged();
+                pending.clear();
+                pendingRows = 0;
+            }
+            if (parsed.records() > 0) {
+                commitListener.onCommit(parsed.firstLine(), parsed.endLine(), parsed.records());
+            }
+            return new BatchResult(imported, unchanged);
+        });
+    }
+
+    private RangeRows[] parse(ForkJoinPool pool, int size, RangeParser rangeParser) {
+        RangeRows[] parsed = new RangeRows[size];
+        try {
+            pool.invoke(new ParseTask(rangeParser, parsed, 0, size));
+        } catch (UncheckedIOException ex) {
+            throw new ImportProcessingException("Failed to read import file", ex.getCause());
+        }
+        return parsed;
+    }
+
+    private static RangeRows parseRange(ImportRecordFile file, MappedCsvFile.Range range, int columnCount, PositionParser parser,
+                                        CommittedRows committedRows, PersonImportPipeline.RejectionHandler rejectionHandler) throws IOException {
+        List<PositionRow> rows = new ArrayList<>();
+        int records = 0;
+        try (ImportRecordReader reader = file.openRange(range)) {
+            while (reader.nextRecord()) {
+                int rowNumber = reader.recordLine();
+                if (reader.isBlankRecord() || committedRows.contains(rowNumber)) {
+                    continue;
+                }
+                records++;
+                parseRow(reader.fields(columnCount), rowNumber, parser, rejectionHandler, rows);
+            }
+        }
+        return new RangeRows(rows, records, range.firstLine(), range.endLine(), range.end() - range.start());
+    }
+
+    private static RawRange readRange(ImportRecordReader reader, ImportStream stream, int columnCount, int rangeSizeBytes,
+                                      CommittedRows committedRows) throws IOException {
+        long storedStart = stream.storedBytes();
+        RawRange range = new RawRange();
+        while (range.chars < rangeSizeBytes && reader.nextRecord()) {
+            int rowNumber = reader.recordLine();
+            if (reader.isBlankRecord() || committedRows.contains(rowNumber)) {
+                continue;
+            }
+            range.add(reader.fields(columnCount), rowNumber);
+        }
+        range.bytes = stream.storedBytes() - storedStart;
+        return range.rowNumbers.isEmpty() ? null : range;
+    }
+
+    private static RangeRows parseRaw(RawRange raw, PositionParser parser, PersonImportPipeline.RejectionHandler rejectionHandler) {
+        List<PositionRow> rows = new ArrayList<>();
+        for (int i = 0; i < raw.values.size(); i++) {
+            parseRow(raw.values.get(i), raw.rowNumbers.get(i), parser, rejectionHandler, rows);
+        }
+        int records = raw.rowNumbers.size();
+        return new RangeRows(rows, records, raw.rowNumbers.get(0), raw.rowNumbers.get(records - 1) + 1, raw.bytes);
+    }
+
+    private static void parseRow(String[] values, int rowNumber, PositionParser parser,
+                                 PersonImportPipeline.RejectionHandler rejectionHandler, List<PositionRow> rows) {
+        try {
+            rows.add(new PositionRow(rowNumber, values, parser.parse(values, rowNumber)));
+        } catch (ImportProcessingException ex) {
+            if (rejectionHandler == null) {
+                throw ex;
+            }
+            rejectionHandler.reject(rowNumber, values, ex.getMessage());
+        }
+    }
+
+    private Map<Long, List<PositionRow>> groupByEmployee(List<PositionRow> rows, PersonImportPipeline.RejectionHandler rejectionHandler) {
+        Map<String, Long> idsByPesel = resolvePesels(rows.stream()
+                .filter(row -> row.command().getEmployeeId() == null)
+                .map(row -> row.command().getPesel())
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+
+        Map<Long, List<PositionRow>> byEmployee = new TreeMap<>();
+        for (PositionRow row : rows) {
+            ImportPositionCommand command = row.command();
+            Long employeeId = command.getEmployeeId() != null ? command.getEmployeeId() : idsByPesel.get(command.getPesel());
+            if (employeeId == null) {
+                reject(rejectionHandler, row, "Employee with PESEL " + command.getPesel() + " not found at row " + row.rowNumber());
+                continue;
+            }
+            byEmployee.computeIfAbsent(employeeId, key -> new ArrayList<>()).add(row);
+        }
+        return byEmployee;
+    }
+
+    private Map<String, Long> resolvePesels(Set<String> pesels) {
+        Map<String, Long> idsByPesel = new HashMap<>();
+        List<String> lookup = new ArrayList<>(pesels);
+        for (int from = 0; from < lookup.size(); from += LOOKUP_BATCH_SIZE) {
+            List<String> batch = lookup.subList(from, Math.min(lookup.size(), from + LOOKUP_BATCH_SIZE));
+            for (Employee employee : employeeRepository.findAllByPeselIn(batch)) {
+                idsByPesel.put(employee.getPesel(), employee.getId());
+            }
+        }
+        return idsByPesel;
+    }
+
+    private BatchResult writeBatch(List<Long> employeeIds, Map<Long, List<PositionRow>> byEmployee,
+                                   PersonImportPipeline.RejectionHandler rejectionHandler) {
+        Map<Long, Employee> employees = new HashMap<>();
+        for (Employee employee : employeeRepository.findAllByIdInForUpdate(employeeIds)) {
+            employees.put(employee.getId(), employee);
+        }
+        Map<Long, List<PositionHistory>> existing = positionRepository.findAllByEmployeeIdIn(employeeIds).stream()
+                .collect(Collectors.groupingBy(position -> position.getEmployee().getId()));
+
+        int imported = 0;
+        int unchanged = 0;
+        for (Long employeeId : employeeIds) {
+            List<PositionRow> rows = new ArrayList<>(byEmployee.get(employeeId));
+            Employee employee = employees.get(employeeId);
+            if (employee == null) {
+                for (PositionRow row : rows) {
+                    reject(rejectionHandler, row, "Employee with id " + employeeId + " not found at row " + row.rowNumber());
+                }
+                continue;
+            }
+            rows.sort(Comparator.comparing((PositionRow row) -> row.command().getDateFrom()).thenComparingInt(PositionRow::rowNumber));
+            List<PositionHistory> positions = new ArrayList<>(existing.getOrDefault(employeeId, List.of()));
+            int added = 0;
+            for (PositionRow row : rows) {
+                ImportPositionCommand command = row.command();
+                PositionHistory candidate = new PositionHistory(command.getPositionName(), command.getSalary(),
+                        command.getDateFrom(), command.getDateTo(), employee);
+                if (positions.stream().anyMatch(position -> isSamePosition(position, candidate))) {
+                    unchanged++;
+                    continue;
+                }
+                if (positions.stream().anyMatch(position -> overlaps(position, candidate))) {
+                    reject(rejectionHandler, row, "Position history dates overlap for employee " + employeeId + " at row " + row.rowNumber());
+                    continue;
+                }
+                entityManager.persist(candidate);
+                positions.add(candidate);
+                added++;
+            }
+            if (added > 0) {
+                positionService.applyCurrentState(employee, positions);
+                imported += added;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return new BatchResult(imported, unchanged);
+    }
+
+    private ImportPositionCommand fromCsv(PersonCsvRow row) {
+        ImportPositionCommand command = new ImportPositionCommand();
+        command.setEmployeeId(row.optionalLong("employeeid"));
+        String pesel = row.optional("pesel");
+        command.setPesel(pesel == null || pesel.isBlank() ? null : pesel.trim());
+        command.setPositionName(row.required("positionname"));
+        command.setSalary(row.requiredDouble("salary"));
+        command.setDateFrom(row.requiredDate("datefrom"));
+        command.setDateTo(row.optionalDate("dateto"));
+        return checkPosition(commandReader.validate(command, "row " + row.rowNumber()), row.rowNumber());
+    }
+
+    private ImportPositionCommand fromJson(String json, int rowNumber) {
+        return checkPosition(commandReader.read(json, rowNumber), rowNumber);
+    }
+
+    private ImportPositionCommand checkPosition(ImportPositionCommand command, int rowNumber) {
+        if (command.getEmployeeId() == null && command.getPesel() == null) {
+            throw new ImportProcessingException("Missing employeeId or pesel at row " + rowNumber);
+        }
+        if (command.getDateTo() != null && command.getDateTo().isBefore(command.getDateFrom())) {
+            throw new ImportProcessingException("Position end date cannot be before start date at row " + rowNumber);
+        }
+        return command;
+    }
+
+    private static boolean isSamePosition(PositionHistory existing, PositionHistory candidate) {
+        return Objects.equals(existing.getPositionName(), candidate.getPositionName())
+                && Double.compare(existing.getSalary(), candidate.getSalary()) == 0
+                && Objects.equals(existing.getDateFrom(), candidate.getDateFrom())
+                && Objects.equals(existing.getDateTo(), candidate.getDateTo());
+    }
+
+    private static boolean overlaps(PositionHistory existing, PositionHistory candidate) {
+        if (existing.getDateFrom() == null) {
+            return false;
+        }
+        LocalDate existingEnd = existing.getDateTo() == null ? LocalDate.MAX : existing.getDateTo();
+        LocalDate candidateEnd = candidate.getDateTo() == null ? LocalDate.MAX : candidate.getDateTo();
+        return !candidate.getDateFrom().isAfter(existingEnd) && !existing.getDateFrom().isAfter(candidateEnd);
+    }
+
+    private static void reject(PersonImportPipeline.RejectionHandler rejectionHandler, PositionRow row, String reason) {
+        if (rejectionHandler == null) {
+            throw new ImportProcessingException(reason);
+        }
+        rejectionHandler.reject(row.rowNumber(), row.values(), reason);
+    }
+
+    @FunctionalInterface
+    public interface PositionParser {
+        ImportPositionCommand parse(String[] values, int rowNumber);
+    }
+
+    public record PositionImportSummary(int totalRecords, int importedRecords, int unchangedRecords) {
+    }
+
+    private record PositionRow(int rowNumber, String[] values, ImportPositionCommand command) {
+    }
+
+    private record RangeRows(List<PositionRow> rows, int records, int firstLine, int endLine, long bytes) {
+    }
+
+    private record BatchResult(int imported, int unchanged) {
+    }
+
+    @FunctionalInterface
+    private interface RangeParser {
+        RangeRows parse(int index) throws IOException;
+    }
+
+    private static final class RawRange {
+
+        private final List<String[]> values = new ArrayList<>();
+        private final List<Integer> rowNumbers = new ArrayList<>();
+        private long chars;
+        private long bytes;
+
+        void add(String[] record, int rowNumber) {
+            values.add(record);
+            rowNumbers.add(rowNumber);
+            for (String value : record) {
+                chars += value == null ? 1 : value.length() + 1;
+            }
+        }
+    }
+
+    private static final class ParseTask extends RecursiveAction {
+
+        private final RangeParser rangeParser;
+        private final RangeRows[] results;
+        private final int from;
+        private final int to;
+
+        ParseTask(RangeParser rangeParser, RangeRows[] results, int from, int to) {
+            this.rangeParser = rangeParser;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParseTask(rangeParser, results, from, middle), new ParseTask(rangeParser, results, middle, to));
+                return;
+            }
+            if (from == to) {
+                return;
+            }
+            try {
+                results[from] = rangeParser.parse(from);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+}
@@ -2,13 +2,15 @@ package pl.kurs.test3r.services.person;
 
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.util.StringUtils;
+import pl.kurs.test3r.commands.CreatePersonCommand;
+import pl.kurs.test3r.commands.UpdatePersonCommand;
 import pl.kurs.test3r.dto.PersonSearchCriteria;
 import pl.kurs.test3r.models.person.Person;
 import pl.kurs.test3r.services.imports.PersonCsvRow;
 
 import java.util.Locale;
 
-public abstract class AbstractPersonTypeModule<C extends pl.kurs.test3r.commands.CreatePersonCommand, U extends pl.kurs.test3r.commands.UpdatePersonCommand, P extends Person>
+public abstract class AbstractPersonTypeModule<C extends CreatePersonCommand, U extends UpdatePersonCommand, P extends Person>
         implements PersonTypeModule<C, U, P> {
 
     protected Specification<Person> combine(Specification<Person> base, Specification<Person> addition) {
@@ -98,4 +100,12 @@ public abstract class AbstractPersonTypeModule<C extends pl.kurs.test3r.commands
         person.setWeight(row.weight());
         person.setEmail(row.email());
     }
+
+    protected void copyBaseAttributes(P target, P source) {
+        target.setFirstName(source.getFirstName());
+        target.setLastName(source.getLastName());
+        target.setHeight(source.getHeight());
+        target.setWeight(source.getWeight());
+        target.setEmail(source.getEmail());
+    }
 }
\ No newline at end of file
@@ -1,6 +1,5 @@
 package pl.kurs.test3r.services.person;
 
-import jakarta.persistence.criteria.JoinType;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -13,9 +12,11 @@ import pl.kurs.test3r.mappers.EmployeeDtoMapper;
 import pl.kurs.test3r.models.person.Employee;
 import pl.kurs.test3r.models.person.Person;
 import pl.kurs.test3r.services.EmployeeService;
+import pl.kurs.test3r.services.imports.JdbcSubtypeInsert;
 import pl.kurs.test3r.services.imports.PersonCsvRow;
 
 import java.time.LocalDate;
+import java.util.List;
 
 @Component
 public class EmployeePersonTypeModule extends AbstractPersonTypeModule<CreateEmployeeCommand, UpdateEmployeeCommand, Employee> {
@@ -100,57 +101,11 @@ public class EmployeePersonTypeModule extends AbstractPersonTypeModule<CreateEmp
             });
         }
         specification = combine(specification, rangeNumber("currentSalary", criteria.getSalaryFrom(), criteria.getSalaryTo()));
-        if (criteria.getPositionCountFrom() != null || criteria.getPositionCountTo() != null) {
-            specification = combine(specification, positionCountRange(criteria));
-        }
-        if (criteria.getProfessionCountFrom() != null || criteria.getProfessionCountTo() != null) {
-            specification = combine(specification, professionCountRange(criteria));
-        }
+        specification = combine(specification, rangeInteger("positionCount", criteria.getPositionCountFrom(), criteria.getPositionCountTo()));
+        specification = combine(specification, rangeInteger("distinctProfessionCount", criteria.getProfessionCountFrom(), criteria.getProfessionCountTo()));
         return specification;
     }
 
-    private Specification<Person> positionCountRange(PersonSearchCriteria criteria) {
-        Integer from = criteria.getPositionCountFrom();
-        Integer to = criteria.getPositionCountTo();
-        return (root, query, cb) -> {
-            query.distinct(true);
-            var subquery = query.subquery(Long.class);
-            var employeeRoot = subquery.from(Employee.class);
-            var positions = employeeRoot.join("positions", JoinType.LEFT);
-            subquery.select(cb.count(positions.get("id")));
-            subquery.groupBy(employeeRoot.get("id"));
-            subquery.where(cb.equal(employeeRoot.get("id"), root.get("id")));
-            if (from != null && to != null) {
-                return cb.and(cb.equal(root.type(), Employee.class), cb.between(subquery, from.longValue(), to.longValue()));
-            }
-            if (from != null) {
-                return cb.and(cb.equal(root.type(), Employee.class), cb.greaterThanOrEqualTo(subquery, from.longValue()));
-            }
-            return cb.and(cb.equal(root.type(), Employee.class), cb.lessThanOrEqualTo(subquery, to.longValue()));
-        };
-    }
-
-    private Specification<Person> professionCountRange(PersonSearchCriteria criteria) {
-        Integer from = criteria.getProfessionCountFrom();
-        Integer to = criteria.getProfessionCountTo();
-        return (root, query, cb) -> {
-            query.distinct(true);
-            var subquery = query.subquery(Long.class);
-            var employeeRoot = subquery.from(Employee.class);
-            var positions = employeeRoot.join("positions", JoinType.LEFT);
-            subquery.select(cb.countDistinct(positions.get("positionName")));
-            subquery.groupBy(employeeRoot.get("id"));
-            subquery.where(cb.equal(employeeRoot.get("id"), root.get("id")));
-            if (from != null && to != null) {
-                return cb.and(cb.equal(root.type(), Employee.class), cb.between(subquery, from.longValue(), to.longValue()));
-            }
-            if (from != null) {
-                return cb.and(cb.equal(root.type(), Employee.class), cb.greaterThanOrEqualTo(subquery, from.longValue()));
-            }
-            return cb.and(cb.equal(root.type(), Employee.class), cb.lessThanOrEqualTo(subquery, to.longValue()));
-        };
-    }
-
     @Override
     public Employee createFromCsv(PersonCsvRow row) {
         Employee employee = new Employee();
@@ -160,4 +115,28 @@ public class EmployeePersonTypeModule extends AbstractPersonTypeModule<CreateEmp
         employee.setCurrentSalary(row.requiredDouble("currentsalary"));
         return employee;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Employee createFromCommand(CreateEmployeeCommand command) {
+        return employeeDtoMapper.toEntity(command);
+    }
+
+    @Override
+    public void applyImported(Employee target, Employee source) {
+        copyBaseAttributes(target, source);
+        target.setStartDate(source.getStartDate());
+        target.setCurrentPosition(source.getCurrentPosition());
+        target.setCurrentSalary(source.getCurrentSalary());
+    }
+
+    @Override
+    public JdbcSubtypeInsert<Employee> getJdbcSubtypeInsert() {
+        return new JdbcSubtypeInsert<>("employees",
+                List.of("start_date", "current_position", "current_salary"),
+                employee -> new Object[]{
+                        employee.getStartDate(),
+                        employee.getCurrentPosition(),
+                        employee.getCurrentSalary()
+                });
+    }
+}
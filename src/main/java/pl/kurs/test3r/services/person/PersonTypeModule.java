@@ -6,6 +6,7 @@ import pl.kurs.test3r.commands.UpdatePersonCommand;
 import pl.kurs.test3r.dto.PersonDto;
 import pl.kurs.test3r.dto.PersonSearchCriteria;
 import pl.kurs.test3r.models.person.Person;
+import pl.kurs.test3r.services.imports.JdbcSubtypeInsert;
 import pl.kurs.test3r.services.imports.PersonCsvRow;
 
 public interface PersonTypeModule<C extends CreatePersonCommand, U extends UpdatePersonCommand, P extends Person> {
@@ -43,4 +44,24 @@ public interface PersonTypeModule<C extends CreatePersonCommand, U extends Updat
     default P createFromCsv(PersonCsvRow row) {
         throw new UnsupportedOperationException("CSV import not supported for type " + getType());
     }
-}
\ No newline at end of file
+
+    default P createFromCommand(C command) {
+        throw new UnsupportedOperationException("JSON import not supported for type " + getType());
+    }
+
+    default P createFromCommandUsingBase(CreatePersonCommand command) {
+        return createFromCommand(getCreateCommandClass().cast(command));
+    }
+
+    default void applyImported(P target, P source) {
+        throw new UnsupportedOperationException("Import upsert not supported for type " + getType());
+    }
+
+    default void applyImportedUsingBase(Person target, Person source) {
+        applyImported(getPersonClass().cast(target), getPersonClass().cast(source));
+    }
+
+    default JdbcSubtypeInsert<P> getJdbcSubtypeInsert() {
+        throw new UnsupportedOperationException("JDBC import not supported for type " + getType());
+    }
+}
@@ -1,6 +1,5 @@
 package pl.kurs.test3r.services.person;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
 import pl.kurs.test3r.commands.CreateRetireeCommand;
@@ -8,22 +7,26 @@ import pl.kurs.test3r.commands.UpdateRetireeCommand;
 import pl.kurs.test3r.dto.PersonDto;
 import pl.kurs.test3r.dto.PersonSearchCriteria;
 import pl.kurs.test3r.dto.RetireeDto;
+import pl.kurs.test3r.mappers.RetireeDtoMapper;
 import pl.kurs.test3r.models.person.Person;
 import pl.kurs.test3r.models.person.Retiree;
 import pl.kurs.test3r.services.RetireeService;
+import pl.kurs.test3r.services.imports.JdbcSubtypeInsert;
 import pl.kurs.test3r.services.imports.PersonCsvRow;
 
+import java.util.List;
+
 @Component
 public class RetireePersonTypeModule extends AbstractPersonTypeModule<CreateRetireeCommand, UpdateRetireeCommand, Retiree> {
 
     public static final String TYPE = "RETIREE";
 
     private final RetireeService retireeService;
-    private final ModelMapper modelMapper;
+    private final RetireeDtoMapper retireeDtoMapper;
 
-    public RetireePersonTypeModule(RetireeService retireeService, ModelMapper modelMapper) {
+    public RetireePersonTypeModule(RetireeService retireeService, RetireeDtoMapper retireeDtoMapper) {
         this.retireeService = retireeService;
-        this.modelMapper = modelMapper;
+        this.retireeDtoMapper = retireeDtoMapper;
     }
 
     @Override
@@ -62,7 +65,7 @@ public class RetireePersonTypeModule extends AbstractPersonTypeModule<CreateReti
 
     @Override
     public PersonDto map(Retiree person) {
-        RetireeDto dto = modelMapper.map(person, RetireeDto.class);
+        RetireeDto dto = retireeDtoMapper.map(person);
         dto.setType(TYPE);
         return dto;
     }
@@ -91,4 +94,26 @@ public class RetireePersonTypeModule extends AbstractPersonTypeModule<CreateReti
         retiree.setYearsWorked(row.requiredInteger("yearsworked"));
         return retiree;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Retiree createFromCommand(CreateRetireeCommand command) {
+        return retireeDtoMapper.toEntity(command);
+    }
+
+    @Override
+    public void applyImported(Retiree target, Retiree source) {
+        copyBaseAttributes(target, source);
+        target.setPensionAmount(source.getPensionAmount());
+        target.setYearsWorked(source.getYearsWorked());
+    }
+
+    @Override
+    public JdbcSubtypeInsert<Retiree> getJdbcSubtypeInsert() {
+        return new JdbcSubtypeInsert<>("retirees",
+                List.of("pension_amount", "years_worked"),
+                retiree -> new Object[]{
+                        retiree.getPensionAmount(),
+                        retiree.getYearsWorked()
+                });
+    }
+}
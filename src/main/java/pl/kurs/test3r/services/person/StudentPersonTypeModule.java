@@ -1,6 +1,5 @@
 package pl.kurs.test3r.services.person;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -9,22 +8,26 @@ import pl.kurs.test3r.commands.UpdateStudentCommand;
 import pl.kurs.test3r.dto.PersonDto;
 import pl.kurs.test3r.dto.PersonSearchCriteria;
 import pl.kurs.test3r.dto.StudentDto;
+import pl.kurs.test3r.mappers.StudentDtoMapper;
 import pl.kurs.test3r.models.person.Person;
 import pl.kurs.test3r.models.person.Student;
 import pl.kurs.test3r.services.StudentService;
+import pl.kurs.test3r.services.imports.JdbcSubtypeInsert;
 import pl.kurs.test3r.services.imports.PersonCsvRow;
 
+import java.util.List;
+
 @Component
 public class StudentPersonTypeModule extends AbstractPersonTypeModule<CreateStudentCommand, UpdateStudentCommand, Student> {
 
     public static final String TYPE = "STUDENT";
 
     private final StudentService studentService;
-    private final ModelMapper modelMapper;
+    private final StudentDtoMapper studentDtoMapper;
 
-    public StudentPersonTypeModule(StudentService studentService, ModelMapper modelMapper) {
+    public StudentPersonTypeModule(StudentService studentService, StudentDtoMapper studentDtoMapper) {
         this.studentService = studentService;
-        this.modelMapper = modelMapper;
+        this.studentDtoMapper = studentDtoMapper;
     }
 
     @Override
@@ -63,7 +66,7 @@ public class StudentPersonTypeModule extends AbstractPersonTypeModule<CreateStud
 
     @Override
     public PersonDto map(Student person) {
-        StudentDto dto = modelMapper.map(person, StudentDto.class);
+        StudentDto dto = studentDtoMapper.map(person);
         dto.setType(TYPE);
         return dto;
     }
@@ -102,4 +105,30 @@ public class StudentPersonTypeModule extends AbstractPersonTypeModule<CreateStud
         student.setScholarship(row.requiredDouble("scholarship"));
         return student;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Student createFromCommand(CreateStudentCommand command) {
+        return studentDtoMapper.toEntity(command);
+    }
+
+    @Override
+    public void applyImported(Student target, Student source) {
+        copyBaseAttributes(target, source);
+        target.setUniversity(source.getUniversity());
+        target.setStudyYear(source.getStudyYear());
+        target.setFieldOfStudy(source.getFieldOfStudy());
+        target.setScholarship(source.getScholarship());
+    }
+
+    @Override
+    public JdbcSubtypeInsert<Student> getJdbcSubtypeInsert() {
+        return new JdbcSubtypeInsert<>("students",
+                List.of("university", "study_year", "field_of_study", "scholarship"),
+                student -> new Object[]{
+                        student.getUniversity(),
+                        student.getStudyYear(),
+                        student.getFieldOfStudy(),
+                        student.getScholarship()
+                });
+    }
+}
@@ -0,0 +1,119 @@
+package pl.kurs.test3r.mappers;
+
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.convention.MatchingStrategies;
+import pl.kurs.test3r.commands.CreateEmployeeCommand;
+import pl.kurs.test3r.commands.CreatePersonCommand;
+import pl.kurs.test3r.commands.CreateRetireeCommand;
+import pl.kurs.test3r.commands.CreateStudentCommand;
+import pl.kurs.test3r.commands.UpdateEmployeeCommand;
+import pl.kurs.test3r.commands.UpdatePersonCommand;
+import pl.kurs.test3r.commands.UpdateRetireeCommand;
+import pl.kurs.test3r.commands.UpdateStudentCommand;
+import pl.kurs.test3r.dto.EmployeeDto;
+import pl.kurs.test3r.dto.RetireeDto;
+import pl.kurs.test3r.dto.StudentDto;
+import pl.kurs.test3r.models.person.Employee;
+import pl.kurs.test3r.models.person.Retiree;
+import pl.kurs.test3r.models.person.Student;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PersonDtoMapperParityTest {
+
+    private final ModelMapper modelMapper = strictModelMapper();
+    private final StudentDtoMapper studentDtoMapper = new StudentDtoMapper();
+    private final RetireeDtoMapper retireeDtoMapper = new RetireeDtoMapper();
+    private final EmployeeDtoMapper employeeDtoMapper = new EmployeeDtoMapper();
+
+    @Test
+    void shouldMapStudentsLikeModelMapper() {
+        Student student = new Student("Anna", "Nowak", "90010112345", 168.5, 58, "anna@example.com", 3L, "UW", 2, "Physics", 1200);
+        student.setId(11L);
+        assertThat(studentDtoMapper.map(student)).usingRecursiveComparison().isEqualTo(modelMapper.map(student, StudentDto.class));
+
+        CreateStudentCommand create = base(new CreateStudentCommand());
+        create.setUniversity("AGH");
+        create.setStudyYear(4);
+        create.setFieldOfStudy("Mathematics");
+        create.setScholarship(900.0);
+        assertThat(studentDtoMapper.toEntity(create)).usingRecursiveComparison().isEqualTo(modelMapper.map(create, Student.class));
+
+        UpdateStudentCommand update = base(new UpdateStudentCommand());
+        update.setUniversity("PW");
+        update.setFieldOfStudy("Chemistry");
+        assertThat(studentDtoMapper.toEntity(update)).usingRecursiveComparison().isEqualTo(modelMapper.map(update, Student.class));
+    }
+
+    @Test
+    void shouldMapRetireesLikeModelMapper() {
+        Retiree retiree = new Retiree("Jan", "Kowalski", "50010112345", 175, 80, null, 0L, 3100.5, 41);
+        retiree.setId(12L);
+        assertThat(retireeDtoMapper.map(retiree)).usingRecursiveComparison().isEqualTo(modelMapper.map(retiree, RetireeDto.class));
+
+        CreateRetireeCommand create = base(new CreateRetireeCommand());
+        create.setPensionAmount(2800.0);
+        create.setYearsWorked(38);
+        assertThat(retireeDtoMapper.toEntity(create)).usingRecursiveComparison().isEqualTo(modelMapper.map(create, Retiree.class));
+
+        UpdateRetireeCommand update = base(new UpdateRetireeCommand());
+        update.setPensionAmount(3000.0);
+        assertThat(retireeDtoMapper.toEntity(update)).usingRecursiveComparison().isEqualTo(modelMapper.map(update, Retiree.class));
+    }
+
+    @Test
+    void shouldMapEmployeesLikeModelMapper() {
+        Employee employee = new Employee("Ewa", "Lis", "85010112345", 170, 60, "ewa@example.com", 7L,
+                LocalDate.of(2019, 5, 1), "Architect", 9100, new ArrayList<>());
+        employee.setId(13L);
+        employee.setPositionCount(4);
+        employee.setDistinctProfessionCount(3);
+        EmployeeDto expected = modelMapper.map(employee, EmployeeDto.class);
+        expected.setType("EMPLOYEE");
+        expected.setPositionCount(employee.getPositionCount());
+        expected.setProfessionCount(employee.getDistinctProfessionCount());
+        assertThat(employeeDtoMapper.map(employee)).usingRecursiveComparison().isEqualTo(expected);
+
+        CreateEmployeeCommand create = base(new CreateEmployeeCommand());
+        create.setStartDate(LocalDate.of(2021, 3, 1));
+        create.setCurrentPosition("Developer");
+        create.setCurrentSalary(7000.0);
+        assertThat(employeeDtoMapper.toEntity(create)).usingRecursiveComparison().isEqualTo(modelMapper.map(create, Employee.class));
+
+        UpdateEmployeeCommand update = base(new UpdateEmployeeCommand());
+        update.setCurrentPosition("Lead");
+        assertThat(employeeDtoMapper.toEntity(update)).usingRecursiveComparison().isEqualTo(modelMapper.map(update, Employee.class));
+    }
+
+    private <C extends CreatePersonCommand> C base(C command) {
+        command.setFirstName("Piotr");
+        command.setLastName("Wisniewski");
+        command.setPesel("92020212345");
+        command.setHeight(181.0);
+        command.setWeight(null);
+        command.setEmail("piotr@example.com");
+        return command;
+    }
+
+    private <C extends UpdatePersonCommand> C base(C command) {
+        command.setId(21L);
+        command.setVersion(2L);
+        command.setFirstName("Piotr");
+        command.setLastName("Wisniewski");
+        command.setPesel("92020212345");
+        command.setHeight(null);
+        command.setWeight(77.0);
+        command.setEmail(null);
+        return command;
+    }
+
+    private static ModelMapper strictModelMapper() {
+        ModelMapper modelMapper = new ModelMapper();
+        modelMapper.getConfiguration().setMatchingStrategy(MatchingStrategies.STRICT);
+        return modelMapper;
+    }
+}
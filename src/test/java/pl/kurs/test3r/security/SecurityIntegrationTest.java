@@ -23,12 +23,14 @@ import java.util.List;
 
 import pl.kurs.test3r.dto.ImportJobDto;
 import pl.kurs.test3r.dto.PersonSearchCriteria;
+import pl.kurs.test3r.dto.SearchCountMode;
 import pl.kurs.test3r.services.PersonQueryService;
 import pl.kurs.test3r.services.PositionService;
 import pl.kurs.test3r.services.imports.PersonCsvImportService;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
@@ -67,9 +69,9 @@ public class SecurityIntegrationTest {
         loginAttemptService.recordSuccessfulLogin("importer");
         loginAttemptService.recordSuccessfulLogin("admin");
 
-        when(personQueryService.search(any(PersonSearchCriteria.class), any(Pageable.class))).thenReturn(Page.empty());
+        when(personQueryService.search(any(PersonSearchCriteria.class), any(Pageable.class), any(SearchCountMode.class))).thenReturn(Page.empty());
         when(positionService.getPositions(anyLong())).thenReturn(List.of());
-        when(personCsvImportService.startImport(any())).thenReturn(new ImportJobDto());
+        when(personCsvImportService.startImport(any(), anyBoolean(), any())).thenReturn(new ImportJobDto());
         when(personCsvImportService.getStatus(anyLong())).thenReturn(new ImportJobDto());
     }
 
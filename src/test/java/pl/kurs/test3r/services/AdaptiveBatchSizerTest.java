@@ -0,0 +1,46 @@
+package pl.kurs.test3r.services;
+
+import org.junit.jupiter.api.Test;
+import pl.kurs.test3r.services.imports.AdaptiveBatchSizer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptiveBatchSizerTest {
+
+    private static final long ROUND_TRIP_NANOS = 2_000_000;
+    private static final long ROW_NANOS = 20_000;
+
+    @Test
+    void shouldGrowWhileLargerBatchesIncreaseThroughput() {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(50, 10, 400, 3.0, true);
+
+        for (int i = 0; i < 200; i++) {
+            int size = sizer.currentSize();
+            sizer.record(size, ROUND_TRIP_NANOS + size * ROW_NANOS);
+        }
+
+        assertThat(sizer.currentSize()).isGreaterThanOrEqualTo(256);
+        assertThat(sizer.history()).startsWith("50,63,");
+    }
+
+    @Test
+    void shouldHalveBatchSizeWhenFlushLatencySpikes() {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(200, 10, 400, 3.0, true);
+        sizer.record(200, ROUND_TRIP_NANOS + 200 * ROW_NANOS);
+
+        sizer.record(200, 10 * (ROUND_TRIP_NANOS + 200 * ROW_NANOS));
+
+        assertThat(sizer.currentSize()).isEqualTo(100);
+    }
+
+    @Test
+    void shouldKeepConfiguredSizeWhenAdaptationIsDisabled() {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(100, 10, 400, 3.0, false);
+
+        sizer.record(100, 10 * ROUND_TRIP_NANOS);
+        sizer.record(100, ROUND_TRIP_NANOS);
+
+        assertThat(sizer.currentSize()).isEqualTo(100);
+        assertThat(sizer.history()).isEqualTo("100");
+    }
+}
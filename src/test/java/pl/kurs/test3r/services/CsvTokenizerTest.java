@@ -0,0 +1,74 @@
+package pl.kurs.test3r.services;
+
+import org.junit.jupiter.api.Test;
+import pl.kurs.test3r.exceptions.ImportProcessingException;
+import pl.kurs.test3r.services.imports.CsvTokenizer;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CsvTokenizerTest {
+
+    @Test
+    void shouldHandleQuotedDelimitersLineBreaksAndEscapedQuotes() throws IOException {
+        String csv = "﻿type;name;note\r\n"
+                + "STUDENT; \"Kowalski; Jan\" ;\"said \"\"hi\"\"\"\r\n"
+                + "\r\n"
+                + "EMPLOYEE;\"multi\nline\";  plain  \n";
+
+        List<String[]> records = new ArrayList<>();
+        List<Integer> lines = new ArrayList<>();
+        try (CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csv))) {
+            while (tokenizer.nextRecord()) {
+                if (!tokenizer.isBlankRecord()) {
+                    records.add(tokenizer.fields(3));
+                    lines.add(tokenizer.recordLine());
+                }
+            }
+            assertThat(tokenizer.delimiter()).isEqualTo(';');
+        }
+
+        assertThat(records).hasSize(3);
+        assertThat(records.get(0)).containsExactly("type", "name", "note");
+        assertThat(records.get(1)).containsExactly("STUDENT", "Kowalski; Jan", "said \"hi\"");
+        assertThat(records.get(2)).containsExactly("EMPLOYEE", "multi\nline", "plain");
+        assertThat(lines).containsExactly(1, 2, 4);
+    }
+
+    @Test
+    void shouldReadRecordsSpanningBufferRefills() throws IOException {
+        String longValue = "x".repeat(100_000);
+        StringBuilder csv = new StringBuilder("a,b\n");
+        for (int i = 0; i < 2000; i++) {
+            csv.append(i).append(",\"").append(i == 1000 ? longValue : "v" + i).append("\"\n");
+        }
+
+        int count = 0;
+        try (CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csv.toString()), ',')) {
+            tokenizer.nextRecord();
+            while (tokenizer.nextRecord()) {
+                assertThat(tokenizer.field(0)).isEqualTo(String.valueOf(count));
+                assertThat(tokenizer.field(1)).isEqualTo(count == 1000 ? longValue : "v" + count);
+                count++;
+            }
+        }
+
+        assertThat(count).isEqualTo(2000);
+    }
+
+    @Test
+    void shouldRejectUnterminatedQuotedField() {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("a,b\n1,\"open\n2,3\n"), ',');
+
+        assertThatThrownBy(() -> {
+            while (tokenizer.nextRecord()) {
+                tokenizer.fields(2);
+            }
+        }).isInstanceOf(ImportProcessingException.class).hasMessageContaining("row 2");
+    }
+}
@@ -0,0 +1,229 @@
+package pl.kurs.test3r.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import pl.kurs.test3r.config.ImportProperties;
+import pl.kurs.test3r.dto.ImportJobDto;
+import pl.kurs.test3r.models.imports.ImportJob;
+import pl.kurs.test3r.models.imports.ImportJobStatus;
+import pl.kurs.test3r.repositories.ImportChunkRepository;
+import pl.kurs.test3r.repositories.ImportJobRepository;
+import pl.kurs.test3r.repositories.PersonRepository;
+import pl.kurs.test3r.services.imports.ImportChunkConsumer;
+import pl.kurs.test3r.services.imports.ImportChunkMessage;
+import pl.kurs.test3r.services.imports.PersonCsvImportService;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class DistributedPersonImportIntegrationTest {
+
+    private static final String HEADER = "type,firstName,lastName,pesel,height,weight,email,startDate,currentPosition,currentSalary,university,studyYear,fieldOfStudy,scholarship,pensionAmount,yearsWorked";
+
+    @MockitoBean
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private MessageConverter messageConverter;
+
+    @Autowired
+    private ImportChunkConsumer importChunkConsumer;
+
+    @Autowired
+    private PersonCsvImportService personCsvImportService;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private ImportJobRepository importJobRepository;
+
+    @Autowired
+    private ImportChunkRepository importChunkRepository;
+
+    @Autowired
+    private ImportProperties importProperties;
+
+    private final List<ImportChunkMessage> delivered = new CopyOnWriteArrayList<>();
+    private int originalRangeSizeBytes;
+    private int droppedChunk;
+
+    @BeforeEach
+    void setUp() {
+        personRepository.deleteAll();
+        importChunkRepository.deleteAll();
+        importJobRepository.deleteAll();
+        originalRangeSizeBytes = importProperties.getRangeSizeBytes();
+        droppedChunk = -1;
+        importProperties.getDistributed().setEnabled(true);
+        doAnswer(invocation -> {
+            Message message = messageConverter.toMessage(invocation.getArgument(2), new MessageProperties());
+            ImportChunkMessage chunk = (ImportChunkMessage) messageConverter.fromMessage(message);
+            delivered.add(chunk);
+            if (chunk.chunkIndex() != droppedChunk) {
+                importChunkConsumer.onChunk(chunk);
+            }
+            return null;
+        }).when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        importProperties.getDistributed().setEnabled(false);
+        importProperties.setRangeSizeBytes(originalRangeSizeBytes);
+    }
+
+    @Test
+    void shouldSplitImportIntoChunkMessagesAndAggregateResults() throws Exception {
+        importProperties.setRangeSizeBytes(500);
+        int records = 90;
+
+        ImportJob completed = importAndAwait(buildCsv(records, 80000000000L));
+
+        assertThat(completed.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(completed.getTotalChunks()).isGreaterThan(1).isEqualTo(delivered.size());
+        assertThat(completed.getCompletedChunks()).isEqualTo(completed.getTotalChunks());
+        assertThat(completed.getProcessedRecords()).isEqualTo(records);
+        assertThat(completed.getTotalRecords()).isEqualTo(records);
+        assertThat(personRepository.count()).isEqualTo(records);
+        assertThat(Files.exists(Path.of(completed.getStoredFilePath()))).isFalse();
+
+        importChunkConsumer.onChunk(delivered.get(0));
+
+        assertThat(personRepository.count()).isEqualTo(records);
+        assertThat(importJobRepository.findById(completed.getId()).orElseThrow().getCompletedChunks())
+                .isEqualTo(completed.getTotalChunks());
+    }
+
+    @Test
+    void shouldKeepHandedOffJobOutOfStartupResumeAndResumeItFromCommittedChunks() throws Exception {
+        importProperties.setRangeSizeBytes(500);
+        int records = 90;
+        droppedChunk = 1;
+        MockMultipartFile file = new MockMultipartFile("file", "persons.csv", MediaType.TEXT_PLAIN_VALUE,
+                buildCsv(records, 81000000000L).getBytes(StandardCharsets.UTF_8));
+        Long jobId = personCsvImportService.startImport(file).getId();
+        ImportJob handedOff = awaitChunks(jobId, System.currentTimeMillis() + 10000);
+
+        assertThat(handedOff.getStatus()).isEqualTo(ImportJobStatus.IN_PROGRESS);
+        assertThat(handedOff.isDistributed()).isTrue();
+        assertThat(Files.exists(Path.of(handedOff.getStoredFilePath()))).isTrue();
+        long committed = personRepository.count();
+        assertThat(committed).isLessThan(records);
+
+        personCsvImportService.resumeInterruptedImports();
+        Thread.sleep(200);
+
+        assertThat(importJobRepository.findById(jobId).orElseThrow().getStatus()).isEqualTo(ImportJobStatus.IN_PROGRESS);
+        assertThat(personRepository.count()).isEqualTo(committed);
+
+        personCsvImportService.resumeImport(jobId);
+        ImportJob completed = awaitFinished(jobId, System.currentTimeMillis() + 10000);
+
+        assertThat(completed.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(completed.isDistributed()).isFalse();
+        assertThat(completed.getProcessedRecords()).isEqualTo(records);
+        assertThat(personRepository.count()).isEqualTo(records);
+        assertThat(Files.exists(Path.of(completed.getStoredFilePath()))).isFalse();
+
+        importChunkConsumer.onChunk(delivered.get(droppedChunk));
+
+        assertThat(personRepository.count()).isEqualTo(records);
+    }
+
+    @Test
+    void shouldNotResumeJobsOwnedByAnotherNodeOnStartup() throws Exception {
+        Path storedFile = Path.of(importProperties.getWorkDir()).resolve("foreign-node-test.csv");
+        Files.createDirectories(storedFile.getParent());
+        Files.writeString(storedFile, buildCsv(5, 82000000000L), StandardCharsets.UTF_8);
+        ImportJob foreign = new ImportJob("persons.csv", Files.size(storedFile), MediaType.TEXT_PLAIN_VALUE);
+        foreign.setStatus(ImportJobStatus.IN_PROGRESS);
+        foreign.setOwnerNode("other-node");
+        foreign.setStoredFilePath(storedFile.toString());
+        Long jobId = importJobRepository.save(foreign).getId();
+
+        personCsvImportService.resumeInterruptedImports();
+        Thread.sleep(200);
+
+        assertThat(importJobRepository.findById(jobId).orElseThrow().getStatus()).isEqualTo(ImportJobStatus.IN_PROGRESS);
+        assertThat(personRepository.count()).isZero();
+        Files.deleteIfExists(storedFile);
+    }
+
+    private ImportJob importAndAwait(String csv) throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "persons.csv", MediaType.TEXT_PLAIN_VALUE, csv.getBytes(StandardCharsets.UTF_8));
+        ImportJobDto started = personCsvImportService.startImport(file);
+        return awaitFinished(started.getId(), System.currentTimeMillis() + 10000);
+    }
+
+    private ImportJob awaitFinished(Long jobId, long timeoutAt) throws Exception {
+        while (System.currentTimeMillis() < timeoutAt) {
+            ImportJob job = importJobRepository.findById(jobId).orElseThrow();
+            if (job.getStatus() == ImportJobStatus.COMPLETED || job.getStatus() == ImportJobStatus.FAILED) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        fail("Import job did not finish within timeout");
+        return null;
+    }
+
+    private ImportJob awaitChunks(Long jobId, long timeoutAt) throws Exception {
+        while (System.currentTimeMillis() < timeoutAt) {
+            ImportJob job = importJobRepository.findById(jobId).orElseThrow();
+            if (job.getTotalChunks() != null && job.getCompletedChunks() != null
+                    && job.getCompletedChunks() == job.getTotalChunks() - 1) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        fail("Import job chunks were not processed within timeout");
+        return null;
+    }
+
+    private String buildCsv(int records, long peselBase) {
+        StringBuilder builder = new StringBuilder(HEADER).append('\n');
+        for (int i = 0; i < records; i++) {
+            builder.append(String.join(",",
+                    "STUDENT",
+                    "Name" + i,
+                    "Test" + i,
+                    String.format("%011d", peselBase + i),
+                    "180",
+                    "75",
+                    "student" + i + "@example.com",
+                    "",
+                    "",
+                    "",
+                    "University",
+                    String.valueOf(1 + (i % 5)),
+                    "Field",
+                    "1500",
+                    "",
+                    "")).append('\n');
+        }
+        return builder.toString();
+    }
+}
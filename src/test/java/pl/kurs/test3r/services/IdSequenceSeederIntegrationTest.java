@@ -0,0 +1,51 @@
+package pl.kurs.test3r.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import pl.kurs.test3r.models.person.Student;
+import pl.kurs.test3r.repositories.PersonRepository;
+import pl.kurs.test3r.repositories.StudentRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class IdSequenceSeederIntegrationTest {
+
+    @Autowired
+    private IdSequenceSeeder idSequenceSeeder;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        personRepository.deleteAll();
+    }
+
+    @Test
+    void shouldMoveSequencePastIdsAssignedBeforeSequencesExisted() {
+        long legacyId = 1_000_000L;
+        jdbcTemplate.update("insert into persons (id, person_type, first_name, last_name, pesel, height, weight, email, version) "
+                + "values (?, 'STUDENT', 'Legacy', 'Person', '87000000001', 180, 75, 'legacy@example.com', 0)", legacyId);
+        jdbcTemplate.update("insert into students (id, university, study_year, field_of_study, scholarship) "
+                + "values (?, 'University', 1, 'Field', 0)", legacyId);
+
+        idSequenceSeeder.seed();
+        Student created = studentRepository.save(new Student("New", "Person", "87000000002", 180, 75,
+                "new@example.com", null, "University", 1, "Field", 0));
+
+        assertThat(created.getId()).isGreaterThan(legacyId);
+        assertThat(personRepository.count()).isEqualTo(2);
+    }
+}
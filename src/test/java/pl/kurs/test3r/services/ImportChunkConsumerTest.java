@@ -0,0 +1,94 @@
+package pl.kurs.test3r.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import pl.kurs.test3r.config.ImportProperties;
+import pl.kurs.test3r.services.imports.ImportChunkConsumer;
+import pl.kurs.test3r.services.imports.ImportChunkMessage;
+import pl.kurs.test3r.services.imports.PersonCsvImportService;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ImportChunkConsumerTest {
+
+    private final ImportChunkMessage message = new ImportChunkMessage(1L, 0, 1, new String[]{"pesel"}, ',', 2, 3, new byte[0]);
+
+    @Test
+    void shouldDeadLetterTransientFailuresForDelayedRetryUntilAttemptLimit() {
+        PersonCsvImportService service = mock(PersonCsvImportService.class);
+        CannotAcquireLockException deadlock = new CannotAcquireLockException("deadlock");
+        doThrow(deadlock).when(service).importChunk(message);
+        ImportChunkConsumer consumer = new ImportChunkConsumer(service, properties(3));
+
+        assertThatThrownBy(() -> consumer.onChunk(message, delivery()))
+                .isInstanceOf(AmqpRejectAndDontRequeueException.class).hasCause(deadlock);
+        assertThatThrownBy(() -> consumer.onChunk(message, delivery(rejected("person-import-chunks", 1))))
+                .isInstanceOf(AmqpRejectAndDontRequeueException.class).hasCause(deadlock);
+        verify(service, never()).failChunk(any(), any());
+
+        assertThatCode(() -> consumer.onChunk(message, delivery(rejected("person-import-chunks", 2))))
+                .doesNotThrowAnyException();
+        verify(service).failChunk(message, deadlock);
+    }
+
+    @Test
+    void shouldCountAttemptsFromBrokerHeadersOnEveryNode() {
+        PersonCsvImportService service = mock(PersonCsvImportService.class);
+        CannotAcquireLockException deadlock = new CannotAcquireLockException("deadlock");
+        doThrow(deadlock).when(service).importChunk(message);
+        Message redelivered = delivery(Map.of("queue", "person-import-chunks.retry", "reason", "expired", "count", 4L),
+                rejected("person-import-chunks", 2L));
+
+        assertThatCode(() -> new ImportChunkConsumer(service, properties(3)).onChunk(message, redelivered))
+                .doesNotThrowAnyException();
+        verify(service, times(1)).importChunk(message);
+        verify(service).failChunk(message, deadlock);
+    }
+
+    @Test
+    void shouldFailJobWithoutRetryOnNonTransientFailure() {
+        PersonCsvImportService service = mock(PersonCsvImportService.class);
+        DataIntegrityViolationException conflict = new DataIntegrityViolationException("duplicate pesel");
+        doThrow(conflict).when(service).importChunk(message);
+        when(service.failChunk(eq(message), any())).thenReturn(true);
+        ImportChunkConsumer consumer = new ImportChunkConsumer(service, properties(3));
+
+        assertThatCode(() -> consumer.onChunk(message, delivery())).doesNotThrowAnyException();
+        verify(service).failChunk(message, conflict);
+    }
+
+    @SafeVarargs
+    private static Message delivery(Map<String, ?>... deaths) {
+        MessageProperties properties = new MessageProperties();
+        if (deaths.length > 0) {
+            properties.setHeader("x-death", List.of(deaths));
+        }
+        return new Message(new byte[0], properties);
+    }
+
+    private static Map<String, ?> rejected(String queue, long count) {
+        return Map.of("queue", queue, "reason", "rejected", "count", count);
+    }
+
+    private ImportProperties properties(int maxChunkAttempts) {
+        ImportProperties properties = new ImportProperties();
+        properties.getDistributed().setMaxChunkAttempts(maxChunkAttempts);
+        return properties;
+    }
+}
@@ -0,0 +1,73 @@
+package pl.kurs.test3r.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.kurs.test3r.models.imports.ImportFormat;
+import pl.kurs.test3r.services.imports.ImportCompression;
+import pl.kurs.test3r.services.imports.ImportRecordCounter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ImportRecordCounterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldCountNewlinesAtEveryAlignment() {
+        byte[] bytes = new byte[1037];
+        new Random(42).nextBytes(bytes);
+        for (int i = 0; i < bytes.length; i += 7) {
+            bytes[i] = '\n';
+        }
+        for (int offset = 0; offset < 9; offset++) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, bytes.length - offset);
+            long expected = 0;
+            for (int i = offset; i < bytes.length; i++) {
+                if (bytes[i] == '\n') {
+                    expected++;
+                }
+            }
+            assertThat(ImportRecordCounter.countNewlines(buffer)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void shouldCountRecordsWithoutHeaderAndWithoutTrailingNewline() throws IOException {
+        Path csv = tempDir.resolve("persons.csv");
+        Files.writeString(csv, "type,pesel\nSTUDENT,1\nSTUDENT,2\nSTUDENT,3", StandardCharsets.UTF_8);
+        Path ndjson = tempDir.resolve("persons.ndjson");
+        Files.writeString(ndjson, "{}\n{}\n", StandardCharsets.UTF_8);
+
+        assertThat(ImportRecordCounter.countRecords(csv, ImportFormat.CSV)).isEqualTo(3);
+        assertThat(ImportRecordCounter.countRecords(ndjson, ImportFormat.NDJSON)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldEstimateRecordsOfCompressedFileFromSample() throws IOException {
+        Path gzip = tempDir.resolve("persons.csv.gz");
+        Random random = new Random(7);
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip))) {
+            out.write("type,pesel,note\n".getBytes(StandardCharsets.UTF_8));
+            for (int i = 0; i < 200_000; i++) {
+                out.write(("STUDENT," + (10_000_000_000L + i) + "," + Long.toHexString(random.nextLong()) + "\n")
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        long exact = ImportRecordCounter.estimateRecords(gzip, ImportCompression.GZIP, ImportFormat.CSV, Integer.MAX_VALUE);
+        long sampled = ImportRecordCounter.estimateRecords(gzip, ImportCompression.GZIP, ImportFormat.CSV, 1024 * 1024);
+
+        assertThat(exact).isEqualTo(200_000);
+        assertThat(sampled).isBetween(170_000L, 230_000L);
+    }
+}
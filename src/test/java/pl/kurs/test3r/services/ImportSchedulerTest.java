@@ -0,0 +1,79 @@
+package pl.kurs.test3r.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import pl.kurs.test3r.exceptions.ImportConcurrencyException;
+import pl.kurs.test3r.services.imports.ImportScheduler;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ImportSchedulerTest {
+
+    @Test
+    void shouldQueueImportsAndStartSmallFilesFirst() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(3);
+        List<Long> started = new CopyOnWriteArrayList<>();
+        ImportScheduler scheduler = new ImportScheduler(1, 2, 0, 1024, new SimpleAsyncTaskExecutor(), queued -> {
+            started.add(queued.jobId());
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            finished.countDown();
+        });
+
+        scheduler.enqueue(1L, Path.of("first.csv"), 10 * 1024, false);
+        scheduler.enqueue(2L, Path.of("large.csv"), 1024 * 1024, false);
+        scheduler.enqueue(3L, Path.of("small.csv"), 1024, false);
+
+        assertThat(scheduler.estimate(1L)).isEmpty();
+        ImportScheduler.QueueEstimate small = scheduler.estimate(3L).orElseThrow();
+        ImportScheduler.QueueEstimate large = scheduler.estimate(2L).orElseThrow();
+        assertThat(small.position()).isEqualTo(1);
+        assertThat(large.position()).isEqualTo(2);
+        assertThat(small.estimatedStartAt()).isBefore(large.estimatedStartAt());
+        assertThatThrownBy(() -> scheduler.enqueue(4L, Path.of("overflow.csv"), 1, false))
+                .isInstanceOf(ImportConcurrencyException.class);
+
+        release.countDown();
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(started).containsExactly(1L, 3L, 2L);
+    }
+
+    @Test
+    void shouldRestoreInterruptedImportsBeyondQueueLimit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(3);
+        List<Long> started = new CopyOnWriteArrayList<>();
+        ImportScheduler scheduler = new ImportScheduler(1, 1, 0, 1024, new SimpleAsyncTaskExecutor(), queued -> {
+            started.add(queued.jobId());
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            finished.countDown();
+        });
+
+        scheduler.restore(1L, Path.of("first.csv"), 1024);
+        scheduler.restore(2L, Path.of("second.csv"), 1024);
+        scheduler.restore(3L, Path.of("third.csv"), 1024);
+
+        assertThat(scheduler.estimate(3L).orElseThrow().position()).isEqualTo(2);
+        assertThatThrownBy(() -> scheduler.enqueue(4L, Path.of("new.csv"), 1, false))
+                .isInstanceOf(ImportConcurrencyException.class);
+
+        release.countDown();
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(started).containsExactly(1L, 2L, 3L);
+    }
+}
@@ -0,0 +1,949 @@
+package pl.kurs.test3r.services;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import pl.kurs.test3r.config.ImportProperties;
+import pl.kurs.test3r.dto.ImportDryRunDto;
+import pl.kurs.test3r.dto.ImportJobDto;
+import pl.kurs.test3r.dto.ImportRowErrorDto;
+import pl.kurs.test3r.exceptions.IllegalEntityStateException;
+import pl.kurs.test3r.exceptions.ImportConcurrencyException;
+import pl.kurs.test3r.exceptions.ImportJobNotFoundException;
+import pl.kurs.test3r.models.imports.ImportChunk;
+import pl.kurs.test3r.models.imports.ImportFormat;
+import pl.kurs.test3r.models.imports.ImportJob;
+import pl.kurs.test3r.models.imports.ImportJobStatus;
+import pl.kurs.test3r.models.imports.ImportMode;
+import pl.kurs.test3r.models.imports.ImportTarget;
+import pl.kurs.test3r.models.person.Student;
+import pl.kurs.test3r.repositories.ImportChunkRepository;
+import pl.kurs.test3r.repositories.ImportJobRepository;
+import pl.kurs.test3r.repositories.PersonRepository;
+import pl.kurs.test3r.repositories.StudentRepository;
+import pl.kurs.test3r.services.imports.PersonCsvImportService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.fail;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class PersonCsvImportServiceIntegrationTest {
+
+    private static final String HEADER = "type,firstName,lastName,pesel,height,weight,email,startDate,currentPosition,currentSalary,university,studyYear,fieldOfStudy,scholarship,pensionAmount,yearsWorked";
+
+    @Autowired
+    private PersonCsvImportService personCsvImportService;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private ImportJobRepository importJobRepository;
+
+    @Autowired
+    private ImportChunkRepository importChunkRepository;
+
+    @Autowired
+    private ImportProperties importProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private int originalBatchSize;
+    private int originalParserThreads;
+    private int originalWriterThreads;
+    private int originalRangeSizeBytes;
+    private ImportProperties.WriterType originalWriter;
+    private boolean originalDuplicateCheck;
+    private int originalDryRunMaxErrorsLimit;
+
+    @BeforeEach
+    void setUp() {
+        personRepository.deleteAll();
+        importJobRepository.deleteAll();
+        originalBatchSize = importProperties.getBatchSize();
+        originalParserThreads = importProperties.getParserThreads();
+        originalWriterThreads = importProperties.getWriterThreads();
+        originalRangeSizeBytes = importProperties.getRangeSizeBytes();
+        originalWriter = importProperties.getWriter();
+        originalDuplicateCheck = importProperties.isDuplicateCheck();
+        originalDryRunMaxErrorsLimit = importProperties.getDryRunMaxErrorsLimit();
+    }
+
+    @AfterEach
+    void tearDown() {
+        importProperties.setBatchSize(originalBatchSize);
+        importProperties.setParserThreads(originalParserThreads);
+        importProperties.setWriterThreads(originalWriterThreads);
+        importProperties.setRangeSizeBytes(originalRangeSizeBytes);
+        importProperties.setWriter(originalWriter);
+        importProperties.setDuplicateCheck(originalDuplicateCheck);
+        importProperties.setDryRunMaxErrorsLimit(originalDryRunMaxErrorsLimit);
+    }
+
+    @Test
+    void shouldImportAllRowsWithParallelParsersAndWriters() throws Exception {
+        importProperties.setBatchSize(7);
+        importProperties.setParserThreads(3);
+        importProperties.setWriterThreads(2);
+        int records = 250;
+        double persistedBefore = meterRegistry.counter("person.import.rows.persisted").count();
+
+        ImportJob completed = importAndAwait(buildCsv(records, 70000000000L, -1));
+
+        assertThat(completed.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(completed.getProcessedRecords()).isEqualTo(records);
+        assertThat(personRepository.count()).isEqualTo(records);
+        assertThat(personRepository.findByPesel(String.format("%011d", 70000000000L + records - 1))).isPresent();
+        assertThat(meterRegistry.counter("person.import.rows.persisted").count() - persistedBefore).isEqualTo(records);
+        assertThat(meterRegistry.get("person.import.batch.flush").tag("writer", "jpa").timer().count()).isPositive();
+    }
+
+    @Test
+    void shouldRollBackEveryWriterWhenRowIsInvalid() throws Exception {
+        importProperties.setBatchSize(5);
+        importProperties.setParserThreads(2);
+        importProperties.setWriterThreads(2);
+
+        ImportJob failed = importAndAwait(buildCsv(120, 71000000000L, 97));
+
+        assertThat(failed.getStatus()).isEqualTo(ImportJobStatus.FAILED);
+        assertThat(failed.getErrorMessage()).contains("row 99");
+        assertThat(personRepository.count()).isZero();
+    }
+
+    @Test
+    void shouldSplitFileIntoRangesWithoutBreakingQuotedRecords() throws Exception {
+        importProperties.setBatchSize(4);
+        importProperties.setParserThreads(4);
+        importProperties.setRangeSizeBytes(300);
+        int records = 90;
+
+        ImportJob completed = importAndAwait(buildQuotedCsv(records, 72000000000L, -1));
+
+        assertThat(completed.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(completed.getProcessedRecords()).isEqualTo(records);
+        assertThat(personRepository.count()).isEqualTo(records);
+        assertThat(personRepository.findByPesel(String.format("%011d", 72000000000L + 30)))
+                .hasValueSatisfying(person -> assertThat(person.getFirstName()).isEqualTo("Name\n30, \"Jr\""));
+    }
+
+    @Test
+    void shouldReportPhysicalRowNumberAndKeepCommittedChunks() throws Exception {
+        importProperties.setBatchSize(4);
+        importProperties.setParserThreads(4);
+        importProperties.setRangeSizeBytes(300);
+
+        ImportJob failed = importAndAwait(buildQuotedCsv(90, 73000000000L, 75));
+
+        assertThat(failed.getStatus()).isEqualTo(ImportJobStatus.FAILED);
+        assertThat(failed.getErrorMessage()).contains("row 85");
+        assertThat(failed.getCheckpointRow()).isNotNull().isLessThanOrEqualTo(85);
+        assertThat(personRepository.count()).isBetween((long) failed.getCheckpointRecords(), 89L);
+        assertThat(personRepository.findByPesel(String.format("%011d", 73000000000L + 75))).isEmpty();
+    }
+
+    @Test
+    void shouldResumeFromCheckpointWithoutDuplicatingCommittedRows() throws Exception {
+        importProperties.setBatchSize(4);
+        importProperties.setParserThreads(2);
+        importProperties.setRangeSizeBytes(500);
+        int records = 60;
+        long peselBase = 74000000000L;
+        String csv = buildCsv(records, peselBase, -1);
+        String[] lines = csv.split("\n");
+        int checkpointIndex = 30;
+        long checkpointOffset = 0;
+        for (int i = 0; i <= checkpointIndex; i++) {
+            checkpointOffset += lines[i].getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+
+        List<Student> alreadyImported = new ArrayList<>();
+        for (int i = 0; i < checkpointIndex + 5; i++) {
+            alreadyImported.add(new Student("Name" + i, "Test" + i, String.format("%011d", peselBase + i), 180, 75,
+                    "student" + i + "@example.com", null, "University", 1, "Field", 1500));
+        }
+        studentRepository.saveAll(alreadyImported);
+
+        Path storedFile = Path.of(importProperties.getWorkDir()).resolve("resume-test.csv");
+        Files.createDirectories(storedFile.getParent());
+        Files.writeString(storedFile, csv, StandardCharsets.UTF_8);
+        ImportJob interrupted = new ImportJob("persons.csv", csv.length(), MediaType.TEXT_PLAIN_VALUE);
+        interrupted.setStatus(ImportJobStatus.IN_PROGRESS);
+        interrupted.setStoredFilePath(storedFile.toString());
+        interrupted.setCheckpointOffset(checkpointOffset);
+        interrupted.setCheckpointRow(checkpointIndex + 2);
+        interrupted.setCheckpointRecords(checkpointIndex);
+        Long jobId = importJobRepository.save(interrupted).getId();
+        importChunkRepository.save(new ImportChunk(jobId, 0, 2, checkpointIndex + 2, checkpointIndex, "node-1"));
+        importChunkRepository.save(new ImportChunk(jobId, 1, checkpointIndex + 2, checkpointIndex + 7, 5, "node-1"));
+
+        personCsvImportService.resumeImport(jobId);
+        ImportJob completed = awaitFinished(jobId, System.currentTimeMillis() + 10000);
+
+        assertThat(completed.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(completed.getProcessedRecords()).isEqualTo(records);
+        assertThat(completed.getCheckpointOffset()).isEqualTo(csv.getBytes(StandardCharsets.UTF_8).length);
+        assertThat(personRepository.count()).isEqualTo(records);
+        assertThat(Files.exists(storedFile)).isFalse();
+        assertThatThrownBy(() -> personCsvImportService.resumeImport(jobId)).isInstanceOf(IllegalEntityStateException.class);
+    }
+
+    @Test
+    void shouldReportExistingPeselsAsConflictsWhenResuming() throws Exception {
+        importProperties.setBatchSize(4);
+        importProperties.setRangeSizeBytes(500);
+        int records = 40;
+        long peselBase = 74500000000L;
+        String csv = buildCsv(records, peselBase, -1);
+        String[] lines = csv.split("\n");
+        int checkpointIndex = 10;
+        long checkpointOffset = 0;
+        for (int i = 0; i <= checkpointIndex; i++) {
+            checkpointOffset += lines[i].getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+
+        List<Student> alreadyImported = new ArrayList<>();
+        for (int i = 0; i < checkpointIndex + 5; i++) {
+            alreadyImported.add(new Student("Name" + i, "Test" + i, String.format("%011d", peselBase + i), 180, 75,
+                    "student" + i + "@example.com", null, "University", 1, "Field", 1500));
+        }
+        alreadyImported.add(new Student("Existing", "Person", String.format("%011d", peselBase + 25), 180, 75,
+                "existing@example.com", null, "University", 1, "Field", 1500));
+        studentRepository.saveAll(alreadyImported);
+
+        Path storedFile = Path.of(importProperties.getWorkDir()).resolve("resume-conflict-test.csv");
+        Files.createDirectories(storedFile.getParent());
+        Files.writeString(storedFile, csv, StandardCharsets.UTF_8);
+        ImportJob interrupted = new ImportJob("persons.csv", csv.length(), MediaType.TEXT_PLAIN_VALUE);
+        interrupted.setStatus(ImportJobStatus.IN_PROGRESS);
+        interrupted.setSkipInvalidRows(true);
+        interrupted.setStoredFilePath(storedFile.toString());
+        interrupted.setCheckpointOffset(checkpointOffset);
+        interrupted.setCheckpointRow(checkpointIndex + 2);
+        interrupted.setCheckpointRecords(checkpointIndex);
+        Long jobId = importJobRepository.save(interrupted).getId();
+        importChunkRepository.save(new ImportChunk(jobId, 0, 2, checkpointIndex + 2, checkpointIndex, "node-1"));
+        importChunkRepository.save(new ImportChunk(jobId, 1, checkpointIndex + 2, checkpointIndex + 7, 5, "node-1"));
+        Files.deleteIfExists(Path.of(importProperties.getWorkDir()).resolve("persons-import-" + jobId + "-rejections.csv"));
+
+        personCsvImportService.resumeImport(jobId);
+        ImportJob completed = awaitFinished(jobId, System.currentTimeMillis() + 10000);
+
+        assertThat(completed.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(completed.getProcessedRecords()).isEqualTo(records);
+        assertThat(personRepository.count()).isEqualTo(records);
+        List<String> report = Files.readAllLines(personCsvImportService.getRejectionReport(jobId));
+        assertThat(report.subList(1, report.size()))
+                .singleElement()
+                .satisfies(line -> assertThat(line).startsWith("27,").contains(String.format("%011d", peselBase + 25)));
+    }
+
+    @Test
+    void shouldRejectDuplicatePeselsBeforeWritingAnyRow() throws Exception {
+        importProperties.setRangeSizeBytes(300);
+        long peselBase = 76000000000L;
+        studentRepository.save(new Student("Existing", "Person", String.format("%011d", peselBase + 40), 180, 75,
+                "existing@example.com", null, "University", 1, "Field", 1500));
+        String csv = buildCsv(60, peselBase, -1)
+                + buildCsv(1, peselBase + 12, -1).substring(HEADER.length() + 1);
+
+        ImportJob failed = importAndAwait(csv);
+
+        assertThat(failed.getStatus()).isEqualTo(ImportJobStatus.FAILED);
+        assertThat(failed.getErrorMessage())
+                .startsWith("Duplicate PESEL values found")
+                .contains("PESEL " + String.format("%011d", peselBase + 40) + " at row 42 already exists")
+                .contains("PESEL " + String.format("%011d", peselBase + 12) + " at row 62 duplicates row 14");
+        assertThat(failed.getCheckpointOffset()).isNull();
+        assertThat(personRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldWriteSameRowsWithJdbcWriterAsWithJpaWriter() throws Exception {
+        importProperties.setBatchSize(6);
+        importProperties.setRangeSizeBytes(400);
+        String csv = buildMixedTypeCsv(45, 75000000000L);
+
+        importProperties.setWriter(ImportProperties.WriterType.JPA);
+        ImportJob jpaImport = importAndAwait(csv);
+        Map<String, Map<String, Object>> jpaRows = snapshotRowsByPesel();
+        personRepository.deleteAll();
+
+        importProperties.setWriter(ImportProperties.WriterType.JDBC);
+        ImportJob jdbcImport = importAndAwait(csv);
+        Map<String, Map<String, Object>> jdbcRows = snapshotRowsByPesel();
+
+        assertThat(jpaImport.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(jdbcImport.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(jdbcRows).hasSize(45).isEqualTo(jpaRows);
+    }
+
+    @Test
+    void shouldDryRunValidationWithoutWritingAnything() {
+        importProperties.setRangeSizeBytes(500);
+        long peselBase = 84000000000L;
+        studentRepository.save(new Student("Existing", "Person", String.format("%011d", peselBase + 40), 180, 75,
+                "existing@example.com", null, "University", 1, "Field", 1500));
+        String csv = buildCsv(120, peselBase, 97)
+                + buildCsv(1, peselBase + 12, -1).substring(HEADER.length() + 1);
+
+        ImportDryRunDto result = personCsvImportService.dryRun(new MockMultipartFile("file", "persons.csv",
+                MediaType.TEXT_PLAIN_VALUE, csv.getBytes(StandardCharsets.UTF_8)), ImportMode.INSERT, 2);
+
+        assertThat(result.getFormat()).isEqualTo(ImportFormat.CSV);
+        assertThat(result.getTotalRecords()).isEqualTo(121);
+        assertThat(result.getInvalidRecords()).isEqualTo(3);
+        assertThat(result.getValidRecords()).isEqualTo(118);
+        assertThat(result.getRecordsByType()).containsExactly(Map.entry("STUDENT", 118));
+        assertThat(result.getErrors()).extracting(ImportRowErrorDto::getRow).containsExactly(42, 99);
+        assertThat(result.getErrors().get(1).getMessage()).contains("weight");
+        assertThat(result.getEstimatedImportSeconds()).isPositive();
+        assertThat(personRepository.count()).isEqualTo(1);
+        assertThat(importJobRepository.count()).isZero();
+    }
+
+    @Test
+    void shouldDryRunCompressedUploadLikePlainOne() throws Exception {
+        importProperties.setRangeSizeBytes(500);
+        long peselBase = 84500000000L;
+        studentRepository.save(new Student("Existing", "Person", String.format("%011d", peselBase + 40), 180, 75,
+                "existing@example.com", null, "University", 1, "Field", 1500));
+        String csv = buildCsv(120, peselBase, 97)
+                + buildCsv(1, peselBase + 12, -1).substring(HEADER.length() + 1);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(csv.getBytes(StandardCharsets.UTF_8));
+        }
+
+        ImportDryRunDto plain = personCsvImportService.dryRun(new MockMultipartFile("file", "persons.csv",
+                MediaType.TEXT_PLAIN_VALUE, csv.getBytes(StandardCharsets.UTF_8)), ImportMode.INSERT, 5);
+        ImportDryRunDto compressed = personCsvImportService.dryRun(new MockMultipartFile("file", "persons.csv.gz",
+                "application/gzip", gzip.toByteArray()), ImportMode.INSERT, 5);
+
+        assertThat(compressed.getFormat()).isEqualTo(ImportFormat.CSV);
+        assertThat(compressed.getTotalRecords()).isEqualTo(plain.getTotalRecords()).isEqualTo(121);
+        assertThat(compressed.getInvalidRecords()).isEqualTo(plain.getInvalidRecords()).isEqualTo(3);
+        assertThat(compressed.getRecordsByType()).isEqualTo(plain.getRecordsByType());
+        assertThat(compressed.getErrors()).hasSize(3);
+        assertThat(compressed.getErrors()).extracting(ImportRowErrorDto::getRow)
+                .containsExactlyElementsOf(plain.getErrors().stream().map(ImportRowErrorDto::getRow).toList());
+        assertThat(compressed.getErrors()).extracting(ImportRowErrorDto::getMessage)
+                .containsExactlyElementsOf(plain.getErrors().stream().map(ImportRowErrorDto::getMessage).toList());
+        assertThat(personRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDryRunNdjsonWithDuplicateCheckAndCappedErrorCount() {
+        importProperties.setDryRunMaxErrorsLimit(2);
+        studentRepository.save(new Student("Existing", "Person", "86000000002", 180, 75,
+                "existing@example.com", null, "University", 1, "Field", 1500));
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 1; i <= 6; i++) {
+            long pesel = 86000000000L + (i == 4 ? 1 : i);
+            ndjson.append(i == 5 ? "{\"type\":\"STUDENT\"" : String.format(Locale.ROOT,
+                    "{\"type\":\"RETIREE\",\"firstName\":\"Name\",\"lastName\":\"Test\",\"pesel\":\"%011d\","
+                            + "\"height\":180,\"weight\":75,\"email\":\"dry%d@example.com\",\"pensionAmount\":2000,\"yearsWorked\":30}",
+                    pesel, i)).append('\n');
+        }
+
+        ImportDryRunDto result = personCsvImportService.dryRun(new MockMultipartFile("file", "persons.ndjson",
+                "application/x-ndjson", ndjson.toString().getBytes(StandardCharsets.UTF_8)), ImportMode.INSERT, 50);
+
+        assertThat(result.getFormat()).isEqualTo(ImportFormat.NDJSON);
+        assertThat(result.getTotalRecords()).isEqualTo(6);
+        assertThat(result.getInvalidRecords()).isEqualTo(3);
+        assertThat(result.getErrors()).extracting(ImportRowErrorDto::getRow).containsExactly(2, 4);
+        assertThat(result.getErrors().get(0).getMessage()).contains("already exists");
+        assertThat(result.getErrors().get(1).getMessage()).contains("duplicates row 1");
+        assertThat(personRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSkipInvalidRowsAndReportThemWhenRequested() throws Exception {
+        importProperties.setBatchSize(5);
+        importProperties.setRangeSizeBytes(500);
+        importProperties.setParserThreads(1);
+        importProperties.setWriterThreads(1);
+        importProperties.setDuplicateCheck(false);
+        long peselBase = 77000000000L;
+        studentRepository.save(new Student("Existing", "Person", String.format("%011d", peselBase + 40), 180, 75,
+                "existing@example.com", null, "University", 1, "Field", 1500));
+        String csv = buildCsv(120, peselBase, 97)
+                + buildCsv(1, peselBase + 12, -1).substring(HEADER.length() + 1);
+
+        ImportJob completed = importAndAwait(csv, true);
+
+        assertThat(completed.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(completed.getTotalRecords()).isEqualTo(121);
+        assertThat(completed.getRejectedRecords()).isEqualTo(3);
+        assertThat(completed.getSuccessRecords()).isEqualTo(118);
+        assertThat(personRepository.count()).isEqualTo(119);
+
+        List<String> report = Files.readAllLines(personCsvImportService.getRejectionReport(completed.getId()));
+        assertThat(report.get(0)).isEqualTo("row,error," + HEADER);
+        assertThat(report.subList(1, report.size()))
+                .extracting(line -> line.substring(0, line.indexOf(',')))
+                .containsExactly("42", "99", "122");
+        assertThat(report.get(2)).contains("heavy");
+    }
+
+    @Test
+    void shouldImportGzipAndZstdCompressedUploads() throws Exception {
+        importProperties.setRangeSizeBytes(700);
+        byte[] csv = buildCsv(80, 78000000000L, -1).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(csv);
+        }
+        ByteArrayOutputStream zstd = new ByteArrayOutputStream();
+        try (OutputStream out = new ZstdOutputStream(zstd)) {
+            out.write(buildCsv(60, 79000000000L, -1).getBytes(StandardCharsets.UTF_8));
+        }
+
+        long timeoutAt = System.currentTimeMillis() + 10000;
+        ImportJobDto gzipJob = submit(new MockMultipartFile("file", "persons.csv.gz", "application/gzip", gzip.toByteArray()), false, timeoutAt);
+        ImportJob gzipImport = awaitFinished(gzipJob.getId(), timeoutAt);
+        ImportJobDto zstdJob = submit(new MockMultipartFile("file", "persons.csv", "application/octet-stream", zstd.toByteArray()), false, timeoutAt);
+        ImportJob zstdImport = awaitFinished(zstdJob.getId(), timeoutAt);
+
+        assertThat(gzipImport.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(gzipImport.getProcessedRecords()).isEqualTo(80);
+        assertThat(gzipImport.getStoredFilePath()).endsWith(".csv.gz");
+        assertThat(zstdImport.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(zstdImport.getStoredFilePath()).endsWith(".csv.zst");
+        assertThat(personRepository.count()).isEqualTo(140);
+        assertThat(Files.list(Path.of(importProperties.getWorkDir()))
+                .anyMatch(path -> path.getFileName().toString().endsWith("-inflated.csv"))).isFalse();
+    }
+
+    @Test
+    void shouldResumeCompressedImportFromCommittedChunksWithoutInflating() throws Exception {
+        importProperties.setRangeSizeBytes(500);
+        int records = 60;
+        int committed = 20;
+        long peselBase = 78500000000L;
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(buildCsv(records, peselBase, -1).getBytes(StandardCharsets.UTF_8));
+        }
+        List<Student> alreadyImported = new ArrayList<>();
+        for (int i = 0; i < committed; i++) {
+            alreadyImported.add(new Student("Name" + i, "Test" + i, String.format("%011d", peselBase + i), 180, 75,
+                    "student" + i + "@example.com", null, "University", 1, "Field", 1500));
+        }
+        studentRepository.saveAll(alreadyImported);
+
+        Path storedFile = Path.of(importProperties.getWorkDir()).resolve("resume-test.csv.gz");
+        Files.createDirectories(storedFile.getParent());
+        Files.write(storedFile, gzip.toByteArray());
+        ImportJob interrupted = new ImportJob("persons.csv.gz", gzip.size(), "application/gzip");
+        interrupted.setStatus(ImportJobStatus.IN_PROGRESS);
+        interrupted.setStoredFilePath(storedFile.toString());
+        Long jobId = importJobRepository.save(interrupted).getId();
+        importChunkRepository.save(new ImportChunk(jobId, 0, 2, committed + 2, committed, "node-1"));
+
+        personCsvImportService.resumeImport(jobId);
+        ImportJob completed = awaitFinished(jobId, System.currentTimeMillis() + 10000);
+
+        assertThat(completed.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(completed.getProcessedRecords()).isEqualTo(records);
+        assertThat(personRepository.count()).isEqualTo(records);
+        assertThat(importChunkRepository.findCommittedRanges(jobId)).hasSizeGreaterThan(2);
+        assertThat(Files.list(Path.of(importProperties.getWorkDir()))
+                .anyMatch(path -> path.getFileName().toString().contains("-inflated"))).isFalse();
+    }
+
+    @Test
+    void shouldStreamGzipNdjsonUploadWithRowNumbers() throws Exception {
+        importProperties.setRangeSizeBytes(400);
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            ndjson.append(String.format(Locale.ROOT,
+                    "{\"type\":\"STUDENT\",\"firstName\":\"Name %d\",\"lastName\":\"Test\",\"pesel\":\"%011d\",\"height\":%s,"
+                            + "\"weight\":75,\"email\":\"gz%d@example.com\",\"university\":\"Uni\",\"studyYear\":2,"
+                            + "\"fieldOfStudy\":\"Field\",\"scholarship\":1500}",
+                    i, 81500000000L + i, i == 4 ? "\"tall\"" : "180.5", i));
+            ndjson.append(i == 9 ? "\r\n\n" : "\n");
+        }
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(ndjson.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        long timeoutAt = System.currentTimeMillis() + 10000;
+        ImportJobDto started = submit(new MockMultipartFile("file", "persons.jsonl.gz", "application/gzip", gzip.toByteArray()),
+                true, timeoutAt);
+        ImportJob completed = awaitFinished(started.getId(), timeoutAt);
+
+        assertThat(completed.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(completed.getStoredFilePath()).endsWith(".ndjson.gz");
+        assertThat(completed.getTotalRecords()).isEqualTo(20);
+        assertThat(completed.getRejectedRecords()).isEqualTo(1);
+        assertThat(personRepository.count()).isEqualTo(19);
+        List<String> report = Files.readAllLines(personCsvImportService.getRejectionReport(completed.getId()));
+        assertThat(report.subList(1, report.size())).singleElement()
+                .satisfies(line -> assertThat(line).startsWith("5,"));
+    }
+
+    @Test
+    void shouldImportRawStreamedUploadSpooledWithoutMultipart() throws Exception {
+        importProperties.setRangeSizeBytes(700);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(buildCsv(70, 85000000000L, -1).getBytes(StandardCharsets.UTF_8));
+        }
+
+        ImportJobDto started = personCsvImportService.startStreamingImport(new ByteArrayInputStream(gzip.toByteArray()),
+                null, "application/octet-stream", false, ImportMode.INSERT);
+        ImportJob completed = awaitFinished(started.getId(), System.currentTimeMillis() + 10000);
+
+        assertThat(started.getFileSize()).isEqualTo(gzip.size());
+        assertThat(started.getFormat()).isEqualTo(ImportFormat.CSV);
+        assertThat(completed.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(completed.getStoredFilePath()).endsWith(".csv.gz");
+        assertThat(completed.getTotalRecords()).isEqualTo(70);
+        assertThat(personRepository.count()).isEqualTo(70);
+
+        assertThatThrownBy(() -> personCsvImportService.startStreamingImport(new ByteArrayInputStream(new byte[0]),
+                "empty.csv", MediaType.TEXT_PLAIN_VALUE, false, ImportMode.INSERT))
+                .hasMessageContaining("must not be empty");
+        assertThat(importJobRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldImportStreamedUploadWhileItIsStillArriving() throws Exception {
+        importProperties.setBatchSize(20);
+        importProperties.setRangeSizeBytes(2000);
+        ImportJob existing = importAndAwait(buildCsv(1, 86000000500L, -1).replace("student0@", "existing0@"));
+        assertThat(existing.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        String rows = buildCsv(1000, 86000000000L, -1);
+        byte[] csv = (rows + rows.lines().skip(6).findFirst().orElseThrow() + "\n").getBytes(StandardCharsets.UTF_8);
+        int holdAt = csv.length - 10 * 1024;
+        long[] committedBeforeEnd = {-1};
+        InputStream body = new ByteArrayInputStream(csv) {
+            @Override
+            public synchronized int read(byte[] target, int offset, int length) {
+                if (pos >= holdAt && committedBeforeEnd[0] < 0) {
+                    long timeoutAt = System.currentTimeMillis() + 10000;
+                    while (personRepository.count() == 1 && System.currentTimeMillis() < timeoutAt) {
+                        LockSupport.parkNanos(20_000_000L);
+                    }
+                    committedBeforeEnd[0] = personRepository.count() - 1;
+                }
+                return super.read(target, offset, pos < holdAt ? Math.min(length, holdAt - pos) : length);
+            }
+        };
+
+        ImportJobDto started = personCsvImportService.startStreamingImport(body, "persons.csv", MediaType.TEXT_PLAIN_VALUE,
+                true, ImportMode.INSERT);
+        ImportJob completed = awaitFinished(started.getId(), System.currentTimeMillis() + 20000);
+
+        assertThat(committedBeforeEnd[0]).isPositive();
+        assertThat(started.getFileSize()).isEqualTo(csv.length);
+        assertThat(completed.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(completed.getFileSize()).isEqualTo(csv.length);
+        assertThat(completed.getRejectedRecords()).isEqualTo(2);
+        assertThat(personRepository.count()).isEqualTo(1000);
+        assertThat(Files.readString(Path.of(completed.getRejectionFilePath())))
+                .contains("duplicates row 7")
+                .contains("PESEL 86000000500 at row 502 already exists");
+    }
+
+    @Test
+    void shouldImportNdjsonCommandsOfEveryRegisteredType() throws Exception {
+        importProperties.setBatchSize(4);
+        importProperties.setRangeSizeBytes(600);
+        importProperties.setParserThreads(3);
+        importProperties.setWriterThreads(2);
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            String base = String.format(Locale.ROOT,
+                    "\"firstName\":\"Name %d\",\"lastName\":\"Test\",\"pesel\":\"%011d\",\"height\":%s,\"weight\":75,\"email\":\"json%d@example.com\"",
+                    i, 81000000000L + i, i == 7 ? "\"tall\"" : "180.5", i);
+            switch (i % 3) {
+                case 0 -> ndjson.append("{\"type\":\"STUDENT\",").append(base)
+                        .append(",\"university\":\"Uni \\\"Main\\\"\",\"studyYear\":2,\"fieldOfStudy\":\"Field\",\"scholarship\":1500}");
+                case 1 -> ndjson.append("{\"type\":\"EMPLOYEE\",").append(base)
+                        .append(",\"startDate\":\"2015-03-10\",\"currentPosition\":\"Developer\",\"currentSalary\":").append(5000 + i).append('}');
+                default -> ndjson.append("{\"type\":\"").append(i == 11 ? "ALIEN" : "RETIREE").append("\",").append(base)
+                        .append(",\"pensionAmount\":2000,\"yearsWorked\":30}");
+            }
+            ndjson.append(i == 15 ? "\r\n\n" : "\n");
+        }
+
+        long timeoutAt = System.currentTimeMillis() + 10000;
+        ImportJobDto started = submit(new MockMultipartFile("file", "persons.jsonl", "application/octet-stream",
+                ndjson.toString().getBytes(StandardCharsets.UTF_8)), true, timeoutAt);
+        ImportJob completed = awaitFinished(started.getId(), timeoutAt);
+
+        assertThat(started.getFormat()).isEqualTo(ImportFormat.NDJSON);
+        assertThat(completed.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(completed.getStoredFilePath()).endsWith(".ndjson");
+        assertThat(completed.getTotalRecords()).isEqualTo(30);
+        assertThat(completed.getRejectedRecords()).isEqualTo(2);
+        assertThat(personRepository.count()).isEqualTo(28);
+        assertThat(studentRepository.findAll()).hasSize(10)
+                .allSatisfy(student -> assertThat(student.getUniversity()).isEqualTo("Uni \"Main\""));
+        Map<String, Map<String, Object>> rows = snapshotRowsByPesel();
+        assertThat(rows.get("81000000016")).containsEntry("employees.current_salary", 5016.0)
+                .containsEntry("height", 180.5);
+
+        List<String> report = Files.readAllLines(personCsvImportService.getRejectionReport(completed.getId()));
+        assertThat(report.get(0)).isEqualTo("row,error,json");
+        assertThat(report.subList(1, report.size()))
+                .extracting(line -> line.substring(0, line.indexOf(',')))
+                .containsExactlyInAnyOrder("8", "12");
+    }
+
+    @Test
+    void shouldCheckNdjsonPeselsBeforeImportingLikeDryRun() throws Exception {
+        studentRepository.save(new Student("Existing", "Person", "86100000002", 180, 75,
+                "existing@example.com", null, "University", 1, "Field", 1500));
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 1; i <= 6; i++) {
+            ndjson.append(String.format(Locale.ROOT,
+                    "{\"type\":\"RETIREE\",\"firstName\":\"Name\",\"lastName\":\"Test\",\"pesel\":\"%011d\","
+                            + "\"height\":180,\"weight\":75,\"email\":\"pre%d@example.com\",\"pensionAmount\":2000,\"yearsWorked\":30}",
+                    86100000000L + (i == 4 ? 1 : i), i)).append('\n');
+        }
+        byte[] plain = ndjson.toString().getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(plain);
+        }
+        long timeoutAt = System.currentTimeMillis() + 10000;
+
+        ImportJob failed = awaitFinished(submit(new MockMultipartFile("file", "persons.ndjson", "application/x-ndjson", plain),
+                false, timeoutAt).getId(), timeoutAt);
+
+        assertThat(failed.getStatus()).isEqualTo(ImportJobStatus.FAILED);
+        assertThat(failed.getErrorMessage()).contains("PESEL 86100000002 at row 2 already exists");
+        assertThat(personRepository.count()).isEqualTo(1);
+
+        ImportJob skipped = awaitFinished(submit(new MockMultipartFile("file", "persons.ndjson.gz", "application/gzip",
+                gzip.toByteArray()), true, timeoutAt).getId(), timeoutAt);
+
+        assertThat(skipped.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(skipped.getRejectedRecords()).isEqualTo(2);
+        assertThat(personRepository.count()).isEqualTo(5);
+        assertThat(Files.readAllLines(personCsvImportService.getRejectionReport(skipped.getId())))
+                .anyMatch(line -> line.startsWith("2,") && line.contains("already exists"))
+                .anyMatch(line -> line.startsWith("4,") && line.contains("duplicates row 1"));
+    }
+
+    @Test
+    void shouldUpsertByPeselUpdatingOnlyChangedRows() throws Exception {
+        importProperties.setBatchSize(7);
+        importProperties.setRangeSizeBytes(900);
+        long peselBase = 82000000000L;
+        ImportJob initial = importAndAwait(buildCsv(40, peselBase, -1));
+        assertThat(initial.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        Map<String, Map<String, Object>> before = snapshotRowsByPesel();
+
+        String refresh = buildCsv(50, peselBase, -1)
+                .replace("Name3,Test3,", "Renamed3,Test3,")
+                .replace(String.format("%011d,180,", peselBase + 10), String.format("%011d,181,", peselBase + 10));
+        long timeoutAt = System.currentTimeMillis() + 10000;
+        ImportJobDto started = submit(new MockMultipartFile("file", "persons.csv", MediaType.TEXT_PLAIN_VALUE,
+                refresh.getBytes(StandardCharsets.UTF_8)), false, ImportMode.UPSERT, timeoutAt);
+        ImportJob completed = awaitFinished(started.getId(), timeoutAt);
+
+        assertThat(completed.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(completed.getMode()).isEqualTo(ImportMode.UPSERT);
+        assertThat(completed.getTotalRecords()).isEqualTo(50);
+        assertThat(completed.getUpdatedRecords()).isEqualTo(2);
+        assertThat(completed.getUnchangedRecords()).isEqualTo(38);
+        assertThat(personRepository.count()).isEqualTo(50);
+
+        Map<String, Map<String, Object>> after = snapshotRowsByPesel();
+        String renamed = String.format("%011d", peselBase + 3);
+        String taller = String.format("%011d", peselBase + 10);
+        String untouched = String.format("%011d", peselBase + 20);
+        assertThat(after.get(renamed)).containsEntry("first_name", "Renamed3")
+                .containsEntry("version", ((Number) before.get(renamed).get("version")).longValue() + 1);
+        assertThat(after.get(taller)).containsEntry("height", 181.0);
+        assertThat(after.get(untouched)).isEqualTo(before.get(untouched));
+    }
+
+    @Test
+    void shouldImportPositionHistoryGroupedPerEmployee() throws Exception {
+        long peselBase = 83000000000L;
+        ImportJob employees = importAndAwait(buildMixedTypeCsv(9, peselBase));
+        assertThat(employees.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        String first = String.format("%011d", peselBase + 1);
+        String second = String.format("%011d", peselBase + 4);
+        Long secondId = jdbcTemplate.queryForObject("select id from persons where pesel = ?", Long.class, second);
+        String csv = "employeeId,pesel,positionName,salary,dateFrom,dateTo\n"
+                + "," + first + ",Junior,4000,2016-01-01,2017-12-31\n"
+                + "," + first + ",Senior,7000,2018-01-01,\n"
+                + "," + first + ",Overlapping,6000,2017-06-01,2018-06-30\n"
+                + secondId + ",,Lead,9000,2020-01-01,\n"
+                + ",99999999999,Ghost,1000,2020-01-01,\n";
+
+        ImportJob imported = importPositionsAndAwait(csv);
+        ImportJob repeated = importPositionsAndAwait(csv);
+
+        assertThat(imported.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(imported.getTarget()).isEqualTo(ImportTarget.POSITIONS);
+        assertThat(imported.getTotalRecords()).isEqualTo(5);
+        assertThat(imported.getRejectedRecords()).isEqualTo(2);
+        assertThat(imported.getUnchangedRecords()).isZero();
+        assertThat(repeated.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(repeated.getUnchangedRecords()).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from positions", Integer.class)).isEqualTo(3);
+
+        Map<String, Map<String, Object>> rows = snapshotRowsByPesel();
+        assertThat(rows.get(first)).containsEntry("employees.current_position", "Senior")
+                .containsEntry("employees.current_salary", 7000.0);
+        assertThat(rows.get(second)).containsEntry("employees.current_position", "Lead");
+
+        List<String> report = Files.readAllLines(personCsvImportService.getRejectionReport(imported.getId()));
+        assertThat(report.subList(1, report.size()))
+                .extracting(line -> line.substring(0, line.indexOf(',')))
+                .containsExactlyInAnyOrder("4", "6");
+        assertThat(report).anyMatch(line -> line.contains("overlap"));
+    }
+
+    @Test
+    void shouldStreamCompressedPositionImportRangeByRange() throws Exception {
+        importProperties.setRangeSizeBytes(200);
+        long peselBase = 84200000000L;
+        ImportJob employees = importAndAwait(buildMixedTypeCsv(9, peselBase));
+        assertThat(employees.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        String pesel = String.format("%011d", peselBase + 1);
+        StringBuilder csv = new StringBuilder("employeeId,pesel,positionName,salary,dateFrom,dateTo\n");
+        for (int year = 1990; year < 2020; year++) {
+            csv.append(',').append(pesel).append(",Role").append(year).append(",5000,").append(year).append("-01-01,")
+                    .append(year).append("-12-31\n");
+        }
+        csv.append(",99999999999,Ghost,1000,2020-01-01,\n");
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(csv.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        Long jobId = personCsvImportService.startPositionImport(new MockMultipartFile("file", "positions.csv.gz",
+                "application/gzip", gzip.toByteArray()), true).getId();
+        ImportJob completed = awaitFinished(jobId, System.currentTimeMillis() + 10000);
+
+        assertThat(completed.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        assertThat(completed.getTotalRecords()).isEqualTo(31);
+        assertThat(completed.getRejectedRecords()).isEqualTo(1);
+        assertThat(importChunkRepository.findCommittedRanges(jobId)).hasSizeGreaterThan(1);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from positions", Integer.class)).isEqualTo(30);
+        try (Stream<Path> workFiles = Files.list(Path.of(importProperties.getWorkDir()))) {
+            assertThat(workFiles.filter(file -> file.getFileName().toString().contains("-inflated"))).isEmpty();
+        }
+        assertThat(Files.readAllLines(personCsvImportService.getRejectionReport(jobId, ImportTarget.POSITIONS)))
+                .anyMatch(line -> line.contains("not found"));
+        assertThatThrownBy(() -> personCsvImportService.getRejectionReport(jobId, ImportTarget.PERSONS))
+                .isInstanceOf(ImportJobNotFoundException.class);
+    }
+
+    @Test
+    void shouldRecordCommittedPositionRangesWhenLaterRangeFails() throws Exception {
+        importProperties.setRangeSizeBytes(200);
+        long peselBase = 84000000000L;
+        ImportJob employees = importAndAwait(buildMixedTypeCsv(9, peselBase));
+        assertThat(employees.getStatus()).isEqualTo(ImportJobStatus.COMPLETED);
+        String pesel = String.format("%011d", peselBase + 1);
+        StringBuilder csv = new StringBuilder("employeeId,pesel,positionName,salary,dateFrom,dateTo\n");
+        for (int year = 1990; year < 2020; year++) {
+            csv.append(',').append(pesel).append(",Role").append(year).append(",5000,").append(year).append("-01-01,")
+                    .append(year).append("-12-31\n");
+        }
+        csv.append(',').append(pesel).append(",Overlapping,6000,1995-06-01,1995-07-31\n");
+        MockMultipartFile file = new MockMultipartFile("file", "positions.csv", MediaType.TEXT_PLAIN_VALUE,
+                csv.toString().getBytes(StandardCharsets.UTF_8));
+
+        Long jobId = personCsvImportService.startPositionImport(file, false).getId();
+        ImportJob failed = awaitFinished(jobId, System.currentTimeMillis() + 10000);
+
+        List<ImportChunk> chunks = importChunkRepository.findCommittedRanges(jobId);
+        int committed = chunks.stream().mapToInt(ImportChunk::getRecords).sum();
+        Integer positions = jdbcTemplate.queryForObject("select count(*) from positions", Integer.class);
+        assertThat(failed.getStatus()).isEqualTo(ImportJobStatus.FAILED);
+        assertThat(failed.getErrorMessage()).contains("overlap");
+        assertThat(chunks).hasSizeGreaterThan(1);
+        assertThat(committed).isPositive().isLessThan(30).isEqualTo(positions);
+        assertThat(failed.getProcessedRecords()).isEqualTo(committed);
+
+        personCsvImportService.resumeImport(jobId);
+        ImportJob resumed = awaitFinished(jobId, System.currentTimeMillis() + 10000);
+
+        assertThat(resumed.getStatus()).isEqualTo(ImportJobStatus.FAILED);
+        assertThat(resumed.getProcessedRecords()).isEqualTo(committed);
+        assertThat(importChunkRepository.findCommittedRanges(jobId)).hasSize(chunks.size());
+        assertThat(jdbcTemplate.queryForObject("select count(*) from positions", Integer.class)).isEqualTo(positions);
+    }
+
+    private Map<String, Map<String, Object>> snapshotRowsByPesel() {
+        Map<String, Map<String, Object>> rows = new TreeMap<>();
+        for (Map<String, Object> person : jdbcTemplate.queryForList("select * from persons")) {
+            Map<String, Object> row = new TreeMap<>();
+            person.forEach((column, value) -> row.put(column.toLowerCase(Locale.ROOT), value));
+            Object id = row.remove("id");
+            for (String table : List.of("students", "employees", "retirees")) {
+                for (Map<String, Object> subtype : jdbcTemplate.queryForList("select * from " + table + " where id = ?", id)) {
+                    subtype.forEach((column, value) -> {
+                        if (!column.equalsIgnoreCase("id")) {
+                            row.put(table + "." + column.toLowerCase(Locale.ROOT), value);
+                        }
+                    });
+                }
+            }
+            rows.put((String) row.get("pesel"), row);
+        }
+        return rows;
+    }
+
+    private String buildMixedTypeCsv(int records, long peselBase) {
+        StringBuilder builder = new StringBuilder(HEADER).append('\n');
+        for (int i = 0; i < records; i++) {
+            String pesel = String.format("%011d", peselBase + i);
+            String base = String.join(",", "Name" + i, "Test" + i, pesel, "17" + (i % 10) + ".5", "7" + (i % 10), "mixed" + i + "@example.com");
+            switch (i % 3) {
+                case 0 -> builder.append("STUDENT,").append(base).append(",,,,University,").append(1 + i % 5).append(",Field,1500.25,,");
+                case 1 -> builder.append("EMPLOYEE,").append(base).append(",2015-03-").append(10 + i % 15).append(",Developer,").append(5000 + i).append(",,,,,,");
+                default -> builder.append("RETIREE,").append(base).append(",,,,,,,,").append(2000 + i).append(',').append(30 + i % 10);
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private String buildQuotedCsv(int records, long peselBase, int invalidIndex) {
+        StringBuilder builder = new StringBuilder(HEADER).append("\r\n");
+        for (int i = 0; i < records; i++) {
+            String firstName = i % 10 == 0 ? "\"Name\n" + i + ", \"\"Jr\"\"\"" : "Name" + i;
+            builder.append(String.join(",",
+                    "STUDENT",
+                    firstName,
+                    "Test" + i,
+                    String.format("%011d", peselBase + i),
+                    "180",
+                    i == invalidIndex ? "heavy" : "75",
+                    "student" + i + "@example.com",
+                    "", "", "",
+                    "\"University, Main\"",
+                    String.valueOf(1 + (i % 5)),
+                    "Field",
+                    "1500",
+                    "",
+                    "")).append("\r\n");
+        }
+        return builder.toString();
+    }
+
+    private String buildCsv(int records, long peselBase, int invalidIndex) {
+        StringBuilder builder = new StringBuilder(HEADER).append('\n');
+        for (int i = 0; i < records; i++) {
+            builder.append(String.join(",",
+                    "STUDENT",
+                    "Name" + i,
+                    "Test" + i,
+                    String.format("%011d", peselBase + i),
+                    "180",
+                    i == invalidIndex ? "heavy" : "75",
+                    "student" + i + "@example.com",
+                    "",
+                    "",
+                    "",
+                    "University",
+                    String.valueOf(1 + (i % 5)),
+                    "Field",
+                    "1500",
+                    "",
+                    "")).append('\n');
+        }
+        return builder.toString();
+    }
+
+    private ImportJob importAndAwait(String csv) throws Exception {
+        return importAndAwait(csv, false);
+    }
+
+    private ImportJob importAndAwait(String csv, boolean skipInvalidRows) throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "persons.csv", MediaType.TEXT_PLAIN_VALUE, csv.getBytes(StandardCharsets.UTF_8));
+        long timeoutAt = System.currentTimeMillis() + 10000;
+        ImportJobDto started = submit(file, skipInvalidRows, timeoutAt);
+        return awaitFinished(started.getId(), timeoutAt);
+    }
+
+    private ImportJob importPositionsAndAwait(String csv) throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "positions.csv", MediaType.TEXT_PLAIN_VALUE, csv.getBytes(StandardCharsets.UTF_8));
+        long timeoutAt = System.currentTimeMillis() + 10000;
+        while (true) {
+            try {
+                return awaitFinished(personCsvImportService.startPositionImport(file, true).getId(), timeoutAt);
+            } catch (ImportConcurrencyException ex) {
+                if (System.currentTimeMillis() > timeoutAt) {
+                    throw ex;
+                }
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    private ImportJob awaitFinished(Long jobId, long timeoutAt) throws Exception {
+        while (System.currentTimeMillis() < timeoutAt) {
+            ImportJob job = importJobRepository.findById(jobId).orElseThrow();
+            if (job.getStatus() == ImportJobStatus.COMPLETED || job.getStatus() == ImportJobStatus.FAILED) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        fail("Import job did not finish within timeout");
+        return null;
+    }
+
+    private ImportJobDto submit(MockMultipartFile file, boolean skipInvalidRows, long timeoutAt) throws Exception {
+        return submit(file, skipInvalidRows, ImportMode.INSERT, timeoutAt);
+    }
+
+    private ImportJobDto submit(MockMultipartFile file, boolean skipInvalidRows, ImportMode mode, long timeoutAt) throws Exception {
+        while (true) {
+            try {
+                return personCsvImportService.startImport(file, skipInvalidRows, mode);
+            } catch (ImportConcurrencyException ex) {
+                if (System.currentTimeMillis() > timeoutAt) {
+                    throw ex;
+                }
+                Thread.sleep(20);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package pl.kurs.test3r.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.kurs.test3r.config.ImportProperties;
+import pl.kurs.test3r.models.person.Person;
+import pl.kurs.test3r.models.person.Student;
+import pl.kurs.test3r.services.imports.CommittedRows;
+import pl.kurs.test3r.services.imports.ImportCompression;
+import pl.kurs.test3r.services.imports.ImportRecordReader;
+import pl.kurs.test3r.services.imports.ImportStream;
+import pl.kurs.test3r.services.imports.PersonImportPipeline;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PersonImportPipelineTest {
+
+    @Test
+    void shouldParseSequentialChunksOnParserThreads() throws Exception {
+        ImportProperties properties = new ImportProperties();
+        properties.setParserThreads(3);
+        properties.setWriterThreads(2);
+        properties.setRangeSizeBytes(64);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        Set<String> parserThreads = ConcurrentHashMap.newKeySet();
+        List<Person> written = new CopyOnWriteArrayList<>();
+        StringBuilder csv = new StringBuilder("pesel,firstName\n");
+        for (int i = 0; i < 200; i++) {
+            csv.append(String.format("%011d", i)).append(",Name").append(i).append('\n');
+        }
+        PersonImportPipeline pipeline = new PersonImportPipeline("pipeline-test", properties,
+                new TransactionTemplate(transactionManager), () -> 10,
+                (values, rowNumber) -> {
+                    parserThreads.add(Thread.currentThread().getName());
+                    Student student = new Student();
+                    student.setPesel(values[0]);
+                    return student;
+                },
+                written::addAll, (records, bytes) -> {
+                }, checkpoint -> {
+                }, (firstLine, endLine, records) -> {
+                }, null);
+
+        long imported;
+        try (ImportStream stream = ImportStream.of(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)),
+                ImportCompression.NONE);
+             ImportRecordReader reader = stream.csvRecords()) {
+            reader.nextRecord();
+            imported = pipeline.runSequential(reader, stream, 2, 0, CommittedRows.NONE, null);
+        }
+
+        assertThat(imported).isEqualTo(200);
+        assertThat(written).extracting(Person::getPesel).doesNotHaveDuplicates().hasSize(200);
+        assertThat(parserThreads).isNotEmpty().allMatch(thread -> thread.startsWith("pipeline-test-parser-"));
+    }
+}
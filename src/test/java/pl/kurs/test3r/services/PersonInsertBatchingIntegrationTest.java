@@ -0,0 +1,207 @@
+package pl.kurs.test3r.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.kurs.test3r.models.person.Employee;
+import pl.kurs.test3r.models.person.Student;
+import pl.kurs.test3r.models.position.PositionHistory;
+import pl.kurs.test3r.repositories.EmployeeRepository;
+import pl.kurs.test3r.repositories.PersonRepository;
+import pl.kurs.test3r.repositories.StudentRepository;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batchdb;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.format_sql=false"
+})
+public class PersonInsertBatchingIntegrationTest {
+
+    private static final JdbcBatchRecorder RECORDER = new JdbcBatchRecorder();
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        personRepository.deleteAll();
+        RECORDER.reset();
+    }
+
+    @Test
+    void shouldInsertPersonsAndSubtypeRowsInJdbcBatches() {
+        int records = 120;
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < records; i++) {
+            students.add(new Student("Name" + i, "Batch" + i, String.format("%011d", 80000000000L + i), 180, 75,
+                    "batch" + i + "@example.com", null, "University", 1, "Field", 1000));
+        }
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            studentRepository.saveAll(students);
+            studentRepository.flush();
+        });
+
+        assertThat(RECORDER.batchedRows("insert into persons ")).isEqualTo(records);
+        assertThat(RECORDER.executedBatches("insert into persons ")).isLessThanOrEqualTo(3);
+        assertThat(RECORDER.batchedRows("insert into students ")).isEqualTo(records);
+        assertThat(RECORDER.executedBatches("insert into students ")).isLessThanOrEqualTo(3);
+        assertThat(RECORDER.singleExecutions("insert into persons ")).isZero();
+        assertThat(studentRepository.count()).isEqualTo(records);
+    }
+
+    @Test
+    void shouldBatchPositionHistoryInserts() {
+        Employee employee = new Employee("Jane", "Doe", "81000000000", 170, 60, "jane@example.com", null,
+                LocalDate.of(2010, 1, 1), "Developer", 5000, new ArrayList<>());
+        for (int i = 0; i < 60; i++) {
+            employee.getPositions().add(new PositionHistory("Position " + i, 4000 + i,
+                    LocalDate.of(2010, 1, 1).plusMonths(i), LocalDate.of(2010, 1, 1).plusMonths(i + 1).minusDays(1), employee));
+        }
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> employeeRepository.saveAndFlush(employee));
+
+        assertThat(RECORDER.batchedRows("insert into positions ")).isEqualTo(60);
+        assertThat(RECORDER.executedBatches("insert into positions ")).isLessThanOrEqualTo(2);
+    }
+
+    @TestConfiguration
+    static class BatchRecordingConfiguration {
+
+        @Bean
+        static BeanPostProcessor batchRecordingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource && !(bean instanceof RecordingDataSource)) {
+                        return new RecordingDataSource(dataSource, RECORDER);
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    static class RecordingDataSource extends DelegatingDataSource {
+
+        private final JdbcBatchRecorder recorder;
+
+        RecordingDataSource(DataSource target, JdbcBatchRecorder recorder) {
+            super(target);
+            this.recorder = recorder;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return wrap(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return wrap(super.getConnection(username, password));
+        }
+
+        private Connection wrap(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                Object result = invoke(connection, method, args);
+                if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                    return wrap(statement, ((String) args[0]).toLowerCase(Locale.ROOT));
+                }
+                return result;
+            });
+        }
+
+        private PreparedStatement wrap(PreparedStatement statement, String sql) {
+            AtomicInteger pending = new AtomicInteger();
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "addBatch" -> pending.incrementAndGet();
+                    case "executeBatch" -> recorder.recordBatch(sql, pending.getAndSet(0));
+                    case "executeUpdate", "execute" -> recorder.recordSingle(sql);
+                    default -> {
+                    }
+                }
+                return invoke(statement, method, args);
+            });
+        }
+
+        private Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+
+    static class JdbcBatchRecorder {
+
+        private final List<Map.Entry<String, Integer>> batches = new CopyOnWriteArrayList<>();
+        private final Map<String, AtomicInteger> singles = new ConcurrentHashMap<>();
+
+        void reset() {
+            batches.clear();
+            singles.clear();
+        }
+
+        void recordBatch(String sql, int rows) {
+            batches.add(Map.entry(sql, rows));
+        }
+
+        void recordSingle(String sql) {
+            singles.computeIfAbsent(sql, key -> new AtomicInteger()).incrementAndGet();
+        }
+
+        long executedBatches(String prefix) {
+            return batches.stream().filter(entry -> entry.getKey().startsWith(prefix)).count();
+        }
+
+        int batchedRows(String prefix) {
+            return batches.stream().filter(entry -> entry.getKey().startsWith(prefix)).mapToInt(Map.Entry::getValue).sum();
+        }
+
+        int singleExecutions(String prefix) {
+            return singles.entrySet().stream()
+                    .filter(entry -> entry.getKey().startsWith(prefix))
+                    .mapToInt(entry -> entry.getValue().get())
+                    .sum();
+        }
+    }
+}
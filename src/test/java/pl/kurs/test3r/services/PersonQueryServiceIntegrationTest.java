@@ -0,0 +1,196 @@
+package pl.kurs.test3r.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.kurs.test3r.commands.CreatePositionCommand;
+import pl.kurs.test3r.config.SearchProperties;
+import pl.kurs.test3r.dto.ApproximateCountPage;
+import pl.kurs.test3r.dto.EmployeeDto;
+import pl.kurs.test3r.dto.KeysetPageDto;
+import pl.kurs.test3r.dto.PersonDto;
+import pl.kurs.test3r.dto.PersonSearchCriteria;
+import pl.kurs.test3r.dto.SearchCountMode;
+import pl.kurs.test3r.exceptions.InvalidKeysetPaginationException;
+import pl.kurs.test3r.models.person.Employee;
+import pl.kurs.test3r.models.person.Student;
+import pl.kurs.test3r.repositories.EmployeeRepository;
+import pl.kurs.test3r.repositories.PersonRepository;
+import pl.kurs.test3r.repositories.StudentRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class PersonQueryServiceIntegrationTest {
+
+    @Autowired
+    private PersonQueryService personQueryService;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private SearchProperties searchProperties;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private PositionService positionService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        personRepository.deleteAll();
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            students.add(new Student("Name" + i, "Last" + (i % 6), String.format("%011d", 86000000000L + i), 160 + i, 70,
+                    "keyset" + i + "@example.com", null, "University", 1, "Field", 1000));
+        }
+        studentRepository.saveAll(students);
+    }
+
+    @Test
+    void shouldWalkKeysetPagesInSameOrderAsOffsetSearch() {
+        PersonSearchCriteria criteria = new PersonSearchCriteria();
+        criteria.setHeightFrom(165.0);
+        Sort sort = Sort.by(Sort.Order.desc("lastName"));
+
+        List<String> walked = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            KeysetPageDto<PersonDto> page = personQueryService.searchKeyset(criteria, sort, 7, cursor);
+            page.getContent().forEach(person -> walked.add(person.getPesel()));
+            cursor = page.getNextCursor();
+            assertThat(page.isHasNext()).isEqualTo(cursor != null);
+            pages++;
+        } while (cursor != null);
+
+        List<String> expected = personQueryService.search(criteria, PageRequest.of(0, 100, sort.and(Sort.by("id"))))
+                .map(PersonDto::getPesel)
+                .getContent();
+        assertThat(walked).hasSize(35).isEqualTo(expected);
+        assertThat(pages).isEqualTo(5);
+    }
+
+    @Test
+    void shouldAnswerSliceAndApproximateCountModesWithSameContentAsExactPage() {
+        PersonSearchCriteria criteria = new PersonSearchCriteria();
+        criteria.setLastName("last");
+        PageRequest secondPage = PageRequest.of(1, 10, Sort.by("pesel"));
+        int originalLimit = searchProperties.getApproximateCountLimit();
+        searchProperties.setApproximateCountLimit(25);
+        try {
+            Slice<PersonDto> exact = personQueryService.search(criteria, secondPage, SearchCountMode.EXACT);
+            Slice<PersonDto> slice = personQueryService.search(criteria, secondPage, SearchCountMode.NONE);
+            Slice<PersonDto> capped = personQueryService.search(criteria, secondPage, SearchCountMode.APPROXIMATE);
+            Slice<PersonDto> lastPage = personQueryService.search(criteria, PageRequest.of(3, 10, Sort.by("pesel")), SearchCountMode.APPROXIMATE);
+
+            assertThat(exact).isInstanceOf(Page.class);
+            assertThat(((Page<PersonDto>) exact).getTotalElements()).isEqualTo(40);
+            assertThat(slice).isNotInstanceOf(Page.class);
+            assertThat(slice.hasNext()).isTrue();
+            assertThat(slice.getContent()).extracting(PersonDto::getPesel)
+                    .isEqualTo(exact.getContent().stream().map(PersonDto::getPesel).toList());
+            assertThat(capped).isInstanceOf(ApproximateCountPage.class);
+            ApproximateCountPage<PersonDto> cappedPage = (ApproximateCountPage<PersonDto>) capped;
+            assertThat(cappedPage.isTotalApproximate()).isTrue();
+            assertThat(cappedPage.getTotalElements()).isEqualTo(25);
+            assertThat(cappedPage.getContent()).hasSize(10);
+            assertThat(lastPage).isInstanceOf(ApproximateCountPage.class);
+            ApproximateCountPage<PersonDto> lastApproximatePage = (ApproximateCountPage<PersonDto>) lastPage;
+            assertThat(lastApproximatePage.isTotalApproximate()).isFalse();
+            assertThat(lastApproximatePage.getTotalElements()).isEqualTo(40);
+        } finally {
+            searchProperties.setApproximateCountLimit(originalLimit);
+        }
+    }
+
+    @Test
+    void shouldMapEmployeePagesWithConstantNumberOfStatements() {
+        for (int i = 0; i < 30; i++) {
+            Employee employee = employeeRepository.save(new Employee("Worker" + i, "Staff", String.format("%011d", 87000000000L + i), 180, 80,
+                    "worker" + i + "@example.com", null, LocalDate.of(2020, 1, 1), null, 0, new ArrayList<>()));
+            positionService.createPosition(employee.getId(), positionCommand("Developer", LocalDate.of(2018, 1, 1), LocalDate.of(2018, 12, 31)));
+            positionService.createPosition(employee.getId(), positionCommand("developer", LocalDate.of(2019, 1, 1), LocalDate.of(2019, 12, 31)));
+            if (i % 2 == 0) {
+                positionService.createPosition(employee.getId(), positionCommand("Manager", LocalDate.of(2020, 1, 1), null));
+            }
+        }
+        PersonSearchCriteria criteria = new PersonSearchCriteria();
+        criteria.setType("EMPLOYEE");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        statistics.setStatisticsEnabled(true);
+        try {
+            statistics.clear();
+            Page<PersonDto> small = transactionTemplate.execute(status -> personQueryService.search(criteria, PageRequest.of(0, 5, Sort.by("pesel"))));
+            long smallPageStatements = statistics.getPrepareStatementCount();
+            statistics.clear();
+            Page<PersonDto> large = transactionTemplate.execute(status -> personQueryService.search(criteria, PageRequest.of(0, 25, Sort.by("pesel"))));
+            long largePageStatements = statistics.getPrepareStatementCount();
+
+            assertThat(small.getContent()).hasSize(5);
+            assertThat(large.getContent()).hasSize(25);
+            assertThat(smallPageStatements).isEqualTo(2);
+            assertThat(largePageStatements).isEqualTo(smallPageStatements);
+            assertThat(large.getContent()).allSatisfy(person -> {
+                EmployeeDto employee = (EmployeeDto) person;
+                boolean even = (Long.parseLong(employee.getPesel()) - 87000000000L) % 2 == 0;
+                assertThat(employee.getPositionCount()).isEqualTo(even ? 3 : 2);
+                assertThat(employee.getProfessionCount()).isEqualTo(even ? 2 : 1);
+            });
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    @Test
+    void shouldRejectUnsupportedSortAndForeignCursor() {
+        PersonSearchCriteria criteria = new PersonSearchCriteria();
+        String cursor = personQueryService.searchKeyset(criteria, Sort.by("height"), 5, null).getNextCursor();
+
+        assertThatThrownBy(() -> personQueryService.searchKeyset(criteria, Sort.by("university"), 5, null))
+                .isInstanceOf(InvalidKeysetPaginationException.class);
+        assertThatThrownBy(() -> personQueryService.searchKeyset(criteria, Sort.by("lastName"), 5, cursor))
+                .isInstanceOf(InvalidKeysetPaginationException.class);
+        assertThatThrownBy(() -> personQueryService.searchKeyset(criteria, Sort.by("height"), 5, "not-a-cursor"))
+                .isInstanceOf(InvalidKeysetPaginationException.class);
+    }
+
+    private CreatePositionCommand positionCommand(String name, LocalDate from, LocalDate to) {
+        CreatePositionCommand command = new CreatePositionCommand();
+        command.setPositionName(name);
+        command.setSalary(5000.0);
+        command.setDateFrom(from);
+        command.setDateTo(to);
+        return command;
+    }
+}
@@ -11,6 +11,7 @@ import pl.kurs.test3r.dto.PositionHistoryDto;
 import pl.kurs.test3r.exceptions.IllegalEntityStateException;
 import pl.kurs.test3r.models.person.Employee;
 import pl.kurs.test3r.models.position.PositionHistory;
+import pl.kurs.test3r.repositories.DataMigrationRepository;
 import pl.kurs.test3r.repositories.EmployeeRepository;
 import pl.kurs.test3r.repositories.PositionRepository;
 
@@ -47,6 +48,12 @@ public class PositionServiceTest {
     @Autowired
     private PositionRepository positionRepository;
 
+    @Autowired
+    private EmployeeCounterBackfill employeeCounterBackfill;
+
+    @Autowired
+    private DataMigrationRepository dataMigrationRepository;
+
     private Long employeeId;
 
     @BeforeEach
@@ -76,6 +83,52 @@ public class PositionServiceTest {
         assertThat(refreshed.getCurrentSalary()).isEqualTo(6000.0);
     }
 
+    @Test
+    void shouldMaintainPositionCountersOnCreateAndUpdate() {
+        positionService.createPosition(employeeId, createCommand("Developer", 6000.0,
+                LocalDate.of(2019, 1, 1), LocalDate.of(2019, 12, 31)));
+        PositionHistoryDto second = positionService.createPosition(employeeId, createCommand("developer", 6500.0,
+                LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31)));
+
+        Employee afterCreate = employeeRepository.findById(employeeId).orElseThrow();
+        assertThat(afterCreate.getPositionCount()).isEqualTo(2);
+        assertThat(afterCreate.getDistinctProfessionCount()).isEqualTo(1);
+
+        UpdatePositionCommand update = new UpdatePositionCommand();
+        update.setPositionName("Architect");
+        update.setSalary(9000.0);
+        update.setDateFrom(LocalDate.of(2020, 1, 1));
+        update.setDateTo(null);
+        positionService.updatePosition(employeeId, second.getId(), update);
+
+        Employee afterUpdate = employeeRepository.findById(employeeId).orElseThrow();
+        assertThat(afterUpdate.getPositionCount()).isEqualTo(2);
+        assertThat(afterUpdate.getDistinctProfessionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldBackfillPositionCountersFromExistingPositionsOnlyOnce() {
+        dataMigrationRepository.deleteById(EmployeeCounterBackfill.MIGRATION_NAME);
+        Employee employee = employeeRepository.findById(employeeId).orElseThrow();
+        positionRepository.saveAll(List.of(
+                new PositionHistory("Developer", 6000.0, LocalDate.of(2018, 1, 1), LocalDate.of(2018, 12, 31), employee),
+                new PositionHistory("DEVELOPER", 6500.0, LocalDate.of(2019, 1, 1), LocalDate.of(2019, 12, 31), employee),
+                new PositionHistory("Manager", 8000.0, LocalDate.of(2020, 1, 1), null, employee)));
+        assertThat(employeeRepository.findById(employeeId).orElseThrow().getPositionCount()).isZero();
+
+        employeeCounterBackfill.backfillOnStartup();
+
+        Employee refreshed = employeeRepository.findById(employeeId).orElseThrow();
+        assertThat(refreshed.getPositionCount()).isEqualTo(3);
+        assertThat(refreshed.getDistinctProfessionCount()).isEqualTo(2);
+        assertThat(dataMigrationRepository.existsById(EmployeeCounterBackfill.MIGRATION_NAME)).isTrue();
+
+        positionRepository.save(new PositionHistory("Director", 9000.0, LocalDate.of(2017, 1, 1), LocalDate.of(2017, 12, 31), refreshed));
+        employeeCounterBackfill.backfillOnStartup();
+
+        assertThat(employeeRepository.findById(employeeId).orElseThrow().getPositionCount()).isEqualTo(3);
+    }
+
     @Test
     void shouldRejectOverlappingPositionOnCreate() {
         positionService.createPosition(employeeId, createCommand("Developer", 6000.0,